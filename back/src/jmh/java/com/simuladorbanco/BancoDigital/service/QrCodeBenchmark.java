@@ -0,0 +1,75 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// PNG do QR Code de uma cobrança PIX: o caminho antigo (BitMatrix no tamanho final +
+// MatrixToImageWriter, que passa por BufferedImage e ImageIO) contra o PngDeUmBit e contra o
+// código estático servido do cache. Rodar com o perfil jmh do pom.xml
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QrCodeBenchmark {
+
+    private static final String PAYLOAD = "{\"nomeDestinatario\":\"Maria da Silva\",\"valor\":150.75,"
+            + "\"numeroContaDestinatario\":123456,\"expiracao\":\"2026-10-18T10:15:30.123456\"}";
+    private static final Map<EncodeHintType, ErrorCorrectionLevel> CORRECAO_M =
+            Map.of(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M);
+
+    @Param({"300", "1000"})
+    int tamanho;
+
+    private final QRCodeWriter escritor = new QRCodeWriter();
+    private QrCodeService qrCodeService;
+
+    @Setup
+    public void preparar() {
+        qrCodeService = new QrCodeService(16384, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public byte[] matrixToImageWriter() throws WriterException, IOException {
+        BitMatrix pixels = escritor.encode(PAYLOAD, BarcodeFormat.QR_CODE, tamanho, tamanho, CORRECAO_M);
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        MatrixToImageWriter.writeToStream(pixels, "PNG", saida);
+        return saida.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] pngDeUmBit() throws WriterException {
+        BitMatrix modulos = escritor.encode(PAYLOAD, BarcodeFormat.QR_CODE, 0, 0, CORRECAO_M);
+        return PngDeUmBit.escrever(modulos, tamanho, tamanho);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream pngEstaticoDoCache() throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        qrCodeService.pngEstatico(PAYLOAD, tamanho, "M").escrever(saida);
+        return saida;
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
@@ -18,6 +20,8 @@ import java.util.List;
 
 
 @SpringBootApplication
+@EnableRetry
+@EnableScheduling
 @EnableJpaRepositories(basePackages = "com.simuladorbanco.BancoDigital.repository")
 @EntityScan(basePackages = "com.simuladorbanco.BancoDigital.model")
 public class BancoDigitalApplication {
@@ -0,0 +1,241 @@
+package com.simuladorbanco.BancoDigital.arquivo;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+// Arquivo frio das transações antigas (banco.arquivo.diretorio; vazio desliga). Todo dia os meses
+// fechados há mais de banco.arquivo.meses-ativos saem de tb_transacao para um SegmentoDeArquivo
+// por mês (AAAA-MM.seg) no disco local. A tabela e os índices ficam só com o período ativo, e o
+// HistoricoService junta as duas fontes no extrato e na exportação.
+// O diretório é a única cópia dessas transações: precisa de backup, e com várias instâncias tem
+// de ser compartilhado entre elas. Só uma arquiva por vez (advisory lock do PostgreSQL), e as
+// outras carregam os segmentos novos quando a data de modificação do diretório muda, antes de
+// cada leitura, e também a cada banco.arquivo.recarga-ms.
+@Component
+public class ArquivoDeTransacoes {
+
+    private static final Logger log = LoggerFactory.getLogger(ArquivoDeTransacoes.class);
+
+    // Cada transação uma vez para cada conta envolvida, na ordem do segmento
+    private static final String MOVIMENTOS_DO_MES =
+            "SELECT t.conta_remetente_id AS conta, t.id, t.tipo, t.valor, t.data, " +
+            "t.conta_remetente_id, t.conta_destinatario_id FROM tb_transacao t " +
+            "WHERE t.conta_remetente_id IS NOT NULL AND t.data >= ? AND t.data < ? " +
+            "UNION ALL " +
+            "SELECT t.conta_destinatario_id, t.id, t.tipo, t.valor, t.data, " +
+            "t.conta_remetente_id, t.conta_destinatario_id FROM tb_transacao t " +
+            "WHERE t.conta_destinatario_id IS NOT NULL " +
+            "AND (t.conta_remetente_id IS NULL OR t.conta_remetente_id <> t.conta_destinatario_id) " +
+            "AND t.data >= ? AND t.data < ? " +
+            "ORDER BY conta, data, id";
+
+    private final Path diretorio;
+    private final int mesesAtivos;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NavigableMap<YearMonth, SegmentoDeArquivo> segmentos = new ConcurrentSkipListMap<>();
+    private volatile FileTime diretorioLido;
+
+    public ArquivoDeTransacoes(@Value("${banco.arquivo.diretorio:}") String diretorio,
+                               @Value("${banco.arquivo.meses-ativos:13}") int mesesAtivos,
+                               DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.diretorio = diretorio.isBlank() ? null : Path.of(diretorio);
+        this.mesesAtivos = mesesAtivos;
+        // O driver só traz as linhas aos poucos com fetch size e dentro de transação
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(1000);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void abrirSegmentos() throws IOException {
+        if (diretorio == null) {
+            return;
+        }
+        Files.createDirectories(diretorio);
+        recarregarSegmentos();
+    }
+
+    // Abre os segmentos que outra instância gravou desde a última leitura do diretório. A data de
+    // modificação é lida antes da listagem: um arquivo que chegue durante ela muda a data de novo
+    @Scheduled(fixedDelayString = "${banco.arquivo.recarga-ms:60000}")
+    public synchronized void recarregarSegmentos() {
+        if (diretorio == null) {
+            return;
+        }
+        try {
+            FileTime modificado = Files.getLastModifiedTime(diretorio);
+            try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, "*.seg")) {
+                for (Path arquivo : arquivos) {
+                    String nome = arquivo.getFileName().toString();
+                    YearMonth mes = YearMonth.parse(nome.substring(0, nome.length() - ".seg".length()));
+                    if (!segmentos.containsKey(mes)) {
+                        segmentos.put(mes, SegmentoDeArquivo.abrir(arquivo));
+                    }
+                }
+            }
+            diretorioLido = modificado;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Um stat por leitura; a listagem só quando o diretório mudou
+    private void recarregarSeMudou() {
+        if (diretorio == null) {
+            return;
+        }
+        try {
+            if (!Files.getLastModifiedTime(diretorio).equals(diretorioLido)) {
+                recarregarSegmentos();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean estaVazio() {
+        recarregarSeMudou();
+        return segmentos.isEmpty();
+    }
+
+    // Até "limite" movimentos da conta antes do cursor (data, id), do mais recente para o mais antigo
+    public List<MovimentoArquivado> buscarAntesDe(long conta, LocalDateTime data, long id, int limite) {
+        recarregarSeMudou();
+        List<MovimentoArquivado> encontrados = new ArrayList<>();
+        for (SegmentoDeArquivo segmento : segmentos.headMap(YearMonth.from(data), true).descendingMap().values()) {
+            List<MovimentoArquivado> doMes = segmento.daConta(conta);
+            for (int i = doMes.size() - 1; i >= 0 && encontrados.size() < limite; i--) {
+                if (doMes.get(i).antesDe(data, id)) {
+                    encontrados.add(doMes.get(i));
+                }
+            }
+            if (encontrados.size() == limite) {
+                break;
+            }
+        }
+        return encontrados;
+    }
+
+    // Todos os movimentos arquivados da conta, do mais antigo para o mais recente, um mês por vez
+    public void percorrer(long conta, Consumer<List<MovimentoArquivado>> consumidor) {
+        recarregarSeMudou();
+        for (SegmentoDeArquivo segmento : segmentos.values()) {
+            List<MovimentoArquivado> doMes = segmento.daConta(conta);
+            if (!doMes.isEmpty()) {
+                consumidor.accept(doMes);
+            }
+        }
+    }
+
+    @Scheduled(cron = "${banco.arquivo.cron:0 30 3 * * *}")
+    public void arquivar() {
+        if (diretorio == null) {
+            return;
+        }
+        YearMonth primeiroAtivo = YearMonth.now().minusMonths(mesesAtivos);
+        LocalDateTime maisAntiga = jdbcTemplate.queryForObject("SELECT MIN(data) FROM tb_transacao",
+                LocalDateTime.class);
+        if (maisAntiga == null) {
+            return;
+        }
+        for (YearMonth mes = YearMonth.from(maisAntiga); mes.isBefore(primeiroAtivo); mes = mes.plusMonths(1)) {
+            if (!arquivarMes(mes)) {
+                log.info("Outra instância está arquivando transações; esta fica para a próxima execução");
+                return;
+            }
+        }
+    }
+
+    // Tudo numa transação que segura o advisory lock do arquivo: duas instâncias nunca escrevem o
+    // mesmo mês. Devolve false sem fazer nada quando o lock está com outra instância.
+    boolean arquivarMes(YearMonth mes) {
+        LocalDateTime inicio = mes.atDay(1).atStartOfDay();
+        LocalDateTime fim = mes.plusMonths(1).atDay(1).atStartOfDay();
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(hashtext('tb_transacao_arquivo'))", Boolean.class))) {
+                return false;
+            }
+            try {
+                // Com o lock, nenhum .tmp está sendo escrito: os que sobraram são de execuções que caíram
+                apagarTemporarios();
+                // A instância que segurava o lock antes pode ter acabado de gravar este mês
+                recarregarSegmentos();
+                // Segmento já existe: a execução anterior parou antes de apagar as linhas, que até lá
+                // aparecem nas duas fontes (o HistoricoService descarta a repetida)
+                if (!segmentos.containsKey(mes)) {
+                    Path destino = diretorio.resolve(mes + ".seg");
+                    Path temporario = diretorio.resolve(mes + "-" + UUID.randomUUID() + ".seg.tmp");
+                    long movimentos = escreverSegmento(temporario, inicio, fim);
+                    if (movimentos == 0) {
+                        Files.delete(temporario);
+                        return true;
+                    }
+                    Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    segmentos.put(mes, SegmentoDeArquivo.abrir(destino));
+                    log.info("Mês {} arquivado em {} ({} movimentos)", mes, destino, movimentos);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // Só com o segmento no disco e visível para as leituras as linhas saem da tabela
+            int apagadas = jdbcTemplate.update("DELETE FROM tb_transacao WHERE data >= ? AND data < ?", inicio, fim);
+            log.info("{} transações de {} removidas de tb_transacao", apagadas, mes);
+            return true;
+        }));
+    }
+
+    private void apagarTemporarios() throws IOException {
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, "*.seg.tmp")) {
+            for (Path arquivo : arquivos) {
+                Files.deleteIfExists(arquivo);
+            }
+        }
+    }
+
+    private long escreverSegmento(Path arquivo, LocalDateTime inicio, LocalDateTime fim) {
+        try (SegmentoDeArquivo.Escritor escritor = SegmentoDeArquivo.criar(arquivo)) {
+            jdbcTemplate.query(MOVIMENTOS_DO_MES, resultado -> {
+                try {
+                    long remetente = resultado.getLong("conta_remetente_id");
+                    Long numeroRemetente = resultado.wasNull() ? null : remetente;
+                    long destinatario = resultado.getLong("conta_destinatario_id");
+                    Long numeroDestinatario = resultado.wasNull() ? null : destinatario;
+                    escritor.adicionar(new MovimentoArquivado(resultado.getLong("conta"), resultado.getLong("id"),
+                            resultado.getString("tipo"), resultado.getLong("valor"),
+                            resultado.getObject("data", LocalDateTime.class), numeroRemetente, numeroDestinatario));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, inicio, fim, inicio, fim);
+            return escritor.getMovimentos();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
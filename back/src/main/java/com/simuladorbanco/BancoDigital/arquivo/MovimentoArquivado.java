@@ -0,0 +1,14 @@
+package com.simuladorbanco.BancoDigital.arquivo;
+
+import java.time.LocalDateTime;
+
+// Uma transação vista do lado de uma conta: transferência entre duas contas gera dois movimentos
+// (um para cada), transferência para a própria conta só um
+public record MovimentoArquivado(long conta, long id, String tipo, long valor, LocalDateTime data,
+                                 Long remetente, Long destinatario) {
+
+    public boolean antesDe(LocalDateTime dataDoCursor, long idDoCursor) {
+        int comparacao = data.compareTo(dataDoCursor);
+        return comparacao < 0 || (comparacao == 0 && id < idDoCursor);
+    }
+}
@@ -0,0 +1,340 @@
+package com.simuladorbanco.BancoDigital.arquivo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Arquivo imutável com os movimentos de um mês fechado, em ordem (conta, data, id).
+//   cabeçalho: MAGICO, VERSAO (int)
+//   blocos:    até linhasPorBloco movimentos comprimidos com Deflate. Dentro do bloco os valores
+//              vêm por coluna (todas as contas, depois todos os ids, as datas...), em varint e
+//              como diferença para a linha anterior, então cada coluna fica quase constante
+//   índice:    por bloco, primeira e última conta, posição, tamanhos e linhas
+//   rodapé:    posição do índice (long), MAGICO (int)
+// O índice é esparso (um item por bloco): a conta é achada por busca binária e só os blocos
+// dela são descomprimidos. A leitura é sobre o arquivo mapeado em memória.
+final class SegmentoDeArquivo {
+
+    private static final int MAGICO = 0x42445347; // "BDSG"
+    private static final int VERSAO = 1;
+    private static final int TAMANHO_DO_RODAPE = Long.BYTES + Integer.BYTES;
+    static final int LINHAS_POR_BLOCO = 4096;
+
+    private final ByteBuffer dados;
+    private final long[] contaInicial;
+    private final long[] contaFinal;
+    private final int[] posicao;
+    private final int[] tamanhoComprimido;
+    private final int[] tamanhoOriginal;
+
+    private SegmentoDeArquivo(ByteBuffer dados, long[] contaInicial, long[] contaFinal, int[] posicao,
+                              int[] tamanhoComprimido, int[] tamanhoOriginal) {
+        this.dados = dados;
+        this.contaInicial = contaInicial;
+        this.contaFinal = contaFinal;
+        this.posicao = posicao;
+        this.tamanhoComprimido = tamanhoComprimido;
+        this.tamanhoOriginal = tamanhoOriginal;
+    }
+
+    static SegmentoDeArquivo abrir(Path arquivo) throws IOException {
+        MappedByteBuffer dados;
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("Segmento maior que 2 GB: " + arquivo);
+            }
+            // O mapeamento continua válido depois de fechar o canal
+            dados = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        int tamanho = dados.capacity();
+        if (tamanho < 2 * Integer.BYTES + TAMANHO_DO_RODAPE || dados.getInt(0) != MAGICO
+                || dados.getInt(tamanho - Integer.BYTES) != MAGICO) {
+            throw new IOException("Segmento inválido: " + arquivo);
+        }
+        if (dados.getInt(Integer.BYTES) != VERSAO) {
+            throw new IOException("Versão de segmento não suportada: " + arquivo);
+        }
+        int posicaoDoIndice = (int) dados.getLong(tamanho - TAMANHO_DO_RODAPE);
+        ByteBuffer indice = dados.slice(posicaoDoIndice, tamanho - TAMANHO_DO_RODAPE - posicaoDoIndice);
+        int blocos = indice.getInt();
+        long[] contaInicial = new long[blocos];
+        long[] contaFinal = new long[blocos];
+        int[] posicao = new int[blocos];
+        int[] tamanhoComprimido = new int[blocos];
+        int[] tamanhoOriginal = new int[blocos];
+        for (int i = 0; i < blocos; i++) {
+            contaInicial[i] = indice.getLong();
+            contaFinal[i] = indice.getLong();
+            posicao[i] = indice.getInt();
+            tamanhoComprimido[i] = indice.getInt();
+            tamanhoOriginal[i] = indice.getInt();
+        }
+        return new SegmentoDeArquivo(dados, contaInicial, contaFinal, posicao, tamanhoComprimido, tamanhoOriginal);
+    }
+
+    // Os movimentos da conta neste mês, em ordem (data, id)
+    List<MovimentoArquivado> daConta(long conta) {
+        List<MovimentoArquivado> movimentos = new ArrayList<>();
+        // Primeiro bloco que pode ter a conta; ela pode continuar nos seguintes
+        int inicio = 0;
+        int fim = contaFinal.length;
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (contaFinal[meio] < conta) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+        for (int bloco = inicio; bloco < contaInicial.length && contaInicial[bloco] <= conta; bloco++) {
+            lerBloco(bloco, conta, movimentos);
+        }
+        return movimentos;
+    }
+
+    private void lerBloco(int bloco, long conta, List<MovimentoArquivado> movimentos) {
+        byte[] original = new byte[tamanhoOriginal[bloco]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(dados.slice(posicao[bloco], tamanhoComprimido[bloco]));
+            inflater.inflate(original);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Bloco de segmento corrompido", e);
+        } finally {
+            inflater.end();
+        }
+        ByteBuffer entrada = ByteBuffer.wrap(original);
+        int linhas = (int) lerVarLong(entrada);
+        String[] tipos = new String[(int) lerVarLong(entrada)];
+        for (int i = 0; i < tipos.length; i++) {
+            byte[] texto = new byte[(int) lerVarLong(entrada)];
+            entrada.get(texto);
+            tipos[i] = new String(texto, StandardCharsets.UTF_8);
+        }
+        long[] contas = new long[linhas];
+        long[] ids = new long[linhas];
+        long[] datas = new long[linhas];
+        long anterior = 0;
+        for (int i = 0; i < linhas; i++) {
+            contas[i] = anterior += lerVarLong(entrada);
+        }
+        anterior = 0;
+        for (int i = 0; i < linhas; i++) {
+            ids[i] = anterior += desfazerZigZag(lerVarLong(entrada));
+        }
+        anterior = 0;
+        for (int i = 0; i < linhas; i++) {
+            datas[i] = anterior += desfazerZigZag(lerVarLong(entrada));
+        }
+        long[] valores = new long[linhas];
+        for (int i = 0; i < linhas; i++) {
+            valores[i] = desfazerZigZag(lerVarLong(entrada));
+        }
+        int[] tipoDaLinha = new int[linhas];
+        for (int i = 0; i < linhas; i++) {
+            tipoDaLinha[i] = (int) lerVarLong(entrada);
+        }
+        long[] contrapartes = new long[linhas];
+        for (int i = 0; i < linhas; i++) {
+            contrapartes[i] = lerVarLong(entrada);
+        }
+        for (int i = 0; i < linhas; i++) {
+            boolean destinatario = entrada.get() == 1;
+            if (contas[i] != conta) {
+                continue;
+            }
+            Long contraparte = contrapartes[i] == 0 ? null : Long.valueOf(contrapartes[i]);
+            Long propria = conta;
+            movimentos.add(new MovimentoArquivado(conta, ids[i], tipos[tipoDaLinha[i]], valores[i], data(datas[i]),
+                    destinatario ? contraparte : propria, destinatario ? propria : contraparte));
+        }
+    }
+
+    // Escreve um segmento novo; os movimentos precisam chegar em ordem (conta, data, id)
+    static Escritor criar(Path arquivo) throws IOException {
+        return new Escritor(arquivo, LINHAS_POR_BLOCO);
+    }
+
+    static final class Escritor implements Closeable {
+
+        private final FileChannel canal;
+        private final int linhasPorBloco;
+        private final List<MovimentoArquivado> bloco = new ArrayList<>();
+        private final ByteArrayOutputStream indice = new ByteArrayOutputStream();
+        private int blocos;
+        private long movimentos;
+
+        Escritor(Path arquivo, int linhasPorBloco) throws IOException {
+            this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            this.linhasPorBloco = linhasPorBloco;
+            escrever(ByteBuffer.allocate(2 * Integer.BYTES).putInt(MAGICO).putInt(VERSAO).flip());
+        }
+
+        void adicionar(MovimentoArquivado movimento) throws IOException {
+            bloco.add(movimento);
+            movimentos++;
+            if (bloco.size() == linhasPorBloco) {
+                gravarBloco();
+            }
+        }
+
+        long getMovimentos() {
+            return movimentos;
+        }
+
+        private void gravarBloco() throws IOException {
+            ByteArrayOutputStream saida = new ByteArrayOutputStream();
+            escreverVarLong(saida, bloco.size());
+            Map<String, Integer> tipos = new LinkedHashMap<>();
+            for (MovimentoArquivado movimento : bloco) {
+                tipos.putIfAbsent(movimento.tipo(), tipos.size());
+            }
+            escreverVarLong(saida, tipos.size());
+            for (String tipo : tipos.keySet()) {
+                byte[] texto = tipo.getBytes(StandardCharsets.UTF_8);
+                escreverVarLong(saida, texto.length);
+                saida.write(texto);
+            }
+            long anterior = 0;
+            for (MovimentoArquivado movimento : bloco) {
+                escreverVarLong(saida, movimento.conta() - anterior);
+                anterior = movimento.conta();
+            }
+            anterior = 0;
+            for (MovimentoArquivado movimento : bloco) {
+                escreverVarLong(saida, zigZag(movimento.id() - anterior));
+                anterior = movimento.id();
+            }
+            anterior = 0;
+            for (MovimentoArquivado movimento : bloco) {
+                long micros = micros(movimento.data());
+                escreverVarLong(saida, zigZag(micros - anterior));
+                anterior = micros;
+            }
+            for (MovimentoArquivado movimento : bloco) {
+                escreverVarLong(saida, zigZag(movimento.valor()));
+            }
+            for (MovimentoArquivado movimento : bloco) {
+                escreverVarLong(saida, tipos.get(movimento.tipo()));
+            }
+            for (MovimentoArquivado movimento : bloco) {
+                Long contraparte = ehDestinatario(movimento) ? movimento.remetente() : movimento.destinatario();
+                escreverVarLong(saida, contraparte == null ? 0 : contraparte);
+            }
+            for (MovimentoArquivado movimento : bloco) {
+                saida.write(ehDestinatario(movimento) ? 1 : 0);
+            }
+
+            byte[] original = saida.toByteArray();
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            ByteArrayOutputStream comprimido = new ByteArrayOutputStream(original.length / 2 + 64);
+            try {
+                deflater.setInput(original);
+                deflater.finish();
+                byte[] pedaco = new byte[8192];
+                while (!deflater.finished()) {
+                    comprimido.write(pedaco, 0, deflater.deflate(pedaco));
+                }
+            } finally {
+                deflater.end();
+            }
+            long posicao = canal.position();
+            if (posicao + comprimido.size() > Integer.MAX_VALUE) {
+                throw new IOException("Segmento passaria de 2 GB");
+            }
+            escrever(ByteBuffer.wrap(comprimido.toByteArray()));
+            ByteBuffer item = ByteBuffer.allocate(2 * Long.BYTES + 3 * Integer.BYTES)
+                    .putLong(bloco.get(0).conta())
+                    .putLong(bloco.get(bloco.size() - 1).conta())
+                    .putInt((int) posicao)
+                    .putInt(comprimido.size())
+                    .putInt(original.length);
+            indice.write(item.array());
+            blocos++;
+            bloco.clear();
+        }
+
+        // Fecha o último bloco, grava índice e rodapé e força tudo para o disco
+        @Override
+        public void close() throws IOException {
+            try {
+                if (!bloco.isEmpty()) {
+                    gravarBloco();
+                }
+                long posicaoDoIndice = canal.position();
+                escrever(ByteBuffer.allocate(Integer.BYTES).putInt(blocos).flip());
+                escrever(ByteBuffer.wrap(indice.toByteArray()));
+                escrever(ByteBuffer.allocate(TAMANHO_DO_RODAPE).putLong(posicaoDoIndice).putInt(MAGICO).flip());
+                canal.force(true);
+            } finally {
+                canal.close();
+            }
+        }
+
+        private void escrever(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+        }
+
+        private static boolean ehDestinatario(MovimentoArquivado movimento) {
+            Long remetente = movimento.remetente();
+            return remetente == null || remetente != movimento.conta();
+        }
+    }
+
+    private static long micros(LocalDateTime data) {
+        Instant instante = data.toInstant(ZoneOffset.UTC);
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instante);
+    }
+
+    private static LocalDateTime data(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+    private static long zigZag(long valor) {
+        return (valor << 1) ^ (valor >> 63);
+    }
+
+    private static void escreverVarLong(ByteArrayOutputStream saida, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            saida.write((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        saida.write((int) valor);
+    }
+
+    private static long desfazerZigZag(long valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    private static long lerVarLong(ByteBuffer entrada) {
+        long valor = 0;
+        for (int deslocamento = 0; ; deslocamento += 7) {
+            byte b = entrada.get();
+            valor |= (long) (b & 0x7F) << deslocamento;
+            if (b >= 0) {
+                return valor;
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.simuladorbanco.BancoDigital.config;
+
+import com.simuladorbanco.BancoDigital.exception.MuitasRequisicoesException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// BCrypt gasta dezenas de milissegundos de CPU por chamada. Aqui ele roda num pool próprio, do
+// tamanho do número de CPUs e com fila limitada: uma onda de logins não ocupa mais CPU que isso,
+// e quando a fila enche a chamada é recusada na hora (429) em vez de prender mais threads do
+// Tomcat esperando. Quem chama ainda espera o resultado, mas só enquanto houver vaga.
+// Métricas: banco.senha.hash (tempo do BCrypt, por operação), banco.senha.espera (tempo na fila),
+// banco.senha.fila (tamanho atual) e banco.senha.rejeitadas.
+public class CodificadorDeSenhas implements PasswordEncoder {
+
+    private final PasswordEncoder bcrypt;
+    private final ThreadPoolExecutor executor;
+    private final Timer tempoDeEncode;
+    private final Timer tempoDeMatches;
+    private final Timer espera;
+    private final Counter rejeitadas;
+
+    public CodificadorDeSenhas(PasswordEncoder bcrypt, int threads, int tamanhoDaFila, MeterRegistry registry) {
+        this.bcrypt = bcrypt;
+        int quantidade = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(quantidade, quantidade, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(tamanhoDaFila), tarefa -> {
+                    Thread thread = new Thread(tarefa, "hash-senha-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.tempoDeEncode = Timer.builder("banco.senha.hash").tag("operacao", "encode").register(registry);
+        this.tempoDeMatches = Timer.builder("banco.senha.hash").tag("operacao", "matches").register(registry);
+        this.espera = Timer.builder("banco.senha.espera").register(registry);
+        this.rejeitadas = Counter.builder("banco.senha.rejeitadas").register(registry);
+        Gauge.builder("banco.senha.fila", executor, e -> e.getQueue().size()).register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence senha) {
+        return executar(tempoDeEncode, () -> bcrypt.encode(senha));
+    }
+
+    @Override
+    public boolean matches(CharSequence senha, String senhaCodificada) {
+        return executar(tempoDeMatches, () -> bcrypt.matches(senha, senhaCodificada));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String senhaCodificada) {
+        return bcrypt.upgradeEncoding(senhaCodificada);
+    }
+
+    private <T> T executar(Timer tempo, Callable<T> operacao) {
+        long enfileirada = System.nanoTime();
+        Future<T> resultado;
+        try {
+            resultado = executor.submit(() -> {
+                espera.record(System.nanoTime() - enfileirada, TimeUnit.NANOSECONDS);
+                return tempo.recordCallable(operacao);
+            });
+        } catch (RejectedExecutionException e) {
+            rejeitadas.increment();
+            throw new MuitasRequisicoesException("Servidor ocupado, tente novamente em instantes.", 1);
+        }
+        try {
+            return resultado.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Operação interrompida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,33 @@
+package com.simuladorbanco.BancoDigital.config;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Set;
+
+// Contas do usuário logado, tiradas do claim "contas" do token pelo JWTFilter e guardadas nos
+// details da autenticação. Com elas o dono da conta é conferido sem ir ao banco. Token emitido
+// antes do claim não tem ContasDoToken: aí quem confere é o serviço, lendo a conta.
+public final class ContasDoToken {
+
+    private final Set<Long> contas;
+
+    public ContasDoToken(Set<Long> contas) {
+        this.contas = contas;
+    }
+
+    public boolean contem(Long numeroDaConta) {
+        return contas.contains(numeroDaConta);
+    }
+
+    public static ContasDoToken doUsuarioLogado() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        return autenticacao != null && autenticacao.getDetails() instanceof ContasDoToken contas ? contas : null;
+    }
+
+    // true quando o token já provou que a conta é do usuário logado
+    public static boolean confirmaDono(Long numeroDaConta) {
+        ContasDoToken contas = doUsuarioLogado();
+        return contas != null && contas.contem(numeroDaConta);
+    }
+}
@@ -1,7 +1,10 @@
 package com.simuladorbanco.BancoDigital.config;
 
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.impl.TextCodec;
 
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -10,16 +13,23 @@ import java.util.stream.Collectors;
 public class JWTCreator {
     public static final String HEADER_AUTHORIZATION = "Authorization";
     public static final String ROLES_AUTHORITIES = "authorities";
+    public static final String CONTAS = "contas";
+
+    // A chave em Base64 decodificada uma vez só: com a String o jjwt decodifica a cada token
+    private record ChaveDeAssinatura(String texto, Key chave) { }
+    private static volatile ChaveDeAssinatura chaveDeAssinatura;
 
     public static String create(String prefix, String key, JWTObject jwtObject) {
         List<String> rolesAsString = checkRoles(jwtObject.getRoles());
-        String token = Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(jwtObject.getSubject())
                 .setIssuedAt(jwtObject.getIssuedAt())
                 .setExpiration(jwtObject.getExpiration())
-                .claim(ROLES_AUTHORITIES, rolesAsString)  // Passa as roles já formatadas
-                .signWith(SignatureAlgorithm.HS512, key)
-                .compact();
+                .claim(ROLES_AUTHORITIES, rolesAsString);  // Passa as roles já formatadas
+        if (jwtObject.getContas() != null) {
+            builder.claim(CONTAS, jwtObject.getContas());
+        }
+        String token = builder.signWith(SignatureAlgorithm.HS512, chave(key)).compact();
 
         System.out.println("Roles a serem incluídas no token: " + rolesAsString);
         return prefix + " " + token;
@@ -29,17 +39,32 @@ public class JWTCreator {
             throws ExpiredJwtException, UnsupportedJwtException, MalformedJwtException, SignatureException {
         JWTObject object = new JWTObject();
         token = token.replace(prefix, "");
-        Claims claims = Jwts.parser().setSigningKey(key).parseClaimsJws(token).getBody();
+        Claims claims = Jwts.parser().setSigningKey(chave(key)).parseClaimsJws(token).getBody();
         object.setSubject(claims.getSubject());
         object.setExpiration(claims.getExpiration());
         object.setIssuedAt(claims.getIssuedAt());
         object.setRoles((List) claims.get(ROLES_AUTHORITIES));
+        // O JSON devolve Integer ou Long conforme o tamanho do número
+        List<?> contas = claims.get(CONTAS, List.class);
+        if (contas != null) {
+            object.setContas(contas.stream().map(conta -> ((Number) conta).longValue()).toList());
+        }
         return object;
 
     }
 
 
 
+    static Key chave(String key) {
+        ChaveDeAssinatura atual = chaveDeAssinatura;
+        if (atual == null || !atual.texto().equals(key)) {
+            atual = new ChaveDeAssinatura(key, new SecretKeySpec(TextCodec.BASE64.decode(key),
+                    SignatureAlgorithm.HS512.getJcaName()));
+            chaveDeAssinatura = atual;
+        }
+        return atual.chave();
+    }
+
     private static List<String> checkRoles(List<String> roles) {
         return roles.stream()
                 .map(role -> role.startsWith("ROLE_") ? role : "ROLE_" + role)  // Adiciona "ROLE_" somente se não existir
@@ -1,5 +1,8 @@
 package com.simuladorbanco.BancoDigital.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureException;
@@ -17,12 +20,49 @@ import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class JWTFilter extends OncePerRequestFilter {
-    
+
+    private static final int TOKENS_EM_CACHE = 10_000;
+
+    // Token já validado, com as authorities prontas. Fica no cache até o exp do token
+    private record TokenVerificado(JWTObject token, List<SimpleGrantedAuthority> authorities, ContasDoToken contas) { }
+
+    // O dashboard manda o mesmo token em toda requisição: só a primeira paga o parse e o HMAC.
+    // A chave é o SHA-256 de chave de assinatura + token, então o token em si não fica guardado
+    // e trocar a chave invalida tudo.
+    private final Cache<ByteBuffer, TokenVerificado> tokensVerificados = Caffeine.newBuilder()
+            .maximumSize(TOKENS_EM_CACHE)
+            .expireAfter(new Expiry<ByteBuffer, TokenVerificado>() {
+                @Override
+                public long expireAfterCreate(ByteBuffer chave, TokenVerificado verificado, long agora) {
+                    if (verificado.token().getExpiration() == null) {
+                        return 0;
+                    }
+                    long restante = verificado.token().getExpiration().getTime() - System.currentTimeMillis();
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(restante, 0));
+                }
+
+                @Override
+                public long expireAfterUpdate(ByteBuffer chave, TokenVerificado verificado, long agora, long atual) {
+                    return atual;
+                }
+
+                @Override
+                public long expireAfterRead(ByteBuffer chave, TokenVerificado verificado, long agora, long atual) {
+                    return atual;
+                }
+            })
+            .build();
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -31,21 +71,18 @@ public class JWTFilter extends OncePerRequestFilter {
         //esta implementação só esta validando a integridade do token
         try {
             if(token!=null && !token.isEmpty()) {
-                System.out.println("Token recebido: " + token); // Verifica o token recebido
-                JWTObject tokenObject = JWTCreator.create(token,SecurityConfig.PREFIX, SecurityConfig.KEY);
-
-                List<SimpleGrantedAuthority> authorities = authorities(tokenObject.getRoles());
+                TokenVerificado verificado = verificar(token);
 
                 UsernamePasswordAuthenticationToken userToken =
                         new UsernamePasswordAuthenticationToken(
-                                tokenObject.getSubject(),
+                                verificado.token().getSubject(),
                                 null,
-                                authorities);
+                                verificado.authorities());
+                userToken.setDetails(verificado.contas());
 
                 SecurityContextHolder.getContext().setAuthentication(userToken);
 
             }else {
-                System.out.println("Token está vazio ou nulo");
                 SecurityContextHolder.clearContext();
             }
             filterChain.doFilter(request, response);
@@ -55,6 +92,27 @@ public class JWTFilter extends OncePerRequestFilter {
             return;
         }
     }
+
+    // Token inválido não entra no cache: a exceção do jjwt sai do get
+    private TokenVerificado verificar(String token) {
+        return tokensVerificados.get(resumo(token), chave -> {
+            JWTObject tokenObject = JWTCreator.create(token, SecurityConfig.PREFIX, SecurityConfig.KEY);
+            return new TokenVerificado(tokenObject, List.copyOf(authorities(tokenObject.getRoles())),
+                    tokenObject.getContas() == null ? null : new ContasDoToken(Set.copyOf(tokenObject.getContas())));
+        });
+    }
+
+    private ByteBuffer resumo(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(SecurityConfig.KEY.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) 0);
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private List<SimpleGrantedAuthority> authorities(List<String> roles){
         return roles.stream().map(SimpleGrantedAuthority::new)
                 .collect(Collectors.toList());
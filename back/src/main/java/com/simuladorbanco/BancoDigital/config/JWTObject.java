@@ -10,6 +10,7 @@ public class JWTObject {
     private Date issuedAt; // data de criação do token
     private Date expiration; // data de expiração do token
     private List<String> roles; // perfis de acesso
+    private List<Long> contas; // contas do usuário (claim "contas"); null em token emitido antes dele
 
     public String getSubject() {
         return subject;
@@ -42,4 +43,12 @@ public class JWTObject {
     public void setIssuedAt(Date issuedAt) {
         this.issuedAt = issuedAt;
     }
+
+    public List<Long> getContas() {
+        return contas;
+    }
+
+    public void setContas(List<Long> contas) {
+        this.contas = contas;
+    }
 }
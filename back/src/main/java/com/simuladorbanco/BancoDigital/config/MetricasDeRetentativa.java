@@ -0,0 +1,54 @@
+package com.simuladorbanco.BancoDigital.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.interceptor.MethodInvocationRetryCallback;
+import org.springframework.stereotype.Component;
+
+// Contadores publicados no actuator, separados pela operação que colidiu:
+// banco.concorrencia.retentativas -> cada tentativa que falhou por conflito
+// banco.concorrencia.esgotadas    -> operações que falharam mesmo depois de todas as tentativas
+@Component("metricasDeRetentativa")
+public class MetricasDeRetentativa implements RetryListener {
+
+    private final MeterRegistry registry;
+
+    public MetricasDeRetentativa(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback,
+                                                 Throwable throwable) {
+        // Erros de negócio (saldo insuficiente, acesso negado...) também passam por aqui
+        if (ehConflito(throwable)) {
+            registry.counter("banco.concorrencia.retentativas", "operacao", operacao(callback)).increment();
+        }
+    }
+
+    @Override
+    public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback,
+                                               Throwable throwable) {
+        if (ehConflito(throwable)) {
+            registry.counter("banco.concorrencia.esgotadas", "operacao", operacao(callback)).increment();
+        }
+    }
+
+    private boolean ehConflito(Throwable throwable) {
+        return throwable instanceof PessimisticLockingFailureException
+                || throwable instanceof OptimisticLockingFailureException
+                || throwable instanceof OptimisticLockException;
+    }
+
+    private String operacao(RetryCallback<?, ?> callback) {
+        if (callback instanceof MethodInvocationRetryCallback<?, ?> chamada) {
+            return chamada.getInvocation().getMethod().getName();
+        }
+        return "desconhecida";
+    }
+}
@@ -0,0 +1,29 @@
+package com.simuladorbanco.BancoDigital.config;
+
+import jakarta.persistence.OptimisticLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Repete a operação inteira (uma nova transação a cada tentativa) quando ela perde a disputa
+// pela conta: lock/deadlock no modo ATOMICO ou versão desatualizada no modo OTIMISTA.
+// A espera entre tentativas cresce exponencialmente com um fator aleatório (jitter), para que
+// requisições que colidiram não tentem de novo todas no mesmo instante.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Retryable(retryFor = {PessimisticLockingFailureException.class, OptimisticLockingFailureException.class,
+        OptimisticLockException.class},
+        maxAttemptsExpression = "${banco.concorrencia.tentativas:3}",
+        backoff = @Backoff(delayExpression = "${banco.concorrencia.espera-inicial-ms:50}",
+                maxDelayExpression = "${banco.concorrencia.espera-maxima-ms:500}",
+                multiplierExpression = "${banco.concorrencia.multiplicador:2}",
+                random = true),
+        listeners = "metricasDeRetentativa")
+public @interface RetentativaDeConcorrencia {
+}
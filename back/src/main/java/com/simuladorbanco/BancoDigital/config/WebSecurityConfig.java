@@ -1,31 +1,43 @@
 package com.simuladorbanco.BancoDigital.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManagers;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.function.Supplier;
 
 @Configuration
 @EnableWebSecurity
 public class WebSecurityConfig {
 
    @Bean
-    public BCryptPasswordEncoder encoder(){
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder encoder(@Value("${banco.senha.threads:0}") int threads,
+                                   @Value("${banco.senha.fila:64}") int tamanhoDaFila,
+                                   MeterRegistry registry){
+        return new CodificadorDeSenhas(new BCryptPasswordEncoder(), threads, tamanhoDaFila, registry);
     }
 
 
@@ -34,6 +46,9 @@ public class WebSecurityConfig {
         http
                 .authorizeHttpRequests(authorize -> authorize
                         .requestMatchers("/").permitAll()
+                        // Continuação assíncrona de respostas em streaming (exportação do extrato):
+                        // a requisição original já passou pela autorização
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/v3/api-docs/**",
                                 "/swagger-ui/**",
@@ -41,10 +56,17 @@ public class WebSecurityConfig {
                         ).permitAll()
                         .requestMatchers(HttpMethod.POST, "/login").permitAll()
                         .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.POST, "/conta/adicionar").permitAll()  // Allow POST for this route
-                        .requestMatchers("/conta/listartodas").hasRole("ADMIN")
-                        .requestMatchers("/conta/{numeroDaConta}/atualizar").hasAnyRole("ADMIN", "USER")
+                        .requestMatchers("/conta/listartodas", "/conta/listartodas/**").hasRole("ADMIN")
+                        .requestMatchers("/conta/{numeroDaConta}/saldo-distribuido").hasRole("ADMIN")
+                        .requestMatchers("/conta/{numeroDaConta}/atualizar")
+                        .access(AuthorizationManagers.allOf(AuthorityAuthorizationManager.hasAnyRole("ADMIN", "USER"),
+                                this::donoDaConta))
                         .requestMatchers("/error").permitAll() // <--- ADICIONE ISSO AQUI
+                        // Rotas de uma conta: o dono é conferido aqui, pelo token, antes de qualquer SELECT
+                        .requestMatchers("/conta/{numeroDaConta}", "/conta/{numeroDaConta}/**",
+                                "/pix/*/{numeroDaConta}", "/pix/*/{numeroDaConta}/**").access(this::donoDaConta)
                         .anyRequest().authenticated()
                 ) // Authentication required for all other routes
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
@@ -56,6 +78,21 @@ public class WebSecurityConfig {
 
     }
 
+    // Token sem o claim "contas" (emitido antes dele) passa, e o serviço confere o dono no banco
+    private AuthorizationDecision donoDaConta(Supplier<Authentication> autenticacao,
+                                              RequestAuthorizationContext contexto) {
+        Authentication usuario = autenticacao.get();
+        if (usuario == null || !usuario.isAuthenticated() || usuario instanceof AnonymousAuthenticationToken) {
+            return new AuthorizationDecision(false);
+        }
+        if (!(usuario.getDetails() instanceof ContasDoToken contas)) {
+            return new AuthorizationDecision(true);
+        }
+        String numeroDaConta = contexto.getVariables().get("numeroDaConta");
+        return new AuthorizationDecision(numeroDaConta != null && numeroDaConta.matches("\\d{1,18}")
+                && contas.contem(Long.valueOf(numeroDaConta)));
+    }
+
     @Bean
     CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -66,6 +103,8 @@ public class WebSecurityConfig {
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         // Permite cabeçalhos comuns, incluindo o 'Authorization' para o JWT
         configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        // Deixa o front ler o cursor da próxima página do extrato
+        configuration.setExposedHeaders(Arrays.asList("X-Proximo-Cursor"));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         // Aplica a configuração a todos os paths ("/**")
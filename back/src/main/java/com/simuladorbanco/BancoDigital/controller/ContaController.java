@@ -1,19 +1,33 @@
 package com.simuladorbanco.BancoDigital.controller;
 
+import com.simuladorbanco.BancoDigital.dtos.ContaListadaDTO;
+import com.simuladorbanco.BancoDigital.dtos.PaginaDeContas;
+import com.simuladorbanco.BancoDigital.dtos.PaginaDeTransacoes;
+import com.simuladorbanco.BancoDigital.dtos.ResumoDaConta;
 import com.simuladorbanco.BancoDigital.dtos.TransacaoDTO;
 import com.simuladorbanco.BancoDigital.dtos.TransferenciaRequest;
+import com.simuladorbanco.BancoDigital.model.Centavos;
 import com.simuladorbanco.BancoDigital.model.Conta;
+import com.simuladorbanco.BancoDigital.service.ContaQuenteService;
 import com.simuladorbanco.BancoDigital.service.ContaService;
+import com.simuladorbanco.BancoDigital.service.EncerramentoDeContas;
+import com.simuladorbanco.BancoDigital.service.FormatoDoExtrato;
 import com.simuladorbanco.BancoDigital.service.HistoricoService;
+import com.simuladorbanco.BancoDigital.service.ListagemDeContas;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -27,19 +41,27 @@ public class ContaController {
     @Autowired
     HistoricoService historicoService;
 
+    @Autowired
+    ContaQuenteService contaQuenteService;
+
+    @Autowired
+    EncerramentoDeContas encerramentoDeContas;
+
+    @Autowired
+    ListagemDeContas listagemDeContas;
+
     // ==========================================
     // OPERAÇÕES FINANCEIRAS (Tag 3)
     // ==========================================
 
     @PutMapping("/{numeroDaConta}/depositar")
-    @Transactional
     @Operation(summary = "Realiza um depósito", description = "Adiciona o valor especificado ao saldo da conta. Não exige token (simula depósito em caixa eletrônico).", tags = {"3. Operações Financeiras"})
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Depósito realizado com sucesso"),
             @ApiResponse(responseCode = "404", description = "Conta não encontrada")
     })
-    public ResponseEntity<TransacaoDTO> depositar(@RequestBody Double valor, @PathVariable Long numeroDaConta) {
-        return ResponseEntity.ok(contaService.depositar(valor, numeroDaConta));
+    public ResponseEntity<TransacaoDTO> depositar(@RequestBody BigDecimal valor, @PathVariable Long numeroDaConta) {
+        return ResponseEntity.ok(contaService.depositar(Centavos.deReais(valor), numeroDaConta));
     }
 
     @PutMapping("/{numeroDaConta}/sacar")
@@ -49,8 +71,8 @@ public class ContaController {
             @ApiResponse(responseCode = "400", description = "Saldo insuficiente para o saque"),
             @ApiResponse(responseCode = "403", description = "Usuário não autenticado")
     })
-    public ResponseEntity<TransacaoDTO> sacar(@RequestBody double valor, @PathVariable Long numeroDaConta) {
-        return ResponseEntity.ok(contaService.sacar(valor, numeroDaConta));
+    public ResponseEntity<TransacaoDTO> sacar(@RequestBody BigDecimal valor, @PathVariable Long numeroDaConta) {
+        return ResponseEntity.ok(contaService.sacar(Centavos.deReais(valor), numeroDaConta));
     }
 
     @PutMapping("/{numeroContaRemetente}/transferencia")
@@ -64,9 +86,41 @@ public class ContaController {
     }
 
     @GetMapping("/{numeroDaConta}/extrato")
-    @Operation(summary = "Emite o extrato", description = "Retorna a lista completa de todas as transações (entradas e saídas) associadas à conta.", tags = {"3. Operações Financeiras"})
-    public ResponseEntity<List<TransacaoDTO>> getHistoricoConta(@PathVariable Long numeroDaConta) {
-        return ResponseEntity.ok(historicoService.listarTodasAsTransacoes(numeroDaConta));
+    @Operation(summary = "Emite o extrato", description = "Retorna uma página das transações (entradas e saídas) da conta, da mais recente para a mais antiga. Se houver mais páginas, o cabeçalho X-Proximo-Cursor traz o valor a ser enviado em 'cursor' na próxima chamada.", tags = {"3. Operações Financeiras"})
+    public ResponseEntity<List<TransacaoDTO>> getHistoricoConta(@PathVariable Long numeroDaConta,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer tamanho) {
+        PaginaDeTransacoes pagina = historicoService.listarExtrato(numeroDaConta, cursor, tamanho);
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+        if (pagina.getProximoCursor() != null) {
+            resposta.header("X-Proximo-Cursor", pagina.getProximoCursor());
+        }
+        return resposta.body(pagina.getTransacoes());
+    }
+
+    @GetMapping("/{numeroDaConta}/extrato/export")
+    @Operation(summary = "Exporta o extrato completo", description = "Envia todas as transações da conta, da mais antiga para a mais recente, em NDJSON (padrão) ou CSV (formato=csv). As linhas são enviadas conforme são lidas, sem limite de tamanho.", tags = {"3. Operações Financeiras"})
+    public ResponseEntity<StreamingResponseBody> exportarExtrato(@PathVariable Long numeroDaConta,
+                                                                 @RequestParam(defaultValue = "ndjson") String formato) {
+        FormatoDoExtrato formatoDoExtrato = FormatoDoExtrato.de(formato);
+        // Confere antes de começar a resposta: depois do primeiro byte não dá mais para devolver 404
+        historicoService.verificarConta(numeroDaConta);
+        StreamingResponseBody corpo = saida -> historicoService.exportarExtrato(numeroDaConta, formatoDoExtrato, saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formatoDoExtrato.getTipoDeConteudo() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"extrato-" + numeroDaConta + "."
+                        + formatoDoExtrato.name().toLowerCase() + "\"")
+                .body(corpo);
+    }
+
+    @GetMapping("/{numeroDaConta}/resumo")
+    @Operation(summary = "Resumo do período", description = "Retorna entradas e saídas por mês e tipo, e o saldo no fim de cada dia com movimento, entre 'from' e 'to' (datas ISO, padrão: últimos 12 meses).", tags = {"3. Operações Financeiras"})
+    public ResponseEntity<ResumoDaConta> resumo(@PathVariable Long numeroDaConta,
+                                                @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+                                                @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        LocalDate fim = ate == null ? LocalDate.now() : ate;
+        LocalDate inicio = de == null ? fim.minusYears(1).plusDays(1) : de;
+        return ResponseEntity.ok(historicoService.resumir(numeroDaConta, inicio, fim));
     }
 
     // ==========================================
@@ -86,16 +140,59 @@ public class ContaController {
     }
 
     @DeleteMapping("/{numeroDaConta}")
-    @Operation(summary = "Encerra a conta", description = "Remove permanentemente a conta e seus vínculos do banco de dados.", tags = {"2. Gerenciamento de Contas"})
-    public ResponseEntity<String> removerConta(@PathVariable Long numeroDaConta) {
-        contaService.removerConta(numeroDaConta);
-        return ResponseEntity.ok("Conta removida com sucesso");
+    @Operation(summary = "Encerra a conta", description = "Remove permanentemente a conta e seus vínculos do banco de dados. Com histórico grande responde 202 e o encerramento segue em segundo plano.", tags = {"2. Gerenciamento de Contas"})
+    public ResponseEntity<?> removerConta(@PathVariable Long numeroDaConta) {
+        EncerramentoDeContas.Progresso progresso = contaService.removerConta(numeroDaConta);
+        if (progresso.situacao() == EncerramentoDeContas.Situacao.CONCLUIDO) {
+            return ResponseEntity.ok("Conta removida com sucesso");
+        }
+        // Histórico grande: o encerramento continua em segundo plano
+        return ResponseEntity.accepted().body(progresso);
+    }
+
+    @GetMapping("/{numeroDaConta}/encerramento")
+    @Operation(summary = "Andamento do encerramento", description = "Mostra quantas transações da conta já foram passadas para a conta de encerradas quando o encerramento roda em segundo plano.", tags = {"2. Gerenciamento de Contas"})
+    public ResponseEntity<EncerramentoDeContas.Progresso> consultarEncerramento(@PathVariable Long numeroDaConta) {
+        return ResponseEntity.ok(encerramentoDeContas.consultar(numeroDaConta));
+    }
+
+    @PutMapping("/{numeroDaConta}/saldo-distribuido")
+    @Operation(summary = "Ativa o saldo distribuído", description = "Divide o saldo da conta em slots para que créditos simultâneos (ex.: muitos PIX recebidos) não disputem a mesma linha. (Uso restrito para administração).", tags = {"2. Gerenciamento de Contas"})
+    public ResponseEntity<String> ativarSaldoDistribuido(@PathVariable Long numeroDaConta) {
+        contaQuenteService.ativar(numeroDaConta);
+        return ResponseEntity.ok("Saldo distribuído ativado");
+    }
+
+    @DeleteMapping("/{numeroDaConta}/saldo-distribuido")
+    @Operation(summary = "Desativa o saldo distribuído", description = "Consolida os slots no saldo da conta e volta ao modo normal. (Uso restrito para administração).", tags = {"2. Gerenciamento de Contas"})
+    public ResponseEntity<String> desativarSaldoDistribuido(@PathVariable Long numeroDaConta) {
+        contaQuenteService.desativar(numeroDaConta);
+        return ResponseEntity.ok("Saldo distribuído desativado");
     }
 
     @GetMapping("/listartodas")
-    @Operation(summary = "Lista todas as contas", description = "Retorna um array com todas as contas ativas no banco de dados. (Uso restrito para administração).", tags = {"2. Gerenciamento de Contas"})
-    public ResponseEntity<List<Conta>> listarTodos() {
-        return ResponseEntity.ok(contaService.listarTodos());
+    @Operation(summary = "Lista todas as contas", description = "Retorna uma página das contas (número, nome, e-mail e saldo) em ordem de número, com filtros opcionais por trecho do 'nome' e do 'email'. Se houver mais páginas, o cabeçalho X-Proximo-Cursor traz o valor a ser enviado em 'cursor' na próxima chamada. (Uso restrito para administração).", tags = {"2. Gerenciamento de Contas"})
+    public ResponseEntity<List<ContaListadaDTO>> listarTodos(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer tamanho,
+                                                             @RequestParam(required = false) String nome,
+                                                             @RequestParam(required = false) String email) {
+        PaginaDeContas pagina = listagemDeContas.listar(cursor, tamanho, nome, email);
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+        if (pagina.getProximoCursor() != null) {
+            resposta.header("X-Proximo-Cursor", pagina.getProximoCursor());
+        }
+        return resposta.body(pagina.getContas());
+    }
+
+    @GetMapping("/listartodas/export")
+    @Operation(summary = "Exporta todas as contas", description = "Envia todas as contas (número, nome, e-mail e saldo) em NDJSON, uma por linha, conforme são lidas do banco. Aceita os mesmos filtros 'nome' e 'email' da listagem. (Uso restrito para administração).", tags = {"2. Gerenciamento de Contas"})
+    public ResponseEntity<StreamingResponseBody> exportarContas(@RequestParam(required = false) String nome,
+                                                                @RequestParam(required = false) String email) {
+        StreamingResponseBody corpo = saida -> listagemDeContas.exportar(nome, email, saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson;charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"contas.ndjson\"")
+                .body(corpo);
     }
 
     @GetMapping("/{numeroDaConta}")
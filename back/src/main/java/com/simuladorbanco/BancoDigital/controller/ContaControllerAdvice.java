@@ -2,9 +2,11 @@ package com.simuladorbanco.BancoDigital.controller;
 
 
 import com.simuladorbanco.BancoDigital.exception.EmailNullException;
+import com.simuladorbanco.BancoDigital.exception.MuitasRequisicoesException;
 import com.simuladorbanco.BancoDigital.exception.SaldoInsuficienteException;
 import com.simuladorbanco.BancoDigital.exception.SenhaNullException;
 import com.simuladorbanco.BancoDigital.exception.SenhaRepetidaException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -38,6 +40,15 @@ public class ContaControllerAdvice {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
     }
 
+    @ExceptionHandler(MuitasRequisicoesException.class)
+    public ResponseEntity<Object> handleMuitasRequisicoesException(MuitasRequisicoesException ex) {
+        Map<String, Object> body = new HashMap<String, Object>();
+        body.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getSegundosParaTentarDeNovo()))
+                .body(body);
+    }
+
     @ExceptionHandler(RuntimeException.class) // Troque por RuntimeException se preferir
     public ResponseEntity<String> handleContaNaoEncontrada(RuntimeException ex) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
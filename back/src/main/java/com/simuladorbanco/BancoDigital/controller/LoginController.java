@@ -7,12 +7,14 @@ import com.simuladorbanco.BancoDigital.dtos.Login;
 import com.simuladorbanco.BancoDigital.dtos.Sessao;
 import com.simuladorbanco.BancoDigital.model.Conta;
 import com.simuladorbanco.BancoDigital.repository.ContaRepository;
+import com.simuladorbanco.BancoDigital.service.LimiteDeLogin;
 import com.simuladorbanco.BancoDigital.service.LoginService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -31,14 +33,19 @@ public class LoginController {
     @Autowired
     LoginService loginService;
 
+    @Autowired
+    LimiteDeLogin limiteDeLogin;
+
     @PostMapping("/login")
     @Operation(summary = "Autentica o usuário", description = "Recebe as credenciais (e-mail e senha), valida no sistema e retorna uma Sessão contendo o Token JWT. Este token deve ser usado no botão 'Authorize' para acessar as demais rotas.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Login realizado com sucesso. Token gerado."),
             @ApiResponse(responseCode = "403", description = "Credenciais inválidas (E-mail ou senha incorretos)", content = @Content),
-            @ApiResponse(responseCode = "400", description = "Formato de requisição inválido", content = @Content)
+            @ApiResponse(responseCode = "400", description = "Formato de requisição inválido", content = @Content),
+            @ApiResponse(responseCode = "429", description = "Tentativas demais para o e-mail ou IP, ou servidor ocupado; ver Retry-After", content = @Content)
     })
-    public ResponseEntity<Sessao> logar(@RequestBody Login login){
+    public ResponseEntity<Sessao> logar(@RequestBody Login login, HttpServletRequest request){
+        limiteDeLogin.verificar(login.getEmail(), request.getRemoteAddr());
         return ResponseEntity.ok(loginService.logar(login));
     }
 }
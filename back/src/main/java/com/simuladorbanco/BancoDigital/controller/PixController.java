@@ -1,17 +1,24 @@
 package com.simuladorbanco.BancoDigital.controller;
 
 import com.simuladorbanco.BancoDigital.dtos.TransacaoDTO;
+import com.simuladorbanco.BancoDigital.model.Centavos;
 import com.simuladorbanco.BancoDigital.model.Transacao;
+import com.simuladorbanco.BancoDigital.service.FormatoDoQrCode;
 import com.simuladorbanco.BancoDigital.service.PixService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 @RestController
@@ -25,7 +32,7 @@ public class PixController {
     private PixService pixService;
 
     @PostMapping("/gerar/{numeroContaDestinatario}")
-    @Operation(summary = "Gera uma cobrança PIX (QR Code)", description = "Cria um payload contendo os dados do destinatário, valor e trava de validade (expiração em 30 minutos). Retorna a string do QR Code e os dados formatados para conferência.")
+    @Operation(summary = "Gera uma cobrança PIX (QR Code)", description = "Cria um código assinado com a conta de destino, o valor e a trava de validade (expiração em 30 minutos). Retorna a imagem do QR Code em Base64 e o texto do código (Copia e Cola).")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "QR Code gerado com sucesso"),
             @ApiResponse(responseCode = "404", description = "Conta de destino não encontrada")
@@ -40,6 +47,41 @@ public class PixController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/gerar/{numeroContaDestinatario}/imagem")
+    @Operation(summary = "Gera a cobrança PIX como imagem", description = "Mesma cobrança do /gerar, mas a resposta é a própria imagem do QR Code em PNG (padrão) ou SVG (formato=svg), com 'tamanho' em pixels (64 a 2000, padrão 300) e nível de correção de erros 'correcao' (L, M, Q ou H, padrão M). Com estatico=true o código não expira e o texto é sempre o mesmo. O texto do QR Code (Copia e Cola) vem no cabeçalho X-Pix-Conteudo, codificado como URL.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Imagem do QR Code"),
+            @ApiResponse(responseCode = "404", description = "Conta de destino não encontrada ou parâmetro inválido")
+    })
+    public ResponseEntity<StreamingResponseBody> gerarQrCodeImagem(
+            @PathVariable Long numeroContaDestinatario,
+            @RequestBody Map<String, BigDecimal> request,
+            @RequestParam(defaultValue = "false") boolean estatico,
+            @RequestParam(defaultValue = "png") String formato,
+            @RequestParam(defaultValue = "300") int tamanho,
+            @RequestParam(defaultValue = "M") String correcao) {
+
+        // O QR Code é calculado antes da resposta começar: erro ainda vira status, não imagem pela metade
+        PixService.CobrancaPix cobranca = pixService.gerarImagemPix(numeroContaDestinatario, request.get("valor"),
+                estatico, FormatoDoQrCode.de(formato), tamanho, correcao);
+        StreamingResponseBody corpo = saida -> cobranca.imagem().escrever(saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(cobranca.imagem().getTipoDeConteudo()))
+                .header("X-Pix-Conteudo", URLEncoder.encode(cobranca.conteudo(), StandardCharsets.UTF_8))
+                .cacheControl(CacheControl.noStore())
+                .body(corpo);
+    }
+
+    @PostMapping("/ler")
+    @Operation(summary = "Lê um código PIX antes do pagamento", description = "Confere a assinatura do texto do QR Code (ou Copia e Cola) e devolve destinatário, conta, valor e expiração (nula no código estático) para a tela de confirmação.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Código íntegro, dados da cobrança"),
+            @ApiResponse(responseCode = "404", description = "Código inválido, adulterado ou conta de destino inexistente")
+    })
+    public ResponseEntity<Map<String, Object>> lerQrCode(@RequestBody Map<String, String> request) {
+        return ResponseEntity.ok(pixService.lerQrCodePix(request.get("qrCodeTexto")));
+    }
+
     @PostMapping("/pagar/{numeroDaContaRemetente}")
     @Operation(summary = "Realiza pagamento de PIX", description = "Processa o texto de um QR Code lido pela câmera ou 'Pix Copia e Cola'. Valida a data de expiração, verifica o saldo do remetente e efetiva a transação instantânea usando lógica ACID.")
     @ApiResponses({
@@ -55,7 +97,7 @@ public class PixController {
             String conteudoQrCode = request.get("qrCodeTexto");
             TransacaoDTO dto = pixService.pagarQrCodePix(numeroDaContaRemetente, conteudoQrCode);
 
-            return ResponseEntity.ok("PIX de R$ " + dto.getValor() + " pago com sucesso!");
+            return ResponseEntity.ok("PIX de R$ " + Centavos.paraReais(dto.getValor()) + " pago com sucesso!");
 
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
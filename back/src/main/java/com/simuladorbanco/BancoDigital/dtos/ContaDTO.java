@@ -9,4 +9,14 @@ public class ContaDTO {
 
     private String nome;
 
+    // Lado vazio da transação (remetente do depósito, destinatário do saque) vira null
+    public static ContaDTO de(Long numeroDaConta, String nome) {
+        if (numeroDaConta == null) {
+            return null;
+        }
+        ContaDTO contaDTO = new ContaDTO();
+        contaDTO.setNumeroDaConta(numeroDaConta);
+        contaDTO.setNome(nome);
+        return contaDTO;
+    }
 }
@@ -0,0 +1,25 @@
+package com.simuladorbanco.BancoDigital.dtos;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.simuladorbanco.BancoDigital.model.Centavos;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Linha da listagem de contas da administração: só o que a tela mostra, sem senha nem papéis.
+// Montada direto pela consulta (SELECT new ...) do ContaRepository.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContaListadaDTO {
+
+    private Long numeroDaConta;
+
+    private String nome;
+
+    private String email;
+
+    // Em centavos, já somando os slots de conta quente; no JSON sai em reais
+    @JsonSerialize(using = Centavos.Serializer.class)
+    private long saldo;
+}
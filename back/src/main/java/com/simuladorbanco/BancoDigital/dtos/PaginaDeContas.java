@@ -0,0 +1,16 @@
+package com.simuladorbanco.BancoDigital.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PaginaDeContas {
+
+    private List<ContaListadaDTO> contas;
+
+    // null na última página
+    private String proximoCursor;
+}
@@ -0,0 +1,16 @@
+package com.simuladorbanco.BancoDigital.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PaginaDeTransacoes {
+
+    private List<TransacaoDTO> transacoes;
+
+    // null na última página
+    private String proximoCursor;
+}
@@ -0,0 +1,32 @@
+package com.simuladorbanco.BancoDigital.dtos;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.simuladorbanco.BancoDigital.model.Centavos;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoDaConta {
+
+    private LocalDate de;
+
+    private LocalDate ate;
+
+    // Saldo antes do primeiro dia do período, em centavos; no JSON sai em reais
+    @JsonSerialize(using = Centavos.Serializer.class)
+    @JsonDeserialize(using = Centavos.Deserializer.class)
+    private long saldoInicial;
+
+    // Entradas e saídas por mês e tipo
+    private List<ResumoMensal> meses;
+
+    // Só os dias com movimento: entre dois deles o saldo não muda
+    private List<SaldoDoDia> saldos;
+}
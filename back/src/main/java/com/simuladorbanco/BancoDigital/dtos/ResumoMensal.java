@@ -0,0 +1,31 @@
+package com.simuladorbanco.BancoDigital.dtos;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.simuladorbanco.BancoDigital.model.Centavos;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoMensal {
+
+    private YearMonth mes;
+
+    private String tipo;
+
+    // Em centavos; no JSON saem em reais
+    @JsonSerialize(using = Centavos.Serializer.class)
+    @JsonDeserialize(using = Centavos.Deserializer.class)
+    private long entradas;
+
+    @JsonSerialize(using = Centavos.Serializer.class)
+    @JsonDeserialize(using = Centavos.Deserializer.class)
+    private long saidas;
+
+    private long quantidade;
+}
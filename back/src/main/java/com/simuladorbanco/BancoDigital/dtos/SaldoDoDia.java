@@ -0,0 +1,23 @@
+package com.simuladorbanco.BancoDigital.dtos;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.simuladorbanco.BancoDigital.model.Centavos;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoDoDia {
+
+    private LocalDate dia;
+
+    // Saldo no fim do dia, em centavos; no JSON sai em reais
+    @JsonSerialize(using = Centavos.Serializer.class)
+    @JsonDeserialize(using = Centavos.Deserializer.class)
+    private long saldo;
+}
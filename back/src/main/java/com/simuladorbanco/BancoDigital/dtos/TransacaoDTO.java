@@ -1,23 +1,45 @@
 package com.simuladorbanco.BancoDigital.dtos;
 
-import com.simuladorbanco.BancoDigital.model.Conta;
-import jakarta.persistence.Column;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.ManyToOne;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.simuladorbanco.BancoDigital.model.Centavos;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class TransacaoDTO {
 
+    // Só para montar o cursor do extrato; não vai para o JSON
+    @JsonIgnore
+    private Long id;
+
     private String tipo;
 
     private ContaDTO contaRemetente;
 
     private ContaDTO contaDestinatario;
 
-    private double valor;
+    // Em centavos; no JSON sai em reais
+    @JsonSerialize(using = Centavos.Serializer.class)
+    @JsonDeserialize(using = Centavos.Deserializer.class)
+    private long valor;
 
     private LocalDateTime data;
+
+    // Usado pelas consultas de projeção do TransacaoRepository (SELECT new ...): as contas chegam
+    // como colunas soltas e viram ContaDTO aqui, sem carregar a entidade Conta
+    public TransacaoDTO(Long id, String tipo, long valor, LocalDateTime data,
+                        Long numeroContaRemetente, String nomeContaRemetente,
+                        Long numeroContaDestinatario, String nomeContaDestinatario) {
+        this.id = id;
+        this.tipo = tipo;
+        this.valor = valor;
+        this.data = data;
+        this.contaRemetente = ContaDTO.de(numeroContaRemetente, nomeContaRemetente);
+        this.contaDestinatario = ContaDTO.de(numeroContaDestinatario, nomeContaDestinatario);
+    }
 }
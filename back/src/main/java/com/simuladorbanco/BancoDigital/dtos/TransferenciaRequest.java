@@ -1,23 +1,30 @@
 package com.simuladorbanco.BancoDigital.dtos;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.simuladorbanco.BancoDigital.model.Centavos;
+
 public class TransferenciaRequest {
-    private double valor;
+    // Em centavos; no JSON chega em reais (ex.: 150.75)
+    @JsonSerialize(using = Centavos.Serializer.class)
+    @JsonDeserialize(using = Centavos.Deserializer.class)
+    private long valor;
     private Long numeroContaDestinatario;
 
     // Construtores
     public TransferenciaRequest() {}
 
-    /*public TransferenciaRequest(double valor, Long numeroContaDestinatario) {
+    /*public TransferenciaRequest(long valor, Long numeroContaDestinatario) {
         this.valor = valor;
         this.numeroContaDestinatario = numeroContaDestinatario;
     }*/
 
     // Getters e setters
-    public double getValor() {
+    public long getValor() {
         return valor;
     }
 
-    public void setValor(double valor) {
+    public void setValor(long valor) {
         this.valor = valor;
     }
 
@@ -0,0 +1,16 @@
+package com.simuladorbanco.BancoDigital.exception;
+
+// Respondida com 429 e Retry-After
+public class MuitasRequisicoesException extends RuntimeException {
+
+    private final long segundosParaTentarDeNovo;
+
+    public MuitasRequisicoesException(String mensagem, long segundosParaTentarDeNovo) {
+        super(mensagem);
+        this.segundosParaTentarDeNovo = segundosParaTentarDeNovo;
+    }
+
+    public long getSegundosParaTentarDeNovo() {
+        return segundosParaTentarDeNovo;
+    }
+}
@@ -0,0 +1,64 @@
+package com.simuladorbanco.BancoDigital.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Dinheiro é guardado como long em centavos (R$ 10,50 -> 1050) nas entidades, DTOs e no banco.
+// Conversão para reais só acontece na borda da API: o JSON continua com valores decimais em reais.
+public final class Centavos {
+
+    private Centavos() {
+    }
+
+    // Aceita no máximo duas casas decimais: 10.505 é rejeitado em vez de arredondado
+    public static long deReais(BigDecimal reais) {
+        if (reais == null) {
+            throw new IllegalArgumentException("O valor é obrigatório.");
+        }
+        try {
+            return reais.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("O valor deve ter no máximo duas casas decimais.");
+        }
+    }
+
+    public static BigDecimal paraReais(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    // Soma e subtração estouram com ArithmeticException em vez de dar a volta no long
+    public static long somar(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtrair(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    // Usados com @JsonSerialize/@JsonDeserialize nos campos em centavos
+    public static class Serializer extends JsonSerializer<Long> {
+        @Override
+        public void serialize(Long centavos, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeNumber(paraReais(centavos));
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<Long> {
+        @Override
+        public Long deserialize(JsonParser parser, DeserializationContext ctxt) throws IOException {
+            try {
+                return deReais(parser.getDecimalValue());
+            } catch (IllegalArgumentException e) {
+                return (Long) ctxt.handleWeirdNumberValue(Long.class, parser.getNumberValue(), e.getMessage());
+            }
+        }
+    }
+}
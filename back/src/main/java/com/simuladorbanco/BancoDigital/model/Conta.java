@@ -1,5 +1,8 @@
 package com.simuladorbanco.BancoDigital.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
@@ -16,8 +19,11 @@ import java.util.stream.Collectors;
 @Data
 public class Conta {
 
+    // Sequence com otimizador pooled: cada nó reserva 50 números de uma vez (contíguos) e o
+    // INSERT não precisa voltar ao banco para saber o id, o que permite batch de INSERTs
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_conta")
+    @SequenceGenerator(name = "seq_conta", sequenceName = "seq_conta", allocationSize = 50)
     private Long numeroDaConta;
 
     @Column(nullable = false)
@@ -29,12 +35,29 @@ public class Conta {
     @Column(nullable = false)
     private String senha;
 
+    // Em centavos
     @Column(nullable = false)
-    private double saldo;
+    @JsonSerialize(using = Centavos.Serializer.class)
+    @JsonDeserialize(using = Centavos.Deserializer.class)
+    private long saldo;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "tab_user_roles", joinColumns = @JoinColumn(name = "user_id"))
-    @Column(name = "role_id")
-    private List<String> roles = new ArrayList<>();
+    // Controle de concorrência otimista: todo UPDATE confere e incrementa a versão
+    @Version
+    @JsonIgnore
+    private Long versao;
+
+    // Perfis de acesso como máscara de bits de Papel, na própria linha da conta: ler a conta
+    // não custa uma segunda consulta. Na API continuam aparecendo como a lista "roles".
+    @Column(nullable = false)
+    @JsonIgnore
+    private int papeis;
+
+    public List<String> getRoles() {
+        return Papel.nomes(papeis);
+    }
+
+    public void setRoles(List<String> roles) {
+        this.papeis = roles == null ? 0 : Papel.mascara(roles);
+    }
 }
 
@@ -0,0 +1,44 @@
+package com.simuladorbanco.BancoDigital.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Delta de saldo ou transação que o motor de contas já tinha confirmado e o banco recusou
+// (PersistenciaDoMotor). Fica aqui para acerto manual; os números de conta não são FK porque a
+// conta pode não existir mais.
+@Entity
+@Table(name = "tb_motor_rejeitado")
+@Data
+public class LancamentoRejeitado {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SALDO (delta de saldo) ou o tipo da transação
+    @Column(nullable = false)
+    private String tipo;
+
+    @Column(name = "conta_id")
+    private Long numeroDaConta;
+
+    @Column(name = "conta_remetente_id")
+    private Long numeroContaRemetente;
+
+    @Column(name = "conta_destinatario_id")
+    private Long numeroContaDestinatario;
+
+    // Em centavos
+    @Column(nullable = false)
+    private long valor;
+
+    private LocalDateTime data;
+
+    @Column(length = 1000)
+    private String erro;
+
+    @Column(name = "registrado_em", nullable = false)
+    private LocalDateTime registradoEm;
+}
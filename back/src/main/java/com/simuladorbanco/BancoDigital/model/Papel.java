@@ -0,0 +1,48 @@
+package com.simuladorbanco.BancoDigital.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+// Perfis de acesso da conta. Ficam em tb_conta.papeis como máscara de bits (bit = ordinal), então
+// um papel novo entra sempre no fim da lista: mudar a ordem troca o papel de quem já tem a máscara.
+public enum Papel {
+    USER,
+    ADMIN;
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    // Aceita o nome com ou sem o prefixo ROLE_ do Spring Security
+    public static Papel deNome(String nome) {
+        String semPrefixo = nome.trim().toUpperCase(Locale.ROOT);
+        if (semPrefixo.startsWith("ROLE_")) {
+            semPrefixo = semPrefixo.substring("ROLE_".length());
+        }
+        try {
+            return valueOf(semPrefixo);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Papel desconhecido: " + nome);
+        }
+    }
+
+    public static int mascara(Collection<String> nomes) {
+        int mascara = 0;
+        for (String nome : nomes) {
+            mascara |= deNome(nome).bit();
+        }
+        return mascara;
+    }
+
+    public static List<String> nomes(int mascara) {
+        List<String> nomes = new ArrayList<>();
+        for (Papel papel : values()) {
+            if ((mascara & papel.bit()) != 0) {
+                nomes.add(papel.name());
+            }
+        }
+        return nomes;
+    }
+}
@@ -0,0 +1,52 @@
+package com.simuladorbanco.BancoDigital.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Totais de um dia por conta e tipo de transação, mantidos a cada transação gravada
+// (ResumoService). O resumo mensal e a série de saldos do endpoint /resumo saem daqui sem ler
+// tb_transacao. Conta quente espalha os totais do dia em slots, como o saldo (SlotDeSaldo).
+@Entity
+@Table(name = "tb_resumo_diario")
+@IdClass(ResumoDiario.Chave.class)
+@Data
+public class ResumoDiario {
+
+    @Id
+    @Column(name = "conta_id")
+    private Long numeroDaConta;
+
+    @Id
+    private LocalDate dia;
+
+    @Id
+    private String tipo;
+
+    @Id
+    private int slot;
+
+    // Em centavos
+    @Column(nullable = false)
+    private long entradas;
+
+    @Column(nullable = false)
+    private long saidas;
+
+    @Column(nullable = false)
+    private long quantidade;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Chave implements Serializable {
+        private Long numeroDaConta;
+        private LocalDate dia;
+        private String tipo;
+        private int slot;
+    }
+}
@@ -0,0 +1,28 @@
+package com.simuladorbanco.BancoDigital.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Parte do saldo de uma conta com saldo distribuído (conta "quente"). O saldo real da conta é
+// tb_conta.saldo + a soma dos slots; os créditos caem em um slot aleatório para não disputarem
+// todos a mesma linha de tb_conta.
+@Entity
+@Table(name = "tb_conta_slot", uniqueConstraints = @UniqueConstraint(columnNames = {"conta_id", "slot"}))
+@Data
+public class SlotDeSaldo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_conta_slot")
+    @SequenceGenerator(name = "seq_conta_slot", sequenceName = "seq_conta_slot", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "conta_id", nullable = false)
+    private Long numeroDaConta;
+
+    @Column(nullable = false)
+    private int slot;
+
+    // Em centavos
+    @Column(nullable = false)
+    private long saldo;
+}
@@ -1,6 +1,8 @@
 package com.simuladorbanco.BancoDigital.model;
 
-import com.simuladorbanco.BancoDigital.dtos.ContaDTO;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.simuladorbanco.BancoDigital.dtos.TransacaoDTO;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -8,12 +10,29 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tb_transacao")
+@Table(name = "tb_transacao", indexes = {
+        // Usados pela paginação do extrato (TransacaoRepository.buscarPaginaDoExtrato). Em produção
+        // quem cria é a migration V3 (com INCLUDE); aqui servem para o esquema gerado nos testes
+        @Index(name = "idx_transacao_remetente_data", columnList = "conta_remetente_id, data DESC, id DESC"),
+        @Index(name = "idx_transacao_destinatario_data", columnList = "conta_destinatario_id, data DESC, id DESC")
+})
+// Projeção da página do extrato (TransacaoRepository.buscarPaginaDoExtrato) direto em TransacaoDTO
+@SqlResultSetMapping(name = "TransacaoDTO", classes = @ConstructorResult(targetClass = TransacaoDTO.class, columns = {
+        @ColumnResult(name = "id", type = Long.class),
+        @ColumnResult(name = "tipo", type = String.class),
+        @ColumnResult(name = "valor", type = Long.class),
+        @ColumnResult(name = "data", type = LocalDateTime.class),
+        @ColumnResult(name = "remetente_numero", type = Long.class),
+        @ColumnResult(name = "remetente_nome", type = String.class),
+        @ColumnResult(name = "destinatario_numero", type = Long.class),
+        @ColumnResult(name = "destinatario_nome", type = String.class)
+}))
 @Data
 public class Transacao {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_transacao")
+    @SequenceGenerator(name = "seq_transacao", sequenceName = "seq_transacao", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -27,8 +46,11 @@ public class Transacao {
     @JoinColumn(name = "conta_destinatario_id")
     private Conta contaDestinatario;
 
+    // Em centavos
     @Column(nullable = false)
-    private double valor;
+    @JsonSerialize(using = Centavos.Serializer.class)
+    @JsonDeserialize(using = Centavos.Deserializer.class)
+    private long valor;
 
     @Column(nullable = false)
     private LocalDateTime data;
@@ -0,0 +1,131 @@
+package com.simuladorbanco.BancoDigital.motor;
+
+import com.simuladorbanco.BancoDigital.model.Conta;
+import com.simuladorbanco.BancoDigital.model.Transacao;
+import com.simuladorbanco.BancoDigital.repository.ContaRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Modo opcional (banco.motor.habilitado=true): as contas são divididas por numeroDaConta entre
+// N partições, cada uma com uma única thread dona dos saldos em memória. Saque, depósito e
+// transferência viram comandos na fila da partição, sem lock e sem ler a conta do banco a cada
+// operação. O banco é atualizado depois, em lotes, pela PersistenciaDoMotor.
+//
+// Atenção: a operação é confirmada antes de chegar ao banco. Se o processo cair, o que ainda
+// estava na fila de persistência (alguns milissegundos) é perdido, e o extrato pode aparecer
+// com esse mesmo atraso.
+@Component
+@ConditionalOnProperty(prefix = "banco.motor", name = "habilitado", havingValue = "true")
+public class MotorDeContas {
+
+    private final ParticaoDoMotor[] particoes;
+    private final PersistenciaDoMotor persistencia;
+
+    public MotorDeContas(ContaRepository contaRepository, PersistenciaDoMotor persistencia,
+                         @Value("${banco.motor.particoes:4}") int quantidadeDeParticoes,
+                         @Value("${banco.motor.capacidade-fila:65536}") int capacidadeFila) {
+        this.persistencia = persistencia;
+        this.particoes = new ParticaoDoMotor[quantidadeDeParticoes];
+        for (int i = 0; i < quantidadeDeParticoes; i++) {
+            particoes[i] = new ParticaoDoMotor(i, capacidadeFila, contaRepository, persistencia);
+            particoes[i].iniciar();
+        }
+    }
+
+    public Transacao sacar(Long numeroDaConta, String usuarioLogado, long valor) {
+        Conta conta = aguardar(particao(numeroDaConta).enviar(p -> p.debitar(numeroDaConta, usuarioLogado, valor,
+                "Operação negada: Você não tem permissão para sacar nessa conta.")));
+        return registrar("SAQUE", conta, null, valor);
+    }
+
+    public Transacao depositar(Long numeroDaConta, String usuarioLogado, long valor) {
+        Conta conta = aguardar(particao(numeroDaConta).enviar(p -> p.creditarDoDono(numeroDaConta, usuarioLogado,
+                valor, "Operação negada: Você não tem permissão para depositar nessa conta.")));
+        return registrar("DEPOSITO", null, conta, valor);
+    }
+
+    public Transacao transferir(Long numeroContaRemetente, String usuarioLogado, Long numeroContaDestinatario,
+                                long valor) {
+        String mensagemAcessoNegado = "Operação negada: Você não tem permissão para realizar transações nessa conta.";
+        ParticaoDoMotor particaoRemetente = particao(numeroContaRemetente);
+        ParticaoDoMotor particaoDestinatario = particao(numeroContaDestinatario);
+        if (particaoRemetente == particaoDestinatario) {
+            Conta[] contas = aguardar(particaoRemetente.enviar(p -> p.transferir(numeroContaRemetente,
+                    usuarioLogado, numeroContaDestinatario, valor, mensagemAcessoNegado)));
+            return registrar("TRANSFERENCIA", contas[0], contas[1], valor);
+        }
+        // Partições diferentes: debita primeiro e só então credita. Se o crédito falhar
+        // (conta de destino inexistente), o valor é devolvido ao remetente.
+        Conta remetente = aguardar(particaoRemetente.enviar(p -> p.debitar(numeroContaRemetente, usuarioLogado,
+                valor, mensagemAcessoNegado)));
+        Conta destinatario;
+        try {
+            destinatario = aguardar(particaoDestinatario.enviar(p -> p.creditar(numeroContaDestinatario, valor)));
+        } catch (RuntimeException e) {
+            aguardar(particaoRemetente.enviarSemDescartar(p -> p.creditar(numeroContaRemetente, valor)));
+            throw e;
+        }
+        return registrar("TRANSFERENCIA", remetente, destinatario, valor);
+    }
+
+    // Chamado por quem altera o e-mail ou remove a conta, dentro da transação dessa alteração.
+    // Marca já e de novo depois do commit: uma operação entre as duas marcações relê o dado antigo
+    public void descartarDadosAposCommit(Long numeroDaConta) {
+        descartarDados(numeroDaConta);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    descartarDados(numeroDaConta);
+                }
+            });
+        }
+    }
+
+    private void descartarDados(Long numeroDaConta) {
+        aguardar(particao(numeroDaConta).enviarSemDescartar(p -> p.descartarDados(numeroDaConta)));
+    }
+
+    private Transacao registrar(String tipo, Conta remetente, Conta destinatario, long valor) {
+        Transacao transacao = new Transacao();
+        transacao.setTipo(tipo);
+        transacao.setContaRemetente(remetente);
+        transacao.setContaDestinatario(destinatario);
+        transacao.setValor(valor);
+        transacao.setData(LocalDateTime.now());
+        persistencia.registrarTransacao(transacao);
+        return transacao;
+    }
+
+    private ParticaoDoMotor particao(Long numeroDaConta) {
+        return particoes[(int) Math.floorMod(numeroDaConta, (long) particoes.length)];
+    }
+
+    // Devolve a exceção original (SaldoInsuficienteException, AccessDeniedException...) para o
+    // ControllerAdvice tratar igual ao modo sem motor
+    private <T> T aguardar(CompletableFuture<T> resultado) {
+        try {
+            return resultado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    void desligar() throws InterruptedException {
+        for (ParticaoDoMotor particao : particoes) {
+            particao.parar();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.simuladorbanco.BancoDigital.motor;
+
+import com.simuladorbanco.BancoDigital.exception.SaldoInsuficienteException;
+import com.simuladorbanco.BancoDigital.model.Centavos;
+import com.simuladorbanco.BancoDigital.model.Conta;
+import com.simuladorbanco.BancoDigital.repository.ContaRepository;
+import com.simuladorbanco.BancoDigital.repository.ContaRepository.DadosDaConta;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+// Uma thread dona de um pedaço das contas. Só ela lê e altera os saldos do mapa abaixo,
+// então nenhuma operação precisa de lock: os comandos chegam pela fila e rodam um de cada vez.
+class ParticaoDoMotor implements Runnable {
+
+    private static class EstadoConta {
+        final Long numeroDaConta;
+        String email;
+        String nome;
+        long saldo;
+        // E-mail ou nome mudaram no banco (ou a conta foi removida) depois da leitura
+        boolean dadosDesatualizados;
+
+        EstadoConta(Conta conta, long saldo) {
+            this.numeroDaConta = conta.getNumeroDaConta();
+            this.email = conta.getEmail();
+            this.nome = conta.getNome();
+            this.saldo = saldo;
+        }
+    }
+
+    private final BlockingQueue<Runnable> fila;
+    private final Map<Long, EstadoConta> contas = new HashMap<>();
+    private final ContaRepository contaRepository;
+    private final PersistenciaDoMotor persistencia;
+    private final Thread thread;
+    private volatile boolean ativa = true;
+
+    ParticaoDoMotor(int indice, int capacidadeFila, ContaRepository contaRepository,
+                    PersistenciaDoMotor persistencia) {
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        this.contaRepository = contaRepository;
+        this.persistencia = persistencia;
+        this.thread = new Thread(this, "motor-particao-" + indice);
+        this.thread.setDaemon(true);
+    }
+
+    void iniciar() {
+        thread.start();
+    }
+
+    void parar() throws InterruptedException {
+        ativa = false;
+        thread.interrupt();
+        thread.join();
+    }
+
+    // Chamado pelas threads das requisições. Fila cheia vira erro imediato em vez de
+    // deixar a requisição esperando sem limite.
+    <T> CompletableFuture<T> enviar(Function<ParticaoDoMotor, T> operacao) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        if (!ativa || !fila.offer(comando(operacao, resultado))) {
+            throw new RuntimeException("Motor de contas sobrecarregado, tente novamente.");
+        }
+        return resultado;
+    }
+
+    // Para estornos: o valor já saiu de uma conta e não pode ser descartado com a fila cheia
+    <T> CompletableFuture<T> enviarSemDescartar(Function<ParticaoDoMotor, T> operacao) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        try {
+            fila.put(comando(operacao, resultado));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrompido ao estornar operação no motor de contas.");
+        }
+        return resultado;
+    }
+
+    private <T> Runnable comando(Function<ParticaoDoMotor, T> operacao, CompletableFuture<T> resultado) {
+        return () -> {
+            try {
+                resultado.complete(operacao.apply(this));
+            } catch (RuntimeException e) {
+                resultado.completeExceptionally(e);
+            }
+        };
+    }
+
+    @Override
+    public void run() {
+        while (ativa) {
+            try {
+                fila.take().run();
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        // Termina o que já foi aceito antes de desligar
+        List<Runnable> restantes = new ArrayList<>();
+        fila.drainTo(restantes);
+        restantes.forEach(Runnable::run);
+    }
+
+    // ===== Operações: só rodam dentro da thread da partição =====
+
+    Conta debitar(Long numeroDaConta, String usuarioLogado, long valor, String mensagemAcessoNegado) {
+        EstadoConta conta = buscarDoUsuario(numeroDaConta, usuarioLogado, mensagemAcessoNegado);
+        if (conta.saldo < valor) {
+            throw new SaldoInsuficienteException();
+        }
+        // Registra antes de alterar: se a fila de persistência recusar, a memória fica como estava
+        persistencia.registrarDelta(numeroDaConta, -valor);
+        conta.saldo = Centavos.subtrair(conta.saldo, valor);
+        return resumo(conta);
+    }
+
+    Conta creditarDoDono(Long numeroDaConta, String usuarioLogado, long valor, String mensagemAcessoNegado) {
+        EstadoConta conta = buscarDoUsuario(numeroDaConta, usuarioLogado, mensagemAcessoNegado);
+        long saldo = Centavos.somar(conta.saldo, valor);
+        persistencia.registrarDelta(numeroDaConta, valor);
+        conta.saldo = saldo;
+        return resumo(conta);
+    }
+
+    Conta creditar(Long numeroDaConta, long valor) {
+        EstadoConta conta = buscar(numeroDaConta);
+        long saldo = Centavos.somar(conta.saldo, valor);
+        persistencia.registrarDelta(numeroDaConta, valor);
+        conta.saldo = saldo;
+        return resumo(conta);
+    }
+
+    // Remetente e destinatário na mesma partição: as duas pernas acontecem no mesmo comando
+    Conta[] transferir(Long numeroContaRemetente, String usuarioLogado, Long numeroContaDestinatario,
+                       long valor, String mensagemAcessoNegado) {
+        buscar(numeroContaDestinatario);
+        Conta remetente = debitar(numeroContaRemetente, usuarioLogado, valor, mensagemAcessoNegado);
+        Conta destinatario = creditar(numeroContaDestinatario, valor);
+        return new Conta[]{remetente, destinatario};
+    }
+
+    // A conta mudou de dono ou foi removida fora do motor: a próxima operação relê os dados dela.
+    // O saldo em memória fica, porque pode haver delta dela ainda não gravado
+    Void descartarDados(Long numeroDaConta) {
+        EstadoConta conta = contas.get(numeroDaConta);
+        if (conta != null) {
+            conta.dadosDesatualizados = true;
+        }
+        return null;
+    }
+
+    private EstadoConta buscarDoUsuario(Long numeroDaConta, String usuarioLogado, String mensagemAcessoNegado) {
+        EstadoConta conta = buscar(numeroDaConta);
+        if (!conta.email.equals(usuarioLogado)) {
+            throw new AccessDeniedException(mensagemAcessoNegado);
+        }
+        return conta;
+    }
+
+    // A conta é lida do banco só no primeiro uso; dali em diante o saldo em memória é o oficial.
+    // Como só esta partição altera a conta, não há delta pendente dela antes dessa leitura.
+    // Conta quente: o saldo inclui os slots, que a consolidação move para tb_conta sem mudar o total.
+    private EstadoConta buscar(Long numeroDaConta) {
+        EstadoConta conta = contas.get(numeroDaConta);
+        if (conta == null) {
+            Conta lida = contaRepository.findById(numeroDaConta)
+                    .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
+            conta = new EstadoConta(lida, contaRepository.buscarSaldoTotal(numeroDaConta).orElse(lida.getSaldo()));
+            contas.put(numeroDaConta, conta);
+        } else if (conta.dadosDesatualizados) {
+            DadosDaConta dados = contaRepository.buscarDados(List.of(numeroDaConta)).stream().findFirst()
+                    .orElse(null);
+            if (dados == null) {
+                contas.remove(numeroDaConta);
+                throw new RuntimeException("Conta não encontrada");
+            }
+            conta.email = dados.getEmail();
+            conta.nome = dados.getNome();
+            conta.dadosDesatualizados = false;
+        }
+        return conta;
+    }
+
+    // Só número e nome: é o que os DTOs de transação usam
+    private Conta resumo(EstadoConta estado) {
+        Conta conta = new Conta();
+        conta.setNumeroDaConta(estado.numeroDaConta);
+        conta.setNome(estado.nome);
+        return conta;
+    }
+}
@@ -0,0 +1,220 @@
+package com.simuladorbanco.BancoDigital.motor;
+
+import com.simuladorbanco.BancoDigital.dtos.TransacaoDTO;
+import com.simuladorbanco.BancoDigital.model.Conta;
+import com.simuladorbanco.BancoDigital.model.LancamentoRejeitado;
+import com.simuladorbanco.BancoDigital.model.Transacao;
+import com.simuladorbanco.BancoDigital.repository.ContaRepository;
+import com.simuladorbanco.BancoDigital.repository.LancamentoRejeitadoRepository;
+import com.simuladorbanco.BancoDigital.repository.TransacaoRepository;
+import com.simuladorbanco.BancoDigital.service.CacheDoExtrato;
+import com.simuladorbanco.BancoDigital.service.ResumoService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Grava no banco, em lotes e fora da thread das partições, o que o motor já aplicou em memória:
+// os deltas de saldo (somados por conta) e as linhas de tb_transacao.
+@Component
+@ConditionalOnProperty(prefix = "banco.motor", name = "habilitado", havingValue = "true")
+public class PersistenciaDoMotor {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistenciaDoMotor.class);
+
+    private record Delta(Long numeroDaConta, long valor) {
+    }
+
+    private final LinkedBlockingQueue<Object> pendentes;
+    // Lote que não pôde ser gravado nem rejeitado (banco fora do ar). Só a thread de persistência mexe
+    private final List<Object> retidos = new ArrayList<>();
+    private final ContaRepository contaRepository;
+    private final TransacaoRepository transacaoRepository;
+    private final LancamentoRejeitadoRepository rejeitadoRepository;
+    private final CacheDoExtrato cacheDoExtrato;
+    private final ResumoService resumoService;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanhoDoLote;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "motor-persistencia");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PersistenciaDoMotor(ContaRepository contaRepository, TransacaoRepository transacaoRepository,
+                               LancamentoRejeitadoRepository rejeitadoRepository,
+                               CacheDoExtrato cacheDoExtrato, ResumoService resumoService,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${banco.motor.tamanho-lote:500}") int tamanhoDoLote,
+                               @Value("${banco.motor.capacidade-persistencia:262144}") int capacidade,
+                               @Value("${banco.motor.intervalo-persistencia-ms:20}") long intervaloMs) {
+        this.pendentes = new LinkedBlockingQueue<>(capacidade);
+        this.contaRepository = contaRepository;
+        this.transacaoRepository = transacaoRepository;
+        this.rejeitadoRepository = rejeitadoRepository;
+        this.cacheDoExtrato = cacheDoExtrato;
+        this.resumoService = resumoService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanhoDoLote = tamanhoDoLote;
+        executor.scheduleWithFixedDelay(this::persistirPendentes, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Chamado pela partição antes de alterar o saldo em memória
+    void registrarDelta(Long numeroDaConta, long valor) {
+        enfileirar(new Delta(numeroDaConta, valor));
+    }
+
+    void registrarTransacao(Transacao transacao) {
+        enfileirar(transacao);
+    }
+
+    // Fila cheia (banco lento ou fora do ar): quem registra espera. A partição para de consumir
+    // comandos, a fila dela enche e o motor passa a recusar operações novas, sem perder as aceitas
+    private void enfileirar(Object item) {
+        try {
+            pendentes.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrompido ao registrar operação no motor de contas.");
+        }
+    }
+
+    int quantidadePendente() {
+        return pendentes.size() + retidos.size();
+    }
+
+    // Esvazia a fila lote a lote. Lote que falha é refeito item a item, cada um na sua transação:
+    // o item que falha sozinho (crédito numa conta encerrada, por exemplo) vai para
+    // tb_motor_rejeitado e não trava os outros. Se nem a rejeição grava, o banco está fora: o que
+    // sobrou do lote fica retido e é tentado de novo no próximo ciclo, na mesma ordem.
+    void persistirPendentes() {
+        while (!retidos.isEmpty() || pendentes.drainTo(retidos, tamanhoDoLote) > 0) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> gravar(retidos));
+                retidos.clear();
+            } catch (RuntimeException e) {
+                log.warn("Falha ao persistir lote do motor de contas ({} itens), gravando item a item",
+                        retidos.size(), e);
+                if (!gravarItemAItem()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Devolve false se parou no meio, com os itens restantes ainda em retidos
+    private boolean gravarItemAItem() {
+        Iterator<Object> itens = retidos.iterator();
+        while (itens.hasNext()) {
+            Object item = itens.next();
+            try {
+                transactionTemplate.executeWithoutResult(status -> gravar(List.of(item)));
+            } catch (RuntimeException e) {
+                try {
+                    rejeitar(item, e);
+                } catch (RuntimeException falha) {
+                    log.error("Banco indisponível para o motor de contas, {} itens retidos", retidos.size(), falha);
+                    return false;
+                }
+            }
+            itens.remove();
+        }
+        return true;
+    }
+
+    private void rejeitar(Object item, RuntimeException erro) {
+        LancamentoRejeitado rejeitado = new LancamentoRejeitado();
+        if (item instanceof Delta delta) {
+            rejeitado.setTipo("SALDO");
+            rejeitado.setNumeroDaConta(delta.numeroDaConta());
+            rejeitado.setValor(delta.valor());
+        } else {
+            Transacao transacao = (Transacao) item;
+            rejeitado.setTipo(transacao.getTipo());
+            rejeitado.setNumeroContaRemetente(numero(transacao.getContaRemetente()));
+            rejeitado.setNumeroContaDestinatario(numero(transacao.getContaDestinatario()));
+            rejeitado.setValor(transacao.getValor());
+            rejeitado.setData(transacao.getData());
+        }
+        String mensagem = String.valueOf(NestedExceptionUtils.getMostSpecificCause(erro).getMessage());
+        rejeitado.setErro(mensagem.length() > 1000 ? mensagem.substring(0, 1000) : mensagem);
+        rejeitado.setRegistradoEm(LocalDateTime.now());
+        rejeitadoRepository.save(rejeitado);
+        log.error("Item do motor de contas recusado pelo banco, guardado em tb_motor_rejeitado: {}", rejeitado, erro);
+    }
+
+    private void gravar(List<Object> lote) {
+        Map<Long, Long> deltas = new HashMap<>();
+        List<Transacao> transacoes = new ArrayList<>();
+        for (Object item : lote) {
+            if (item instanceof Delta delta) {
+                deltas.merge(delta.numeroDaConta(), delta.valor(), Long::sum);
+            } else {
+                transacoes.add((Transacao) item);
+            }
+        }
+        // Um UPDATE por conta no lote, não por operação
+        deltas.forEach((numeroDaConta, valor) -> {
+            if (valor != 0 && contaRepository.creditar(numeroDaConta, valor) == 0) {
+                throw new RuntimeException("Conta não encontrada");
+            }
+        });
+        // O motor não usa slots, e o lote já vira um comando por linha do resumo
+        resumoService.registrar(transacoes, Set.of());
+        // As contas nas transações são só resumos (número e nome) montados pelo motor; o DTO para o
+        // cache do extrato sai deles, sem ler as contas. O INSERT vai numa cópia com referências:
+        // se o lote falhar, o item da fila volta intacto (sem id nem proxy de uma sessão já fechada)
+        List<TransacaoDTO> transacoesDTO = new ArrayList<>(transacoes.size());
+        List<Transacao> copias = new ArrayList<>(transacoes.size());
+        for (Transacao transacao : transacoes) {
+            transacoesDTO.add(CacheDoExtrato.paraDTO(transacao));
+            Transacao copia = new Transacao();
+            copia.setTipo(transacao.getTipo());
+            copia.setValor(transacao.getValor());
+            copia.setData(transacao.getData());
+            copia.setContaRemetente(referencia(transacao.getContaRemetente()));
+            copia.setContaDestinatario(referencia(transacao.getContaDestinatario()));
+            copias.add(copia);
+        }
+        transacaoRepository.saveAll(copias);
+        for (int i = 0; i < copias.size(); i++) {
+            transacoesDTO.get(i).setId(copias.get(i).getId());
+            cacheDoExtrato.registrarAposCommit(transacoesDTO.get(i));
+        }
+    }
+
+    private Conta referencia(Conta resumo) {
+        return resumo == null ? null : contaRepository.getReferenceById(resumo.getNumeroDaConta());
+    }
+
+    private static Long numero(Conta resumo) {
+        return resumo == null ? null : resumo.getNumeroDaConta();
+    }
+
+    @PreDestroy
+    void desligar() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        persistirPendentes();
+        if (quantidadePendente() > 0) {
+            log.error("Motor de contas desligado com {} itens sem gravar", quantidadePendente());
+        }
+    }
+}
@@ -1,22 +1,102 @@
 package com.simuladorbanco.BancoDigital.repository;
 
+import com.simuladorbanco.BancoDigital.dtos.ContaListadaDTO;
 import com.simuladorbanco.BancoDigital.model.Conta;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.security.authentication.jaas.JaasPasswordCallbackHandler;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ContaRepository extends JpaRepository<Conta, Long> {
-    @Query("SELECT c FROM Conta c JOIN FETCH c.roles WHERE c.email= (:email)")
+
+    interface DadosDaConta {
+        Long getNumeroDaConta();
+        String getNome();
+        String getEmail();
+    }
+
+    // SELECT ... FOR UPDATE: enquanto a trava dura nenhuma transação nova referencia a conta
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Conta c WHERE c.numeroDaConta = :numeroDaConta")
+    Optional<Conta> travar(@Param("numeroDaConta") Long numeroDaConta);
+
+    @Query("SELECT c FROM Conta c WHERE c.email= (:email)")
     Conta findByEmail(@Param("email") String email);
     boolean existsBySenha(String senha);
     boolean existsByEmail(String email);
+
+    // Só número, nome e e-mail, sem carregar as entidades Conta (nem o saldo)
+    @Query("SELECT c.numeroDaConta AS numeroDaConta, c.nome AS nome, c.email AS email " +
+            "FROM Conta c WHERE c.numeroDaConta IN :numeros")
+    List<DadosDaConta> buscarDados(@Param("numeros") Collection<Long> numeros);
     @Query("SELECT c FROM Conta c WHERE c.senha = :senha")
     Conta findBySenha(@Param("senha") String senha);
+
+    // Movimentações de saldo feitas direto no banco, sem ler a conta antes (sem read-modify-write).
+    // O número de linhas alteradas diz se a condição do WHERE foi atendida.
+    // VERSIONED incrementa a @Version, então quem leu a conta antes (modo OTIMISTA,
+    // atualizarConta) percebe que ela mudou.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE VERSIONED Conta c SET c.saldo = c.saldo - :valor " +
+            "WHERE c.numeroDaConta = :numeroDaConta AND c.email = :email AND c.saldo >= :valor")
+    int debitar(@Param("numeroDaConta") Long numeroDaConta, @Param("email") String email,
+                @Param("valor") long valor);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE VERSIONED Conta c SET c.saldo = c.saldo + :valor WHERE c.numeroDaConta = :numeroDaConta AND c.email = :email")
+    int creditarDoDono(@Param("numeroDaConta") Long numeroDaConta, @Param("email") String email,
+                       @Param("valor") long valor);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE VERSIONED Conta c SET c.saldo = c.saldo + :valor WHERE c.numeroDaConta = :numeroDaConta")
+    int creditar(@Param("numeroDaConta") Long numeroDaConta, @Param("valor") long valor);
+
+    // Crédito de transferência: conta quente (com slots) fica de fora e devolve 0, como a inexistente.
+    // A conferência dos slots vai no próprio UPDATE, sem uma consulta a mais por crédito.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE VERSIONED Conta c SET c.saldo = c.saldo + :valor WHERE c.numeroDaConta = :numeroDaConta " +
+            "AND NOT EXISTS (SELECT 1 FROM SlotDeSaldo s WHERE s.numeroDaConta = c.numeroDaConta)")
+    int creditarContaComum(@Param("numeroDaConta") Long numeroDaConta, @Param("valor") long valor);
+
+    // Saldo da conta mais o dos slots (conta quente) numa consulta só, para não contar duas vezes
+    // o que a consolidação mover de um para o outro entre duas leituras
+    @Query("SELECT c.saldo + COALESCE((SELECT SUM(s.saldo) FROM SlotDeSaldo s " +
+            "WHERE s.numeroDaConta = c.numeroDaConta), 0) FROM Conta c WHERE c.numeroDaConta = :numeroDaConta")
+    Optional<Long> buscarSaldoTotal(@Param("numeroDaConta") Long numeroDaConta);
+
+    // Listagem da administração por keyset (numeroDaConta > :depoisDe), com filtros opcionais por
+    // trecho do nome e do e-mail (padrões LIKE já em minúsculas). O saldo soma os slots da conta quente.
+    String LISTAGEM = "SELECT new com.simuladorbanco.BancoDigital.dtos.ContaListadaDTO(c.numeroDaConta, c.nome, " +
+            "c.email, c.saldo + COALESCE((SELECT SUM(s.saldo) FROM SlotDeSaldo s " +
+            "WHERE s.numeroDaConta = c.numeroDaConta), 0)) FROM Conta c " +
+            "WHERE c.numeroDaConta > :depoisDe " +
+            "AND (:nome IS NULL OR LOWER(c.nome) LIKE :nome ESCAPE '\\') " +
+            "AND (:email IS NULL OR LOWER(c.email) LIKE :email ESCAPE '\\') " +
+            "ORDER BY c.numeroDaConta";
+
+    @Query(LISTAGEM)
+    List<ContaListadaDTO> listarPagina(@Param("depoisDe") Long depoisDe, @Param("nome") String nome,
+                                       @Param("email") String email, Limit limite);
+
+    // Mesma consulta para a exportação, lida como Stream com fetch size. Precisa de transação aberta.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(LISTAGEM)
+    Stream<ContaListadaDTO> exportar(@Param("depoisDe") Long depoisDe, @Param("nome") String nome,
+                                     @Param("email") String email);
 }
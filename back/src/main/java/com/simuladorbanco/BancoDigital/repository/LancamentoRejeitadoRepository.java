@@ -0,0 +1,9 @@
+package com.simuladorbanco.BancoDigital.repository;
+
+import com.simuladorbanco.BancoDigital.model.LancamentoRejeitado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LancamentoRejeitadoRepository extends JpaRepository<LancamentoRejeitado, Long> {
+}
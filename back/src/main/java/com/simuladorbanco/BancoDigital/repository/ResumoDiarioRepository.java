@@ -0,0 +1,53 @@
+package com.simuladorbanco.BancoDigital.repository;
+
+import com.simuladorbanco.BancoDigital.model.ResumoDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ResumoDiarioRepository extends JpaRepository<ResumoDiario, ResumoDiario.Chave> {
+
+    // Totais de um dia já somando os slots
+    interface MovimentoDoDia {
+        LocalDate getDia();
+        String getTipo();
+        long getEntradas();
+        long getSaidas();
+        long getQuantidade();
+    }
+
+    // Um único comando: cria a linha do dia ou soma na existente (ON CONFLICT no PostgreSQL,
+    // MERGE nos bancos que não têm). Sem leitura prévia, então duas transações simultâneas não
+    // perdem valores.
+    @Modifying
+    @Query("INSERT INTO ResumoDiario (numeroDaConta, dia, tipo, slot, entradas, saidas, quantidade) " +
+            "VALUES (:numeroDaConta, :dia, :tipo, :slot, :entradas, :saidas, :quantidade) " +
+            "ON CONFLICT (numeroDaConta, dia, tipo, slot) DO UPDATE SET " +
+            "entradas = entradas + excluded.entradas, saidas = saidas + excluded.saidas, " +
+            "quantidade = quantidade + excluded.quantidade")
+    int acumular(@Param("numeroDaConta") Long numeroDaConta, @Param("dia") LocalDate dia,
+                 @Param("tipo") String tipo, @Param("slot") int slot, @Param("entradas") long entradas,
+                 @Param("saidas") long saidas, @Param("quantidade") long quantidade);
+
+    @Query("SELECT r.dia AS dia, r.tipo AS tipo, SUM(r.entradas) AS entradas, SUM(r.saidas) AS saidas, " +
+            "SUM(r.quantidade) AS quantidade FROM ResumoDiario r " +
+            "WHERE r.numeroDaConta = :numeroDaConta AND r.dia BETWEEN :de AND :ate " +
+            "GROUP BY r.dia, r.tipo ORDER BY r.dia, r.tipo")
+    List<MovimentoDoDia> buscarMovimentos(@Param("numeroDaConta") Long numeroDaConta,
+                                          @Param("de") LocalDate de, @Param("ate") LocalDate ate);
+
+    // Entradas menos saídas depois de um dia: volta do saldo atual para o saldo daquele dia
+    @Query("SELECT COALESCE(SUM(r.entradas - r.saidas), 0) FROM ResumoDiario r " +
+            "WHERE r.numeroDaConta = :numeroDaConta AND r.dia > :dia")
+    long somarLiquidoDepoisDe(@Param("numeroDaConta") Long numeroDaConta, @Param("dia") LocalDate dia);
+
+    @Modifying
+    @Query("DELETE FROM ResumoDiario r WHERE r.numeroDaConta = :numeroDaConta")
+    void removerDaConta(@Param("numeroDaConta") Long numeroDaConta);
+}
@@ -0,0 +1,36 @@
+package com.simuladorbanco.BancoDigital.repository;
+
+import com.simuladorbanco.BancoDigital.model.SlotDeSaldo;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SlotDeSaldoRepository extends JpaRepository<SlotDeSaldo, Long> {
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE SlotDeSaldo s SET s.saldo = s.saldo + :valor WHERE s.numeroDaConta = :numeroDaConta AND s.slot = :slot")
+    int creditar(@Param("numeroDaConta") Long numeroDaConta, @Param("slot") int slot, @Param("valor") long valor);
+
+    @Query("SELECT COALESCE(SUM(s.saldo), 0) FROM SlotDeSaldo s WHERE s.numeroDaConta = :numeroDaConta")
+    long somarSaldo(@Param("numeroDaConta") Long numeroDaConta);
+
+    // Trava os slots da conta enquanto eles são somados e zerados
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<SlotDeSaldo> findByNumeroDaContaOrderBySlot(Long numeroDaConta);
+
+    boolean existsByNumeroDaConta(Long numeroDaConta);
+
+    @Query("SELECT DISTINCT s.numeroDaConta FROM SlotDeSaldo s")
+    List<Long> findNumerosDasContas();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM SlotDeSaldo s WHERE s.numeroDaConta = :numeroDaConta")
+    void removerSlots(@Param("numeroDaConta") Long numeroDaConta);
+}
@@ -1,18 +1,74 @@
 package com.simuladorbanco.BancoDigital.repository;
 
-import com.simuladorbanco.BancoDigital.model.Conta;
+import com.simuladorbanco.BancoDigital.dtos.TransacaoDTO;
 import com.simuladorbanco.BancoDigital.model.Transacao;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.NativeQuery;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransacaoRepository extends JpaRepository<Transacao, Long> {
-    List<Transacao> findByContaRemetente(Conta contaRemetente);
-    List<Transacao> findByContaDestinatario(Conta contaDestinatario);
-    List<Transacao> findByContaRemetenteAndTipo(Conta contaRemetente, String tipo);
-    List<Transacao> findByContaDestinatarioAndTipo(Conta contaDestinatario, String tipo);
-}
\ No newline at end of file
+    // Encerramento de conta (EncerramentoDeContas): a conta sai das transações em lotes, sem
+    // carregar as entidades. Cada subconsulta percorre o índice da conta e para em :lote linhas.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @NativeQuery("UPDATE tb_transacao SET conta_remetente_id = :destino WHERE id IN (" +
+            "SELECT id FROM tb_transacao WHERE conta_remetente_id = :conta LIMIT :lote)")
+    int reassociarRemetente(@Param("conta") Long conta, @Param("destino") Long destino, @Param("lote") int lote);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @NativeQuery("UPDATE tb_transacao SET conta_destinatario_id = :destino WHERE id IN (" +
+            "SELECT id FROM tb_transacao WHERE conta_destinatario_id = :conta LIMIT :lote)")
+    int reassociarDestinatario(@Param("conta") Long conta, @Param("destino") Long destino, @Param("lote") int lote);
+
+    @NativeQuery("SELECT (SELECT COUNT(*) FROM tb_transacao WHERE conta_remetente_id = :numeroDaConta) + " +
+            "(SELECT COUNT(*) FROM tb_transacao WHERE conta_destinatario_id = :numeroDaConta)")
+    long contarDaConta(@Param("numeroDaConta") Long numeroDaConta);
+
+    // Uma página do extrato, da mais recente para a mais antiga, começando depois do cursor (data, id).
+    // Cada lado do UNION ALL percorre o próprio índice (conta, data, id) e para em :limite linhas,
+    // então o custo não depende de quantas transações a conta já teve. Os nomes das contas vêm
+    // do join só para as linhas da página, sem carregar as entidades Conta.
+    // O "t.data <= :data" repete o cursor numa forma que o PostgreSQL usa para descartar as
+    // partições mais novas (tb_transacao particionada); a comparação de linha sozinha não serve.
+    @NativeQuery(value = "SELECT x.id, x.tipo, x.valor, x.data, " +
+            "r.numero_da_conta AS remetente_numero, r.nome AS remetente_nome, " +
+            "d.numero_da_conta AS destinatario_numero, d.nome AS destinatario_nome FROM (" +
+            "(SELECT t.id, t.tipo, t.valor, t.data, t.conta_remetente_id, t.conta_destinatario_id " +
+            "FROM tb_transacao t WHERE t.conta_remetente_id = :numeroDaConta " +
+            "AND t.data <= :data AND (t.data, t.id) < (:data, :id) ORDER BY t.data DESC, t.id DESC FETCH FIRST :limite ROWS ONLY) " +
+            "UNION ALL " +
+            "(SELECT t.id, t.tipo, t.valor, t.data, t.conta_remetente_id, t.conta_destinatario_id " +
+            "FROM tb_transacao t WHERE t.conta_destinatario_id = :numeroDaConta " +
+            "AND (t.conta_remetente_id IS NULL OR t.conta_remetente_id <> :numeroDaConta) " +
+            "AND t.data <= :data AND (t.data, t.id) < (:data, :id) ORDER BY t.data DESC, t.id DESC FETCH FIRST :limite ROWS ONLY)" +
+            ") x " +
+            "LEFT JOIN tb_conta r ON r.numero_da_conta = x.conta_remetente_id " +
+            "LEFT JOIN tb_conta d ON d.numero_da_conta = x.conta_destinatario_id " +
+            "ORDER BY x.data DESC, x.id DESC FETCH FIRST :limite ROWS ONLY",
+            sqlResultSetMapping = "TransacaoDTO")
+    List<TransacaoDTO> buscarPaginaDoExtrato(@Param("numeroDaConta") Long numeroDaConta,
+                                             @Param("data") LocalDateTime data,
+                                             @Param("id") Long id,
+                                             @Param("limite") int limite);
+
+    // Extrato completo para exportação, do mais antigo para o mais recente. Lido como Stream com
+    // fetch size: o driver traz as linhas aos poucos e nada é guardado no contexto de persistência,
+    // então a memória não cresce com o tamanho do histórico. Precisa de transação aberta.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.simuladorbanco.BancoDigital.dtos.TransacaoDTO(t.id, t.tipo, t.valor, t.data, " +
+            "r.numeroDaConta, r.nome, d.numeroDaConta, d.nome) " +
+            "FROM Transacao t LEFT JOIN t.contaRemetente r LEFT JOIN t.contaDestinatario d " +
+            "WHERE r.numeroDaConta = :numeroDaConta OR d.numeroDaConta = :numeroDaConta " +
+            "ORDER BY t.data, t.id")
+    Stream<TransacaoDTO> exportarExtrato(@Param("numeroDaConta") Long numeroDaConta);
+}
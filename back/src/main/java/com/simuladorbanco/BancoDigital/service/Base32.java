@@ -0,0 +1,54 @@
+package com.simuladorbanco.BancoDigital.service;
+
+// Base32 do RFC 4648, sem o "=" de preenchimento. Só usa A-Z e 2-7, que cabem no modo
+// alfanumérico do QR Code (5,5 bits por caractere, contra 8 do modo byte de um JSON) e não têm
+// espaço nem pontuação para se perder num copia e cola.
+final class Base32 {
+
+    private static final String ALFABETO = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567";
+
+    private Base32() {
+    }
+
+    static String codificar(byte[] dados, int tamanho) {
+        StringBuilder texto = new StringBuilder((tamanho * 8 + 4) / 5);
+        int buffer = 0;
+        int bits = 0;
+        for (int i = 0; i < tamanho; i++) {
+            buffer = (buffer << 8) | (dados[i] & 0xff);
+            bits += 8;
+            while (bits >= 5) {
+                bits -= 5;
+                texto.append(ALFABETO.charAt((buffer >> bits) & 0x1f));
+            }
+        }
+        if (bits > 0) {
+            texto.append(ALFABETO.charAt((buffer << (5 - bits)) & 0x1f));
+        }
+        return texto.toString();
+    }
+
+    static byte[] decodificar(String texto) {
+        byte[] dados = new byte[texto.length() * 5 / 8];
+        int buffer = 0;
+        int bits = 0;
+        int posicao = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            int valor = ALFABETO.indexOf(Character.toUpperCase(texto.charAt(i)));
+            if (valor < 0) {
+                throw new IllegalArgumentException("Caractere fora do Base32: " + texto.charAt(i));
+            }
+            buffer = (buffer << 5) | valor;
+            bits += 5;
+            if (bits >= 8) {
+                bits -= 8;
+                dados[posicao++] = (byte) (buffer >> bits);
+            }
+        }
+        // Só uma escrita por conteúdo: tamanho impossível ou bits de sobra diferentes de zero são recusados
+        if (bits >= 5 || (buffer & ((1 << bits) - 1)) != 0) {
+            throw new IllegalArgumentException("Base32 com final inválido");
+        }
+        return dados;
+    }
+}
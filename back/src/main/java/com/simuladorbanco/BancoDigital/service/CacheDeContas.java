@@ -0,0 +1,92 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.simuladorbanco.BancoDigital.repository.ContaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Número, nome e e-mail (dono) das contas em memória: mudam pouco e são lidos nos nomes do extrato
+// arquivado e nas contas do PIX. O saldo não entra aqui: continua sendo lido da linha da conta,
+// sempre consistente. Quem altera nome, e-mail ou remove a conta descarta a entrada depois do
+// commit (ContaService.atualizarConta/removerConta), mas só nesta instância: nas outras o dado
+// antigo vale até expirar, então banco.conta.cache.expiracao-minutos é o atraso máximo entre
+// instâncias. Por isso as conferências de dono e de existência usam buscarNoBanco.
+// Métricas em /actuator/metrics/cache.gets... (tag cache=conta.referencia).
+@Component
+public class CacheDeContas {
+
+    public record DadosDaConta(Long numeroDaConta, String nome, String email) { }
+
+    private final ContaRepository contaRepository;
+    private final Cache<Long, DadosDaConta> cache;
+
+    public CacheDeContas(ContaRepository contaRepository,
+                         @Value("${banco.conta.cache.tamanho-maximo:100000}") long tamanhoMaximo,
+                         @Value("${banco.conta.cache.expiracao-minutos:5}") long expiracaoMinutos,
+                         MeterRegistry meterRegistry) {
+        this.contaRepository = contaRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(Duration.ofMinutes(expiracaoMinutos))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "conta.referencia");
+    }
+
+    // Conta inexistente não fica no cache: a próxima busca vai ao banco de novo
+    public Optional<DadosDaConta> buscar(Long numeroDaConta) {
+        return Optional.ofNullable(cache.get(numeroDaConta,
+                numero -> carregar(List.of(numero)).get(numero)));
+    }
+
+    // Para as conferências de segurança: lê sempre do banco e aproveita para renovar a entrada
+    public Optional<DadosDaConta> buscarNoBanco(Long numeroDaConta) {
+        DadosDaConta dados = carregar(List.of(numeroDaConta)).get(numeroDaConta);
+        if (dados == null) {
+            cache.invalidate(numeroDaConta);
+        } else {
+            cache.put(numeroDaConta, dados);
+        }
+        return Optional.ofNullable(dados);
+    }
+
+    // As que faltam no cache vêm do banco numa consulta só
+    public Map<Long, DadosDaConta> buscar(Collection<Long> numeros) {
+        return cache.getAll(numeros, this::carregar);
+    }
+
+    // Descarta já (ninguém relê o valor antigo durante a transação) e de novo depois do commit,
+    // porque uma leitura de outra transação nesse meio tempo ainda veria os dados antigos
+    public void descartarAposCommit(Long numeroDaConta) {
+        cache.invalidate(numeroDaConta);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(numeroDaConta);
+                }
+            });
+        }
+    }
+
+    private Map<Long, DadosDaConta> carregar(Collection<? extends Long> numeros) {
+        Map<Long, DadosDaConta> dados = new HashMap<>();
+        for (ContaRepository.DadosDaConta conta : contaRepository.buscarDados(List.copyOf(numeros))) {
+            dados.put(conta.getNumeroDaConta(),
+                    new DadosDaConta(conta.getNumeroDaConta(), conta.getNome(), conta.getEmail()));
+        }
+        return dados;
+    }
+}
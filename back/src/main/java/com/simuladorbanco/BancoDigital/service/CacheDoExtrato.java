@@ -0,0 +1,194 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.simuladorbanco.BancoDigital.dtos.ContaDTO;
+import com.simuladorbanco.BancoDigital.dtos.TransacaoDTO;
+import com.simuladorbanco.BancoDigital.model.Conta;
+import com.simuladorbanco.BancoDigital.model.Transacao;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// As últimas transações de cada conta em memória, para a primeira página do extrato (que o
+// dashboard pede depois de toda operação) não ir ao banco. Transação nova não invalida a entrada:
+// ela é acrescentada depois do commit. O limite é o total de transações guardadas (peso), não o
+// número de contas. A entrada expira expiracao-minutos depois de carregada do banco, mesmo com
+// leituras e acréscimos no meio: transação gravada por outra instância (ou fora do
+// registrarAposCommit) aparece na primeira página no máximo nesse tempo.
+// Métricas em /actuator/metrics/cache.gets, cache.evictions... (tag cache=extrato.recente).
+@Component
+public class CacheDoExtrato {
+
+    // As transações mais recentes da conta, em ordem (data, id) decrescente; temMais diz se o
+    // banco tem outras além delas
+    public record Recentes(List<TransacaoDTO> transacoes, boolean temMais) {
+
+        Recentes com(TransacaoDTO nova, int limite) {
+            List<TransacaoDTO> lista = new ArrayList<>(transacoes.size() + 1);
+            boolean inserida = false;
+            for (TransacaoDTO transacao : transacoes) {
+                if (transacao.getId().equals(nova.getId())) {
+                    // A carga do banco já tinha visto o commit
+                    return this;
+                }
+                if (!inserida && maisRecente(nova, transacao)) {
+                    lista.add(nova);
+                    inserida = true;
+                }
+                lista.add(transacao);
+            }
+            if (!inserida) {
+                if (temMais) {
+                    // Mais antiga que todas as guardadas: não entra entre as últimas
+                    return this;
+                }
+                lista.add(nova);
+            }
+            boolean aindaTemMais = temMais;
+            if (lista.size() > limite) {
+                lista.remove(lista.size() - 1);
+                aindaTemMais = true;
+            }
+            return new Recentes(List.copyOf(lista), aindaTemMais);
+        }
+
+        boolean envolve(Long numeroDaConta) {
+            for (TransacaoDTO transacao : transacoes) {
+                if (eDaConta(transacao.getContaRemetente(), numeroDaConta)
+                        || eDaConta(transacao.getContaDestinatario(), numeroDaConta)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean eDaConta(ContaDTO conta, Long numeroDaConta) {
+            return conta != null && numeroDaConta.equals(conta.getNumeroDaConta());
+        }
+
+        private static boolean maisRecente(TransacaoDTO a, TransacaoDTO b) {
+            int comparacao = a.getData().compareTo(b.getData());
+            return comparacao > 0 || (comparacao == 0 && a.getId() > b.getId());
+        }
+    }
+
+    private final int itensPorConta;
+    private final Cache<Long, Recentes> cache;
+
+    @Autowired
+    public CacheDoExtrato(@Value("${banco.extrato.cache.itens-por-conta:50}") int itensPorConta,
+                          @Value("${banco.extrato.cache.peso-maximo:500000}") long pesoMaximo,
+                          @Value("${banco.extrato.cache.expiracao-minutos:10}") long expiracaoMinutos,
+                          MeterRegistry meterRegistry) {
+        this(itensPorConta, pesoMaximo, expiracaoMinutos, meterRegistry, Ticker.systemTicker());
+    }
+
+    CacheDoExtrato(int itensPorConta, long pesoMaximo, long expiracaoMinutos, MeterRegistry meterRegistry,
+                   Ticker relogio) {
+        this.itensPorConta = itensPorConta;
+        // Só a carga marca o prazo: o compute do acrescentar conta como escrita para o
+        // expireAfterWrite e manteria viva para sempre a entrada de uma conta movimentada
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(pesoMaximo)
+                .weigher((Long numeroDaConta, Recentes recentes) -> 1 + recentes.transacoes().size())
+                .expireAfter(new Expiry<Long, Recentes>() {
+                    @Override
+                    public long expireAfterCreate(Long numeroDaConta, Recentes recentes, long agora) {
+                        return TimeUnit.MINUTES.toNanos(expiracaoMinutos);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long numeroDaConta, Recentes recentes, long agora, long atual) {
+                        return atual;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long numeroDaConta, Recentes recentes, long agora, long atual) {
+                        return atual;
+                    }
+                })
+                .ticker(relogio)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "extrato.recente");
+    }
+
+    // 0 desliga o cache
+    public int getItensPorConta() {
+        return itensPorConta;
+    }
+
+    public Recentes buscar(Long numeroDaConta, Function<Long, Recentes> carregar) {
+        return cache.get(numeroDaConta, carregar);
+    }
+
+    // Chamado dentro da transação que gravou a transação; só entra no cache se ela fizer commit
+    public void registrarAposCommit(Transacao transacao) {
+        registrarAposCommit(paraDTO(transacao));
+    }
+
+    public void registrarAposCommit(TransacaoDTO transacao) {
+        if (itensPorConta > 0) {
+            depoisDoCommit(() -> registrar(transacao));
+        }
+    }
+
+    // Conta removida ou renomeada: descarta a entrada dela e as das contas com alguma transação
+    // guardada com ela (o nome ou, no encerramento, o número mudou). As outras ficam. Percorre o
+    // cache, mas só nessas operações, que são raras perto das leituras do extrato
+    public void descartarContaAposCommit(Long numeroDaConta) {
+        depoisDoCommit(() -> cache.asMap().entrySet().removeIf(entrada ->
+                entrada.getKey().equals(numeroDaConta) || entrada.getValue().envolve(numeroDaConta)));
+    }
+
+    void registrar(TransacaoDTO transacao) {
+        acrescentar(transacao.getContaRemetente(), transacao);
+        acrescentar(transacao.getContaDestinatario(), transacao);
+    }
+
+    // Só atualiza contas que já estão no cache; as outras são carregadas do banco na próxima leitura.
+    // O compute da entrada espera uma carga em andamento da mesma conta, então o commit não se perde.
+    private void acrescentar(ContaDTO conta, TransacaoDTO transacao) {
+        if (conta != null) {
+            cache.asMap().computeIfPresent(conta.getNumeroDaConta(),
+                    (numeroDaConta, recentes) -> recentes.com(transacao, itensPorConta));
+        }
+    }
+
+    private void depoisDoCommit(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+
+    // A data vai com a precisão do banco (microssegundos): é dela que sai o cursor da próxima página
+    public static TransacaoDTO paraDTO(Transacao transacao) {
+        Conta remetente = transacao.getContaRemetente();
+        Conta destinatario = transacao.getContaDestinatario();
+        return new TransacaoDTO(transacao.getId(), transacao.getTipo(), transacao.getValor(),
+                transacao.getData().truncatedTo(ChronoUnit.MICROS),
+                remetente == null ? null : remetente.getNumeroDaConta(), remetente == null ? null : remetente.getNome(),
+                destinatario == null ? null : destinatario.getNumeroDaConta(),
+                destinatario == null ? null : destinatario.getNome());
+    }
+}
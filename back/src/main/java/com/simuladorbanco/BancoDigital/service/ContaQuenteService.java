@@ -0,0 +1,147 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import com.simuladorbanco.BancoDigital.model.Conta;
+import com.simuladorbanco.BancoDigital.model.SlotDeSaldo;
+import com.simuladorbanco.BancoDigital.repository.ContaRepository;
+import com.simuladorbanco.BancoDigital.repository.SlotDeSaldoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Contas "quentes" (lojistas que recebem muitos PIX) têm o saldo distribuído em slots
+// (tb_conta_slot). Crédito vai para um slot aleatório; débito e consulta juntam os slots.
+// Uma conta é quente enquanto tiver slots; ela entra nesse modo pelo endpoint de administração
+// ou sozinha, quando passa do limite de créditos por janela. Quem diz se a conta é quente é sempre
+// tb_conta_slot, nunca a memória de uma instância: os slots podem ter sido criados por outra.
+@Service
+public class ContaQuenteService {
+
+    @Autowired
+    private SlotDeSaldoRepository slotRepository;
+
+    @Autowired
+    private ContaRepository contaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${banco.conta-quente.slots:8}")
+    private int quantidadeDeSlots;
+
+    // 0 desliga a ativação automática
+    @Value("${banco.conta-quente.limite-creditos-por-janela:600}")
+    private long limiteDeCreditos;
+
+    private volatile Map<Long, LongAdder> creditosNaJanela = new ConcurrentHashMap<>();
+
+    public boolean ehQuente(Long numeroDaConta) {
+        return slotRepository.existsByNumeroDaConta(numeroDaConta);
+    }
+
+    // Precisa rodar dentro da transação de quem chama (ContaService). Devolve false se a conta não existe
+    public boolean creditar(Long numeroDaConta, long valor) {
+        int slot = ThreadLocalRandom.current().nextInt(quantidadeDeSlots);
+        // Slot inexistente (quantidade de slots aumentou depois da ativação, ou a conta deixou de
+        // ser quente): vai para a conta
+        return slotRepository.creditar(numeroDaConta, slot, valor) > 0
+                || contaRepository.creditar(numeroDaConta, valor) > 0;
+    }
+
+    // Chamado a cada crédito em conta comum, para a ativação automática
+    public void registrarCredito(Long numeroDaConta) {
+        if (limiteDeCreditos > 0) {
+            creditosNaJanela.computeIfAbsent(numeroDaConta, n -> new LongAdder()).increment();
+        }
+    }
+
+    // Soma os slots no saldo da conta e os zera. Os slots ficam travados só durante isso.
+    // Devolve quanto foi movido para a conta
+    public long consolidar(Long numeroDaConta) {
+        List<SlotDeSaldo> slots = slotRepository.findByNumeroDaContaOrderBySlot(numeroDaConta);
+        long soma = 0;
+        for (SlotDeSaldo slot : slots) {
+            soma += slot.getSaldo();
+            slot.setSaldo(0);
+        }
+        if (soma != 0) {
+            contaRepository.creditar(numeroDaConta, soma);
+        }
+        return soma;
+    }
+
+    // Para leitura: devolve a conta com o saldo total sem gravar nada. Conta e slots numa consulta
+    // só: em duas, uma consolidação entre elas tiraria o valor dos slots sem ele aparecer na conta
+    public Conta comSaldoTotal(Conta conta) {
+        long saldoTotal = contaRepository.buscarSaldoTotal(conta.getNumeroDaConta()).orElse(conta.getSaldo());
+        if (saldoTotal == conta.getSaldo()) {
+            return conta;
+        }
+        // Pode ser o proxy criado por getReferenceById na mesma sessão
+        Conta contaReal = (Conta) Hibernate.unproxy(conta);
+        entityManager.detach(contaReal);
+        contaReal.setSaldo(saldoTotal);
+        return contaReal;
+    }
+
+    public void ativar(Long numeroDaConta) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (!contaRepository.existsById(numeroDaConta)) {
+                throw new RuntimeException("Conta não encontrada");
+            }
+            if (!slotRepository.existsByNumeroDaConta(numeroDaConta)) {
+                for (int i = 0; i < quantidadeDeSlots; i++) {
+                    SlotDeSaldo slot = new SlotDeSaldo();
+                    slot.setNumeroDaConta(numeroDaConta);
+                    slot.setSlot(i);
+                    slotRepository.save(slot);
+                }
+            }
+        });
+    }
+
+    public void desativar(Long numeroDaConta) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            consolidar(numeroDaConta);
+            slotRepository.removerSlots(numeroDaConta);
+        });
+    }
+
+    // Conta sendo removida: os slots vão junto, sem consolidar
+    public void esquecer(Long numeroDaConta) {
+        slotRepository.removerSlots(numeroDaConta);
+    }
+
+    @Scheduled(fixedDelayString = "${banco.conta-quente.consolidacao-ms:1000}")
+    public void consolidarContasQuentes() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (Long numeroDaConta : slotRepository.findNumerosDasContas()) {
+            transactionTemplate.executeWithoutResult(status -> consolidar(numeroDaConta));
+        }
+    }
+
+    @Scheduled(fixedRateString = "${banco.conta-quente.janela-ms:60000}")
+    public void avaliarContencao() {
+        Map<Long, LongAdder> janela = creditosNaJanela;
+        creditosNaJanela = new ConcurrentHashMap<>();
+        janela.forEach((numeroDaConta, creditos) -> {
+            if (creditos.sum() >= limiteDeCreditos && !ehQuente(numeroDaConta)) {
+                ativar(numeroDaConta);
+            }
+        });
+    }
+}
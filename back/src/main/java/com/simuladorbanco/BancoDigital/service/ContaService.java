@@ -1,14 +1,17 @@
 package com.simuladorbanco.BancoDigital.service;
 
+import com.simuladorbanco.BancoDigital.config.RetentativaDeConcorrencia;
 import com.simuladorbanco.BancoDigital.dtos.TransacaoDTO;
 import com.simuladorbanco.BancoDigital.dtos.TransferenciaRequest;
 import com.simuladorbanco.BancoDigital.exception.*;
+import com.simuladorbanco.BancoDigital.model.Centavos;
 import com.simuladorbanco.BancoDigital.model.Conta;
 import com.simuladorbanco.BancoDigital.model.Transacao;
+import com.simuladorbanco.BancoDigital.motor.MotorDeContas;
 import com.simuladorbanco.BancoDigital.repository.ContaRepository;
-import com.simuladorbanco.BancoDigital.repository.TransacaoRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -17,7 +20,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
-import java.util.List;
+import java.util.Objects;
 
 @Service
 @Transactional
@@ -30,11 +33,26 @@ public class ContaService {
     private PasswordEncoder encoder;
 
     @Autowired
-    private TransacaoRepository transacaoRepository;
+    private TransacaoService transacaoService;
+
+    @Value("${banco.concorrencia.modo:ATOMICO}")
+    private ModoConcorrencia modo;
 
     @Autowired
-    private TransacaoService transacaoService;
+    private ContaQuenteService contaQuenteService;
+
+    @Autowired
+    private CacheDoExtrato cacheDoExtrato;
+
+    @Autowired
+    private CacheDeContas cacheDeContas;
 
+    @Autowired
+    private EncerramentoDeContas encerramentoDeContas;
+
+    // Só existe com banco.motor.habilitado=true
+    @Autowired(required = false)
+    private MotorDeContas motor;
 
     public Conta criarConta(Conta conta){
         if (conta.getEmail() == null) {
@@ -68,73 +86,165 @@ public class ContaService {
         conta.setEmail(contaAtualizada.getEmail());
         conta.setSenha(senhaCriptografada);
         conta.setSaldo(contaAtualizada.getSaldo());
+        // O nome aparece nas transações guardadas no cache do extrato
+        cacheDoExtrato.descartarContaAposCommit(numeroDaConta);
+        cacheDeContas.descartarAposCommit(numeroDaConta);
+        // O motor confere o dono pelo e-mail que tem em memória
+        if (motor != null) {
+            motor.descartarDadosAposCommit(numeroDaConta);
+        }
         return contaRepository.save(conta);
     }
 
-    public TransacaoDTO depositar(Double valor, Long numeroDaConta) {
-        Conta conta = contaRepository.findById(numeroDaConta)
-                .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
-        String usuarioLogado = SecurityContextHolder.getContext().getAuthentication().getName();
-        if (!conta.getEmail().equals(usuarioLogado)) {
-            throw new AccessDeniedException("Operação negada: Você não tem permissão para depositar nessa conta.");
-        }
+    @RetentativaDeConcorrencia
+    public TransacaoDTO depositar(Long valor, Long numeroDaConta) {
         if (valor == null || valor <= 0) {
             throw new IllegalArgumentException("O valor do depósito deve ser maior que zero.");
         }
-        conta.setSaldo(conta.getSaldo() + valor);
-        System.out.println("Conta atualizada: " + conta);
-        contaRepository.save(conta);
+        String usuarioLogado = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (motor != null) {
+            Transacao transacao = motor.depositar(numeroDaConta, usuarioLogado, valor);
+            return transacaoService.adicionarTransacaoDTODeposito(transacao.getContaDestinatario(), transacao);
+        }
+        creditarDoDono(numeroDaConta, usuarioLogado, valor);
+        Conta conta = contaRepository.getReferenceById(numeroDaConta);
         Transacao transacao = transacaoService.adicionarTransacaoDeposito(conta, valor);
         TransacaoDTO transacaoDTO = transacaoService.adicionarTransacaoDTODeposito(conta, transacao);
         return transacaoDTO;
     }
 
-    public TransacaoDTO sacar(Double valor, Long numeroDaConta){
-        Conta conta = contaRepository.findById(numeroDaConta)
-                .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
-        String usuarioLogado = SecurityContextHolder.getContext().getAuthentication().getName();
-        if (!conta.getEmail().equals(usuarioLogado)) {
-            throw new AccessDeniedException("Operação negada: Você não tem permissão para sacar nessa conta.");
-        }
-        if(conta.getSaldo()<valor){
-            throw new SaldoInsuficienteException();
-        }
-        if (valor <= 0) {
+    @RetentativaDeConcorrencia
+    public TransacaoDTO sacar(Long valor, Long numeroDaConta){
+        if (valor == null || valor <= 0) {
             throw new IllegalArgumentException("O valor do saque deve ser maior que zero.");
         }
-        conta.setSaldo(conta.getSaldo() - valor);
+        String usuarioLogado = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (motor != null) {
+            Transacao transacao = motor.sacar(numeroDaConta, usuarioLogado, valor);
+            return transacaoService.adicionarTransacaoDTOSaque(transacao.getContaRemetente(), transacao);
+        }
+        debitar(numeroDaConta, usuarioLogado, valor,
+                "Operação negada: Você não tem permissão para sacar nessa conta.");
+        Conta conta = contaRepository.getReferenceById(numeroDaConta);
         Transacao transacao = transacaoService.adicionarTransacaoSaque(conta,valor);
         TransacaoDTO transacaoDTO = transacaoService.adicionarTransacaoDTOSaque(conta,transacao);
-        contaRepository.save(conta);
         return transacaoDTO;
     }
 
+    @RetentativaDeConcorrencia
     public TransacaoDTO transferencia(TransferenciaRequest transferencia, Long numeroContaRemetente
     ){
-        Conta contaRemetente = contaRepository.findById(numeroContaRemetente)
-                .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
-        Conta contaDestinario = contaRepository.findById(transferencia.getNumeroContaDestinatario())
-                .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
+        Long numeroContaDestinatario = transferencia.getNumeroContaDestinatario();
+        long valor = transferencia.getValor();
+        if (valor <= 0) {
+            throw new IllegalArgumentException("O valor da transferência deve ser maior que zero.");
+        }
+        if (numeroContaDestinatario == null) {
+            throw new IllegalArgumentException("Informe a conta de destino da transferência.");
+        }
+        if (Objects.equals(numeroContaRemetente, numeroContaDestinatario)) {
+            throw new RuntimeException("Você não pode realizar uma transferencia para si mesmo");
+        }
         String usuarioLogado = SecurityContextHolder.getContext().getAuthentication().getName();
-        if (!contaRemetente.getEmail().equals(usuarioLogado)) {
-            throw new AccessDeniedException("Operação negada: Você não tem permissão para realizar transações nessa conta.");
+        if (motor != null) {
+            Transacao transacao = motor.transferir(numeroContaRemetente, usuarioLogado, numeroContaDestinatario, valor);
+            return transacaoService.adicionarTransacaoDTOTransferencia(transacao.getContaRemetente(),
+                    transacao.getContaDestinatario(), transacao);
         }
-        if(contaRemetente.getSaldo()<transferencia.getValor()){
-            throw new SaldoInsuficienteException();
+        String mensagemAcessoNegado = "Operação negada: Você não tem permissão para realizar transações nessa conta.";
+        // Cada UPDATE trava a linha que altera. As duas contas são sempre alteradas em ordem
+        // crescente de numeroDaConta, assim transferências em sentidos opostos (A->B e B->A)
+        // nunca ficam esperando uma pela outra.
+        boolean destinatarioQuente;
+        if (numeroContaRemetente < numeroContaDestinatario) {
+            debitar(numeroContaRemetente, usuarioLogado, valor, mensagemAcessoNegado);
+            destinatarioQuente = creditar(numeroContaDestinatario, valor);
+        } else {
+            destinatarioQuente = creditar(numeroContaDestinatario, valor);
+            debitar(numeroContaRemetente, usuarioLogado, valor, mensagemAcessoNegado);
         }
-        contaRemetente.setSaldo(contaRemetente.getSaldo() - transferencia.getValor());
-        contaDestinario.setSaldo(contaDestinario.getSaldo() + transferencia.getValor());
-        contaRepository.save(contaRemetente);
-        contaRepository.save(contaDestinario);
+        Conta contaRemetente = contaRepository.getReferenceById(numeroContaRemetente);
+        Conta contaDestinario = contaRepository.getReferenceById(numeroContaDestinatario);
         Transacao transacao = transacaoService.adicionarTransacaoTransferencia(contaRemetente, contaDestinario
-                , transferencia.getValor());
+                , valor, destinatarioQuente);
         TransacaoDTO transacaoDTO = transacaoService.adicionarTransacaoDTOTransferencia(contaRemetente,
                 contaDestinario,
                 transacao);
         return transacaoDTO;
     }
 
-    public void removerConta(Long numeroDaConta){
+    // No modo OTIMISTA a conta é lida e alterada em memória; o UPDATE gerado no commit confere a
+    // @Version e falha com OptimisticLockException se outra transação gravou a conta nesse meio tempo.
+    // Conta quente: se o saldo da linha não cobre o débito, junta os slots nele e confere de novo.
+    // Conta comum com saldo paga só o UPDATE de sempre.
+    private void debitar(Long numeroDaConta, String usuarioLogado, long valor, String mensagemAcessoNegado) {
+        if (modo == ModoConcorrencia.OTIMISTA) {
+            Conta conta = buscarContaDoUsuario(numeroDaConta, usuarioLogado, mensagemAcessoNegado);
+            if (conta.getSaldo() < valor && contaQuenteService.consolidar(numeroDaConta) != 0) {
+                // A consolidação gravou direto no banco (e limpou a sessão): relê a conta
+                conta = buscarContaDoUsuario(numeroDaConta, usuarioLogado, mensagemAcessoNegado);
+            }
+            if (conta.getSaldo() < valor) {
+                throw new SaldoInsuficienteException();
+            }
+            conta.setSaldo(Centavos.subtrair(conta.getSaldo(), valor));
+        } else if (contaRepository.debitar(numeroDaConta, usuarioLogado, valor) == 0) {
+            // Não coube no saldo da linha: se havia saldo nos slots, tenta de novo com ele
+            if (contaQuenteService.consolidar(numeroDaConta) == 0
+                    || contaRepository.debitar(numeroDaConta, usuarioLogado, valor) == 0) {
+                diagnosticarFalha(numeroDaConta, usuarioLogado, mensagemAcessoNegado);
+            }
+        }
+    }
+
+    private void creditarDoDono(Long numeroDaConta, String usuarioLogado, long valor) {
+        String mensagemAcessoNegado = "Operação negada: Você não tem permissão para depositar nessa conta.";
+        if (modo == ModoConcorrencia.OTIMISTA) {
+            Conta conta = buscarContaDoUsuario(numeroDaConta, usuarioLogado, mensagemAcessoNegado);
+            conta.setSaldo(Centavos.somar(conta.getSaldo(), valor));
+        } else if (contaRepository.creditarDoDono(numeroDaConta, usuarioLogado, valor) == 0) {
+            diagnosticarFalha(numeroDaConta, usuarioLogado, mensagemAcessoNegado);
+        }
+    }
+
+    // Conta comum: um UPDATE que já exclui a conta quente. Só quando ele não altera nada (conta
+    // quente ou inexistente) o crédito vai para os slots. Devolve se a conta é quente.
+    private boolean creditar(Long numeroDaConta, long valor) {
+        if (modo == ModoConcorrencia.OTIMISTA) {
+            if (!contaQuenteService.ehQuente(numeroDaConta)) {
+                Conta conta = contaRepository.findById(numeroDaConta)
+                        .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
+                conta.setSaldo(Centavos.somar(conta.getSaldo(), valor));
+                contaQuenteService.registrarCredito(numeroDaConta);
+                return false;
+            }
+        } else if (contaRepository.creditarContaComum(numeroDaConta, valor) > 0) {
+            contaQuenteService.registrarCredito(numeroDaConta);
+            return false;
+        }
+        if (!contaQuenteService.creditar(numeroDaConta, valor)) {
+            throw new RuntimeException("Conta não encontrada");
+        }
+        return true;
+    }
+
+    private Conta buscarContaDoUsuario(Long numeroDaConta, String usuarioLogado, String mensagemAcessoNegado) {
+        Conta conta = contaRepository.findById(numeroDaConta)
+                .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
+        if (!conta.getEmail().equals(usuarioLogado)) {
+            throw new AccessDeniedException(mensagemAcessoNegado);
+        }
+        return conta;
+    }
+
+    // Só é chamado quando o UPDATE condicional não alterou nenhuma linha: lê a conta
+    // para descobrir qual condição falhou e lançar o erro correspondente.
+    private void diagnosticarFalha(Long numeroDaConta, String usuarioLogado, String mensagemAcessoNegado) {
+        buscarContaDoUsuario(numeroDaConta, usuarioLogado, mensagemAcessoNegado);
+        throw new SaldoInsuficienteException();
+    }
+
+    public EncerramentoDeContas.Progresso removerConta(Long numeroDaConta){
         Conta conta = contaRepository.findById(numeroDaConta).
                 orElseThrow(() -> new RuntimeException("Conta não encontrado"));
         String usuarioLogado = SecurityContextHolder.getContext().getAuthentication().getName();
@@ -143,20 +253,10 @@ public class ContaService {
         if (!conta.getEmail().equals(usuarioLogado)) {
             throw new AccessDeniedException("Operação negada: Você não tem permissão para deletar esta conta.");
         }
-        List<Transacao> transacoesRemetente = transacaoRepository.findByContaRemetente(conta);
-        Conta contaDefault = contaRepository.findById(99L).
-                orElseThrow(() -> new RuntimeException("Conta não encontrado"));;
-        for(Transacao transacao : transacoesRemetente){
-            transacao.setContaRemetente(contaDefault);
-        }
-        List<Transacao> transacoesDestinatario = transacaoRepository.findByContaDestinatario(conta);
-        for(Transacao transacao : transacoesDestinatario){
-            transacao.setContaDestinatario(contaDefault);
-        }
-        contaRepository.delete(conta);
-    }
-    public List<Conta> listarTodos(){
-        return contaRepository.findAll();
+        // O histórico da conta passa para a conta de encerradas, que precisa existir
+        contaRepository.findById(EncerramentoDeContas.CONTA_DE_ENCERRADAS).
+                orElseThrow(() -> new RuntimeException("Conta não encontrado"));
+        return encerramentoDeContas.encerrar(conta);
     }
 
 
@@ -167,7 +267,7 @@ public class ContaService {
         if (!conta.getEmail().equals(usuarioLogado)) {
             throw new AccessDeniedException("Operação negada: Você não tem permissão para buscar esta conta.");
         }
-        return conta;
+        return contaQuenteService.comSaldoTotal(conta);
     }
 }
 
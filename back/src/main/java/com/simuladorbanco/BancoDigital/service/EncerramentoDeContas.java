@@ -0,0 +1,184 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.simuladorbanco.BancoDigital.model.Conta;
+import com.simuladorbanco.BancoDigital.motor.MotorDeContas;
+import com.simuladorbanco.BancoDigital.repository.ContaRepository;
+import com.simuladorbanco.BancoDigital.repository.ResumoDiarioRepository;
+import com.simuladorbanco.BancoDigital.repository.TransacaoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Encerramento de conta: as transações dela passam para a conta de encerradas com UPDATEs em
+// lotes (banco.conta.encerramento.tamanho-lote), sem carregar nenhuma Transacao, e depois a conta
+// é apagada. Histórico de até banco.conta.encerramento.limite-sincrono transações é resolvido na
+// própria requisição; maior que isso roda em segundo plano, um lote por transação, e o andamento
+// fica em GET /conta/{numeroDaConta}/encerramento.
+// Enquanto o job roda a conta continua aberta: o que entrar nesse meio tempo é varrido no passo
+// final, com a linha da conta travada (nenhuma transação nova consegue referenciá-la).
+@Service
+public class EncerramentoDeContas {
+
+    private static final Logger log = LoggerFactory.getLogger(EncerramentoDeContas.class);
+
+    // Fica com o histórico das contas removidas
+    public static final long CONTA_DE_ENCERRADAS = 99L;
+
+    public enum Situacao { EM_ANDAMENTO, CONCLUIDO, FALHOU }
+
+    public record Progresso(Long numeroDaConta, Situacao situacao, long transacoesReassociadas,
+                            long totalDeTransacoes) { }
+
+    // O dono fica guardado porque a conta já pode ter sido apagada quando ele consulta
+    private record Encerramento(String dono, Progresso progresso) { }
+
+    private final ContaRepository contaRepository;
+    private final TransacaoRepository transacaoRepository;
+    private final ResumoDiarioRepository resumoDiarioRepository;
+    private final ContaQuenteService contaQuenteService;
+    private final CacheDoExtrato cacheDoExtrato;
+    private final CacheDeContas cacheDeContas;
+    // Só existe com banco.motor.habilitado=true
+    private final ObjectProvider<MotorDeContas> motor;
+    private final TransactionTemplate transactionTemplate;
+    private final long limiteSincrono;
+    private final int tamanhoDoLote;
+    // Cada atualização do andamento regrava a entrada, então só some um dia depois de terminar
+    private final Cache<Long, Encerramento> encerramentos = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofDays(1))
+            .build();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "encerramento-de-contas");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public EncerramentoDeContas(ContaRepository contaRepository, TransacaoRepository transacaoRepository,
+                                ResumoDiarioRepository resumoDiarioRepository, ContaQuenteService contaQuenteService,
+                                CacheDoExtrato cacheDoExtrato, CacheDeContas cacheDeContas,
+                                ObjectProvider<MotorDeContas> motor, PlatformTransactionManager transactionManager,
+                                @Value("${banco.conta.encerramento.limite-sincrono:10000}") long limiteSincrono,
+                                @Value("${banco.conta.encerramento.tamanho-lote:5000}") int tamanhoDoLote) {
+        this.contaRepository = contaRepository;
+        this.transacaoRepository = transacaoRepository;
+        this.resumoDiarioRepository = resumoDiarioRepository;
+        this.contaQuenteService = contaQuenteService;
+        this.cacheDoExtrato = cacheDoExtrato;
+        this.cacheDeContas = cacheDeContas;
+        this.motor = motor;
+        // Cada lote do job faz commit sozinho, mesmo se um dia for chamado de dentro de outra transação
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.limiteSincrono = limiteSincrono;
+        this.tamanhoDoLote = tamanhoDoLote;
+    }
+
+    // Chamado pelo ContaService, dentro da transação dele, já com o dono conferido
+    public Progresso encerrar(Conta conta) {
+        Long numeroDaConta = conta.getNumeroDaConta();
+        long total = transacaoRepository.contarDaConta(numeroDaConta);
+        if (total <= limiteSincrono) {
+            reassociarTudo(numeroDaConta);
+            apagar(conta);
+            return new Progresso(numeroDaConta, Situacao.CONCLUIDO, total, total);
+        }
+        Encerramento novo = new Encerramento(conta.getEmail(),
+                new Progresso(numeroDaConta, Situacao.EM_ANDAMENTO, 0, total));
+        // Um segundo pedido enquanto o job roda só recebe o andamento
+        Encerramento atual = encerramentos.asMap().compute(numeroDaConta, (numero, existente) ->
+                existente != null && existente.progresso().situacao() == Situacao.EM_ANDAMENTO ? existente : novo);
+        if (atual == novo) {
+            log.info("Encerramento da conta {} em segundo plano ({} transações)", numeroDaConta, total);
+            executor.execute(() -> executar(numeroDaConta, total));
+        }
+        return atual.progresso();
+    }
+
+    public Progresso consultar(Long numeroDaConta) {
+        Encerramento encerramento = encerramentos.getIfPresent(numeroDaConta);
+        if (encerramento == null) {
+            throw new RuntimeException("Nenhum encerramento em andamento para esta conta");
+        }
+        String usuarioLogado = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (!encerramento.dono().equals(usuarioLogado)) {
+            throw new AccessDeniedException("Operação negada: Você não tem permissão para consultar esta conta.");
+        }
+        return encerramento.progresso();
+    }
+
+    void executar(Long numeroDaConta, long total) {
+        long reassociadas = 0;
+        try {
+            int lote;
+            do {
+                lote = transactionTemplate.execute(status -> reassociarLote(numeroDaConta));
+                reassociadas += lote;
+                atualizar(numeroDaConta, Situacao.EM_ANDAMENTO, reassociadas, total);
+            } while (lote > 0);
+            long finais = transactionTemplate.execute(status -> {
+                Conta conta = contaRepository.travar(numeroDaConta)
+                        .orElseThrow(() -> new RuntimeException("Conta não encontrado"));
+                long novas = reassociarTudo(numeroDaConta);
+                apagar(conta);
+                return novas;
+            });
+            reassociadas += finais;
+            atualizar(numeroDaConta, Situacao.CONCLUIDO, reassociadas, Math.max(total, reassociadas));
+            log.info("Conta {} encerrada ({} transações reassociadas)", numeroDaConta, reassociadas);
+        } catch (RuntimeException e) {
+            // Os lotes já gravados ficam: um novo DELETE continua de onde este parou
+            log.error("Falha no encerramento da conta {}", numeroDaConta, e);
+            atualizar(numeroDaConta, Situacao.FALHOU, reassociadas, total);
+        }
+    }
+
+    private void atualizar(Long numeroDaConta, Situacao situacao, long reassociadas, long total) {
+        encerramentos.asMap().computeIfPresent(numeroDaConta, (numero, encerramento) -> new Encerramento(
+                encerramento.dono(), new Progresso(numeroDaConta, situacao, reassociadas, total)));
+    }
+
+    private long reassociarTudo(Long numeroDaConta) {
+        long reassociadas = 0;
+        int lote;
+        while ((lote = reassociarLote(numeroDaConta)) > 0) {
+            reassociadas += lote;
+        }
+        return reassociadas;
+    }
+
+    // Até tamanhoDoLote linhas por chamada, primeiro as enviadas e depois as recebidas
+    private int reassociarLote(Long numeroDaConta) {
+        int lote = transacaoRepository.reassociarRemetente(numeroDaConta, CONTA_DE_ENCERRADAS, tamanhoDoLote);
+        if (lote < tamanhoDoLote) {
+            lote += transacaoRepository.reassociarDestinatario(numeroDaConta, CONTA_DE_ENCERRADAS,
+                    tamanhoDoLote - lote);
+        }
+        return lote;
+    }
+
+    private void apagar(Conta conta) {
+        Long numeroDaConta = conta.getNumeroDaConta();
+        if (contaQuenteService.ehQuente(numeroDaConta)) {
+            contaQuenteService.esquecer(numeroDaConta);
+        }
+        resumoDiarioRepository.removerDaConta(numeroDaConta);
+        cacheDoExtrato.descartarContaAposCommit(numeroDaConta);
+        cacheDeContas.descartarAposCommit(numeroDaConta);
+        // O motor pode ter a conta em memória e continuaria aceitando operações nela
+        motor.ifAvailable(m -> m.descartarDadosAposCommit(numeroDaConta));
+        contaRepository.delete(conta);
+    }
+}
@@ -0,0 +1,27 @@
+package com.simuladorbanco.BancoDigital.service;
+
+// Formatos da exportação completa do extrato (GET /conta/{numeroDaConta}/extrato/export).
+public enum FormatoDoExtrato {
+    // Um objeto JSON por linha, no mesmo formato do extrato paginado
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String tipoDeConteudo;
+
+    FormatoDoExtrato(String tipoDeConteudo) {
+        this.tipoDeConteudo = tipoDeConteudo;
+    }
+
+    public String getTipoDeConteudo() {
+        return tipoDeConteudo;
+    }
+
+    public static FormatoDoExtrato de(String formato) {
+        for (FormatoDoExtrato valor : values()) {
+            if (valor.name().equalsIgnoreCase(formato)) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Formato de exportação inválido: use ndjson ou csv.");
+    }
+}
@@ -0,0 +1,17 @@
+package com.simuladorbanco.BancoDigital.service;
+
+// Formatos da imagem do QR Code (POST /pix/gerar/{numeroContaDestinatario}/imagem).
+public enum FormatoDoQrCode {
+    PNG,
+    // Vetorial: poucos KB em qualquer tamanho de tela
+    SVG;
+
+    public static FormatoDoQrCode de(String formato) {
+        for (FormatoDoQrCode valor : values()) {
+            if (valor.name().equalsIgnoreCase(formato)) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Formato do QR Code inválido: use png ou svg.");
+    }
+}
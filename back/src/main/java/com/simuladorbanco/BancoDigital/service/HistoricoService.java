@@ -1,128 +1,277 @@
 package com.simuladorbanco.BancoDigital.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simuladorbanco.BancoDigital.arquivo.ArquivoDeTransacoes;
+import com.simuladorbanco.BancoDigital.arquivo.MovimentoArquivado;
 import com.simuladorbanco.BancoDigital.dtos.ContaDTO;
+import com.simuladorbanco.BancoDigital.dtos.PaginaDeTransacoes;
+import com.simuladorbanco.BancoDigital.dtos.ResumoDaConta;
+import com.simuladorbanco.BancoDigital.dtos.ResumoMensal;
+import com.simuladorbanco.BancoDigital.dtos.SaldoDoDia;
 import com.simuladorbanco.BancoDigital.dtos.TransacaoDTO;
-import com.simuladorbanco.BancoDigital.model.Conta;
-import com.simuladorbanco.BancoDigital.model.Transacao;
-import com.simuladorbanco.BancoDigital.repository.ContaRepository;
+import com.simuladorbanco.BancoDigital.model.Centavos;
+import com.simuladorbanco.BancoDigital.repository.ResumoDiarioRepository;
 import com.simuladorbanco.BancoDigital.repository.TransacaoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 public class HistoricoService {
 
     @Autowired
-    ContaRepository contaRepository;
+    TransacaoRepository transacaoRepository;
 
     @Autowired
-    TransacaoRepository transacaoRepository;
+    ObjectMapper objectMapper;
+
+    @Autowired
+    CacheDoExtrato cacheDoExtrato;
+
+    @Autowired
+    ResumoDiarioRepository resumoDiarioRepository;
+
+    @Autowired
+    ContaService contaService;
+
+    @Autowired
+    ArquivoDeTransacoes arquivoDeTransacoes;
+
+    @Autowired
+    CacheDeContas cacheDeContas;
 
-    public List<Transacao> listarTransacoesDeposito(Long numeroDaConta){
-        Conta conta = contaRepository.findById(numeroDaConta)
-                .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
-        return transacaoRepository.findByContaDestinatarioAndTipo(conta, "DEPOSITO");
+    private static final int TAMANHO_MAXIMO_DA_PAGINA = 500;
+    // Cursor inicial: qualquer transação real vem antes dele
+    private static final LocalDateTime INICIO_DO_EXTRATO = LocalDateTime.of(9999, 12, 31, 23, 59);
+
+    @Value("${banco.extrato.tamanho-pagina:50}")
+    private int tamanhoPadraoDaPagina = 50;
+
+    // Uma página do extrato em uma única consulta. O cursor é opaco para o cliente: é a
+    // (data, id) da última transação da página anterior, em Base64.
+    // A primeira página (sem cursor) sai do CacheDoExtrato quando cabe nele.
+    public PaginaDeTransacoes listarExtrato(Long numeroDaConta, String cursor, Integer tamanho) {
+        int tamanhoDaPagina = tamanho == null ? tamanhoPadraoDaPagina : Math.min(Math.max(tamanho, 1), TAMANHO_MAXIMO_DA_PAGINA);
+        boolean primeiraPagina = cursor == null || cursor.isBlank();
+        if (primeiraPagina && tamanhoDaPagina <= cacheDoExtrato.getItensPorConta()) {
+            CacheDoExtrato.Recentes recentes = cacheDoExtrato.buscar(numeroDaConta, this::carregarRecentes);
+            List<TransacaoDTO> transacoes = recentes.transacoes();
+            boolean temMais = transacoes.size() > tamanhoDaPagina || recentes.temMais();
+            transacoes = transacoes.subList(0, Math.min(transacoes.size(), tamanhoDaPagina));
+            return new PaginaDeTransacoes(transacoes, temMais ? cursorDe(transacoes.get(transacoes.size() - 1)) : null);
+        }
+        verificarConta(numeroDaConta);
+        LocalDateTime dataDoCursor = INICIO_DO_EXTRATO;
+        Long idDoCursor = Long.MAX_VALUE;
+        if (!primeiraPagina) {
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                        .split("\\|");
+                dataDoCursor = LocalDateTime.parse(partes[0]);
+                idDoCursor = Long.parseLong(partes[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor do extrato inválido.");
+            }
+        }
+        // Uma linha a mais só para saber se existe próxima página
+        List<TransacaoDTO> transacoes = completarComArquivo(numeroDaConta, transacaoRepository.buscarPaginaDoExtrato(
+                numeroDaConta, dataDoCursor, idDoCursor, tamanhoDaPagina + 1), dataDoCursor, idDoCursor, tamanhoDaPagina + 1);
+        String proximoCursor = null;
+        if (transacoes.size() > tamanhoDaPagina) {
+            transacoes = transacoes.subList(0, tamanhoDaPagina);
+            proximoCursor = cursorDe(transacoes.get(tamanhoDaPagina - 1));
+        }
+        return new PaginaDeTransacoes(transacoes, proximoCursor);
+    }
+
+    private CacheDoExtrato.Recentes carregarRecentes(Long numeroDaConta) {
+        verificarConta(numeroDaConta);
+        int itens = cacheDoExtrato.getItensPorConta();
+        List<TransacaoDTO> transacoes = completarComArquivo(numeroDaConta, transacaoRepository.buscarPaginaDoExtrato(
+                numeroDaConta, INICIO_DO_EXTRATO, Long.MAX_VALUE, itens + 1), INICIO_DO_EXTRATO, Long.MAX_VALUE, itens + 1);
+        return new CacheDoExtrato.Recentes(List.copyOf(transacoes.subList(0, Math.min(transacoes.size(), itens))),
+                transacoes.size() > itens);
+    }
+
+    // As transações arquivadas são mais antigas que as da tabela, então só são lidas quando a
+    // tabela não completa a página. Elas continuam de onde a tabela parou, o que também descarta
+    // as que ainda estão nas duas fontes (arquivamento interrompido antes de apagar as linhas).
+    private List<TransacaoDTO> completarComArquivo(Long numeroDaConta, List<TransacaoDTO> daTabela,
+                                                   LocalDateTime dataDoCursor, Long idDoCursor, int limite) {
+        if (daTabela.size() >= limite || arquivoDeTransacoes.estaVazio()) {
+            return daTabela;
+        }
+        if (!daTabela.isEmpty()) {
+            TransacaoDTO ultima = daTabela.get(daTabela.size() - 1);
+            dataDoCursor = ultima.getData();
+            idDoCursor = ultima.getId();
+        }
+        List<MovimentoArquivado> arquivados = arquivoDeTransacoes.buscarAntesDe(numeroDaConta, dataDoCursor,
+                idDoCursor, limite - daTabela.size());
+        if (arquivados.isEmpty()) {
+            return daTabela;
+        }
+        List<TransacaoDTO> transacoes = new ArrayList<>(daTabela);
+        transacoes.addAll(paraDTO(arquivados));
+        return transacoes;
     }
 
-    public List<TransacaoDTO> listarTransacoesDTODeposito(List<Transacao> todasTransacoes){
-        List<TransacaoDTO> transacoesDTO = todasTransacoes.stream()
-                .map(transacao -> {
-                    ContaDTO contaDTO = new ContaDTO();
-                    contaDTO.setNumeroDaConta(transacao.getContaDestinatario().getNumeroDaConta());
-                    contaDTO.setNome(transacao.getContaDestinatario().getNome());
-
-                    TransacaoDTO transacaoDTO = new TransacaoDTO();
-                    transacaoDTO.setTipo(transacao.getTipo());
-                    transacaoDTO.setContaRemetente(null);
-                    transacaoDTO.setContaDestinatario(contaDTO);
-                    transacaoDTO.setValor(transacao.getValor());
-                    transacaoDTO.setData(transacao.getData());
-
-                    return transacaoDTO;
-                })
-                .collect(Collectors.toList());
-
-        return transacoesDTO;
+    // O arquivo guarda só os números: os nomes são os atuais, como no join da consulta do extrato
+    private List<TransacaoDTO> paraDTO(List<MovimentoArquivado> arquivados) {
+        Set<Long> numeros = new HashSet<>();
+        for (MovimentoArquivado movimento : arquivados) {
+            numeros.add(movimento.conta());
+            if (movimento.remetente() != null) {
+                numeros.add(movimento.remetente());
+            }
+            if (movimento.destinatario() != null) {
+                numeros.add(movimento.destinatario());
+            }
+        }
+        Map<Long, String> nomes = new HashMap<>();
+        cacheDeContas.buscar(numeros).forEach((numero, dados) -> nomes.put(numero, dados.nome()));
+        List<TransacaoDTO> transacoes = new ArrayList<>(arquivados.size());
+        for (MovimentoArquivado movimento : arquivados) {
+            transacoes.add(new TransacaoDTO(movimento.id(), movimento.tipo(), movimento.valor(), movimento.data(),
+                    movimento.remetente(), nomes.get(movimento.remetente()),
+                    movimento.destinatario(), nomes.get(movimento.destinatario())));
+        }
+        return transacoes;
+    }
+
+    private String cursorDe(TransacaoDTO ultima) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (ultima.getData() + "|" + ultima.getId()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Totais por mês e saldo no fim de cada dia com movimento, lidos de tb_resumo_diario.
+    // Os saldos são calculados de trás para frente a partir do saldo atual da conta.
+    public ResumoDaConta resumir(Long numeroDaConta, LocalDate de, LocalDate ate) {
+        if (de.isAfter(ate)) {
+            throw new IllegalArgumentException("Período inválido: 'from' deve ser anterior ou igual a 'to'.");
+        }
+        // Também confere se a conta é do usuário logado
+        long saldo = contaService.buscarConta(numeroDaConta).getSaldo()
+                - resumoDiarioRepository.somarLiquidoDepoisDe(numeroDaConta, ate);
+        List<ResumoDiarioRepository.MovimentoDoDia> movimentos =
+                resumoDiarioRepository.buscarMovimentos(numeroDaConta, de, ate);
+
+        Map<String, ResumoMensal> meses = new LinkedHashMap<>();
+        for (ResumoDiarioRepository.MovimentoDoDia movimento : movimentos) {
+            YearMonth mes = YearMonth.from(movimento.getDia());
+            ResumoMensal resumo = meses.computeIfAbsent(mes + "|" + movimento.getTipo(),
+                    chave -> new ResumoMensal(mes, movimento.getTipo(), 0, 0, 0));
+            resumo.setEntradas(resumo.getEntradas() + movimento.getEntradas());
+            resumo.setSaidas(resumo.getSaidas() + movimento.getSaidas());
+            resumo.setQuantidade(resumo.getQuantidade() + movimento.getQuantidade());
+        }
+
+        List<SaldoDoDia> saldos = new ArrayList<>();
+        LocalDate dia = null;
+        for (int i = movimentos.size() - 1; i >= 0; i--) {
+            ResumoDiarioRepository.MovimentoDoDia movimento = movimentos.get(i);
+            if (!movimento.getDia().equals(dia)) {
+                dia = movimento.getDia();
+                saldos.add(new SaldoDoDia(dia, saldo));
+            }
+            saldo -= movimento.getEntradas() - movimento.getSaidas();
+        }
+        Collections.reverse(saldos);
+        return new ResumoDaConta(de, ate, saldo, new ArrayList<>(meses.values()), saldos);
     }
 
-    public List<Transacao> listarTransacoesSaque(Long numeroDaConta){
-        Conta conta = contaRepository.findById(numeroDaConta)
-                .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
-        return transacaoRepository.findByContaRemetenteAndTipo(conta, "SAQUE");
+    public void verificarConta(Long numeroDaConta) {
+        if (cacheDeContas.buscarNoBanco(numeroDaConta).isEmpty()) {
+            throw new RuntimeException("Conta não encontrada");
+        }
     }
 
-    public List<TransacaoDTO> listarTransacoesDTOSaque(List<Transacao> todasTransacoesSaque){
-        List<TransacaoDTO> transacoesDTO = todasTransacoesSaque.stream()
-                .map(transacao -> {
-                    ContaDTO contaDTO = new ContaDTO();
-                    contaDTO.setNumeroDaConta(transacao.getContaRemetente().getNumeroDaConta());
-                    contaDTO.setNome(transacao.getContaRemetente().getNome());
-
-                    TransacaoDTO transacaoDTO = new TransacaoDTO();
-                    transacaoDTO.setTipo(transacao.getTipo());
-                    transacaoDTO.setContaRemetente(contaDTO);
-                    transacaoDTO.setContaDestinatario(null);
-                    transacaoDTO.setValor(transacao.getValor());
-                    transacaoDTO.setData(transacao.getData());
-
-                    return transacaoDTO;
-                })
-                .collect(Collectors.toList());
-
-        return transacoesDTO;
+    // Escreve o extrato inteiro na saída conforme as linhas chegam do banco. Roda na thread da
+    // resposta (StreamingResponseBody), por isso abre a própria transação de leitura.
+    @Transactional(readOnly = true)
+    public void exportarExtrato(Long numeroDaConta, FormatoDoExtrato formato, OutputStream saida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        if (formato == FormatoDoExtrato.CSV) {
+            escritor.write("data,tipo,valor,conta_remetente,nome_remetente,conta_destinatario,nome_destinatario\n");
+        }
+        // Primeiro o arquivo (mais antigo), mês a mês; da tabela só o que vem depois dele
+        MovimentoArquivado[] ultimaArquivada = new MovimentoArquivado[1];
+        try {
+            arquivoDeTransacoes.percorrer(numeroDaConta, arquivados -> {
+                try {
+                    for (TransacaoDTO transacao : paraDTO(arquivados)) {
+                        escreverLinha(escritor, formato, transacao);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                ultimaArquivada[0] = arquivados.get(arquivados.size() - 1);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        try (Stream<TransacaoDTO> transacoes = transacaoRepository.exportarExtrato(numeroDaConta)) {
+            Iterator<TransacaoDTO> iterador = transacoes.iterator();
+            while (iterador.hasNext()) {
+                TransacaoDTO transacao = iterador.next();
+                if (ultimaArquivada[0] != null && !ultimaArquivada[0].antesDe(transacao.getData(), transacao.getId())) {
+                    continue;
+                }
+                escreverLinha(escritor, formato, transacao);
+            }
+        }
+        escritor.flush();
     }
 
-    public List<Transacao> listarTransacoesTransferencia(Long numeroDaConta){
-        Conta conta = contaRepository.findById(numeroDaConta)
-                .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
-        List<Transacao> todasTransacoesTransferencia = new ArrayList<>();
-        todasTransacoesTransferencia.addAll(transacaoRepository.findByContaDestinatario(conta));
-        todasTransacoesTransferencia.addAll(transacaoRepository.findByContaRemetente(conta));
-        return todasTransacoesTransferencia;
+    private void escreverLinha(Writer escritor, FormatoDoExtrato formato, TransacaoDTO transacao) throws IOException {
+        escritor.write(formato == FormatoDoExtrato.CSV ? linhaCsv(transacao) : objectMapper.writeValueAsString(transacao));
+        escritor.write('\n');
     }
 
-    public List<TransacaoDTO> listarTransacoesDTOTransferencia(List<Transacao> todasTransacoesTransferencia){
-        return todasTransacoesTransferencia.stream()
-            .filter(t -> t.getTipo().equals("TRANSFERENCIA"))
-                .map(t -> {
-                    TransacaoDTO dto = new TransacaoDTO();
-                    dto.setTipo(t.getTipo());
-                    dto.setValor(t.getValor());
-                    dto.setData(t.getData());
-
-                    ContaDTO cr = new ContaDTO();
-                    cr.setNumeroDaConta(t.getContaRemetente().getNumeroDaConta());
-                    cr.setNome(t.getContaRemetente().getNome());
-                    dto.setContaRemetente(cr);
-
-                    ContaDTO cd = new ContaDTO();
-                    cd.setNumeroDaConta(t.getContaDestinatario().getNumeroDaConta());
-                    cd.setNome(t.getContaDestinatario().getNome());
-                    dto.setContaDestinatario(cd);
-
-                    return dto;
-                })
-                .collect(Collectors.toList());
+    private String linhaCsv(TransacaoDTO transacao) {
+        ContaDTO remetente = transacao.getContaRemetente();
+        ContaDTO destinatario = transacao.getContaDestinatario();
+        return String.join(",",
+                transacao.getData().toString(),
+                transacao.getTipo(),
+                Centavos.paraReais(transacao.getValor()).toPlainString(),
+                remetente == null ? "" : remetente.getNumeroDaConta().toString(),
+                remetente == null ? "" : campoCsv(remetente.getNome()),
+                destinatario == null ? "" : destinatario.getNumeroDaConta().toString(),
+                destinatario == null ? "" : campoCsv(destinatario.getNome()));
     }
 
-    public List<TransacaoDTO> listarTodasAsTransacoes(Long numeroDaConta){
-        List<Transacao> transacoesDeposito = listarTransacoesDeposito(numeroDaConta);
-        List<TransacaoDTO> transacoesDepositoDTO = listarTransacoesDTODeposito(transacoesDeposito);
-        List<Transacao> transacoesSaque = listarTransacoesSaque(numeroDaConta);
-        List<TransacaoDTO> transacoesSaqueDTO = listarTransacoesDTOSaque(transacoesSaque);
-        List<Transacao> transacoesTransferencia = listarTransacoesTransferencia(numeroDaConta);
-        List<TransacaoDTO> transacoesTransferenciaDTO = listarTransacoesDTOTransferencia(transacoesTransferencia);
-        List<TransacaoDTO> todasAsTransacoes = new ArrayList<>();
-        todasAsTransacoes.addAll(transacoesDepositoDTO);
-        todasAsTransacoes.addAll(transacoesSaqueDTO);
-        todasAsTransacoes.addAll(transacoesTransferenciaDTO);
-        return todasAsTransacoes.stream()
-                .sorted(Comparator.comparing(TransacaoDTO::getData).reversed()) // Ordena por data
-                .collect(Collectors.toList());
+    // Nomes são livres: aspas, vírgula ou quebra de linha obrigam a colocar o campo entre aspas
+    private String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.contains(",") || valor.contains("\"") || valor.contains("\n") || valor.contains("\r")) {
+            return "\"" + valor.replace("\"", "\"\"") + "\"";
+        }
+        return valor;
     }
 }
@@ -0,0 +1,99 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.simuladorbanco.BancoDigital.exception.MuitasRequisicoesException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+// Limite de tentativas de login por e-mail (adivinhação de senha de uma conta) e por IP (um
+// cliente tentando várias contas), com um balde de fichas para cada um: cabe uma rajada do
+// tamanho da capacidade e depois as fichas voltam aos poucos. Recusa com 429 antes do BCrypt.
+// Métrica banco.login.limitados, com tag "por" (email ou ip).
+@Service
+public class LimiteDeLogin {
+
+    private static final class Balde {
+        double fichas;
+        long ultimaRecarga;
+    }
+
+    private record Regra(String nome, int capacidade, double fichasPorNano) {
+
+        Regra(String nome, int capacidade, int porMinuto) {
+            this(nome, capacidade, porMinuto / (double) Duration.ofMinutes(1).toNanos());
+        }
+    }
+
+    private final Regra porEmail;
+    private final Regra porIp;
+    private final MeterRegistry registry;
+    private final LongSupplier relogio;
+    // Balde parado há uma hora já estaria cheio de novo: pode sair do cache
+    private final Cache<String, Balde> baldes = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    @Autowired
+    public LimiteDeLogin(@Value("${banco.login.limite.email.capacidade:5}") int capacidadePorEmail,
+                         @Value("${banco.login.limite.email.por-minuto:5}") int porMinutoPorEmail,
+                         @Value("${banco.login.limite.ip.capacidade:30}") int capacidadePorIp,
+                         @Value("${banco.login.limite.ip.por-minuto:60}") int porMinutoPorIp,
+                         MeterRegistry registry) {
+        this(new Regra("email", capacidadePorEmail, porMinutoPorEmail),
+                new Regra("ip", capacidadePorIp, porMinutoPorIp), registry, System::nanoTime);
+    }
+
+    LimiteDeLogin(int capacidadePorEmail, int porMinutoPorEmail, int capacidadePorIp, int porMinutoPorIp,
+                  MeterRegistry registry, LongSupplier relogio) {
+        this(new Regra("email", capacidadePorEmail, porMinutoPorEmail),
+                new Regra("ip", capacidadePorIp, porMinutoPorIp), registry, relogio);
+    }
+
+    private LimiteDeLogin(Regra porEmail, Regra porIp, MeterRegistry registry, LongSupplier relogio) {
+        this.porEmail = porEmail;
+        this.porIp = porIp;
+        this.registry = registry;
+        this.relogio = relogio;
+    }
+
+    public void verificar(String email, String ip) {
+        consumir(porIp, ip == null ? "" : ip);
+        consumir(porEmail, email == null ? "" : email.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private void consumir(Regra regra, String chave) {
+        if (regra.capacidade() <= 0) {
+            return;
+        }
+        Balde balde = baldes.get(regra.nome() + ":" + chave, k -> {
+            Balde novo = new Balde();
+            novo.fichas = regra.capacidade();
+            novo.ultimaRecarga = relogio.getAsLong();
+            return novo;
+        });
+        double faltam;
+        synchronized (balde) {
+            long agora = relogio.getAsLong();
+            balde.fichas = Math.min(regra.capacidade(),
+                    balde.fichas + (agora - balde.ultimaRecarga) * regra.fichasPorNano());
+            balde.ultimaRecarga = agora;
+            if (balde.fichas >= 1) {
+                balde.fichas -= 1;
+                return;
+            }
+            faltam = 1 - balde.fichas;
+        }
+        registry.counter("banco.login.limitados", "por", regra.nome()).increment();
+        long segundos = (long) Math.ceil(faltam / regra.fichasPorNano() / Duration.ofSeconds(1).toNanos());
+        throw new MuitasRequisicoesException("Muitas tentativas de login. Tente novamente mais tarde.",
+                Math.max(segundos, 1));
+    }
+}
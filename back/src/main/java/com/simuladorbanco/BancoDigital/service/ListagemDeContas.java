@@ -0,0 +1,86 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simuladorbanco.BancoDigital.dtos.ContaListadaDTO;
+import com.simuladorbanco.BancoDigital.dtos.PaginaDeContas;
+import com.simuladorbanco.BancoDigital.repository.ContaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+// Listagem de contas da administração (GET /conta/listartodas): páginas por keyset no número da
+// conta, com a projeção ContaListadaDTO em vez das entidades, e exportação completa em NDJSON
+// lida do banco como Stream. Nenhum dos dois guarda todas as contas em memória.
+@Service
+public class ListagemDeContas {
+
+    private static final int TAMANHO_MAXIMO_DA_PAGINA = 500;
+
+    @Autowired
+    ContaRepository contaRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${banco.contas.listagem.tamanho-pagina:100}")
+    private int tamanhoPadraoDaPagina = 100;
+
+    // O cursor é o número da última conta da página anterior
+    public PaginaDeContas listar(String cursor, Integer tamanho, String nome, String email) {
+        int tamanhoDaPagina = tamanho == null ? tamanhoPadraoDaPagina : Math.min(Math.max(tamanho, 1), TAMANHO_MAXIMO_DA_PAGINA);
+        long depoisDe = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                depoisDe = Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor da listagem inválido.");
+            }
+        }
+        // Uma linha a mais só para saber se existe próxima página
+        List<ContaListadaDTO> contas = contaRepository.listarPagina(depoisDe, padrao(nome), padrao(email),
+                Limit.of(tamanhoDaPagina + 1));
+        String proximoCursor = null;
+        if (contas.size() > tamanhoDaPagina) {
+            contas = contas.subList(0, tamanhoDaPagina);
+            proximoCursor = contas.get(tamanhoDaPagina - 1).getNumeroDaConta().toString();
+        }
+        return new PaginaDeContas(contas, proximoCursor);
+    }
+
+    // Roda na thread da resposta (StreamingResponseBody), por isso abre a própria transação de leitura
+    @Transactional(readOnly = true)
+    public void exportar(String nome, String email, OutputStream saida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        try (Stream<ContaListadaDTO> contas = contaRepository.exportar(0L, padrao(nome), padrao(email))) {
+            Iterator<ContaListadaDTO> iterador = contas.iterator();
+            while (iterador.hasNext()) {
+                escritor.write(objectMapper.writeValueAsString(iterador.next()));
+                escritor.write('\n');
+            }
+        }
+        escritor.flush();
+    }
+
+    // Filtro "contém", sem diferenciar maiúsculas; % e _ digitados valem como texto
+    private String padrao(String filtro) {
+        if (filtro == null || filtro.isBlank()) {
+            return null;
+        }
+        String escapado = filtro.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + escapado + "%";
+    }
+}
@@ -0,0 +1,10 @@
+package com.simuladorbanco.BancoDigital.service;
+
+// Como ContaService altera saldos (propriedade banco.concorrencia.modo).
+public enum ModoConcorrencia {
+    // UPDATE condicional direto no banco; a linha fica travada só até o commit
+    ATOMICO,
+    // Lê a conta, altera em memória e grava conferindo a @Version; nenhum lock é mantido
+    // e a operação é repetida quando outra transação gravou a conta antes
+    OTIMISTA
+}
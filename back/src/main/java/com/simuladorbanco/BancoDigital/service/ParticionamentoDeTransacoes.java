@@ -0,0 +1,66 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+// Modo opcional (banco.transacao.particionamento.habilitado=true, só PostgreSQL): tb_transacao
+// particionada por mês de data. As consultas do extrato com limite de data só abrem as partições
+// do período, e vacuum e índices trabalham no mês corrente em vez da tabela inteira.
+// O DDL fica nas funções das migrations V5 e V7; aqui só se decide quando chamá-las.
+@Component
+@ConditionalOnProperty(prefix = "banco.transacao.particionamento", name = "habilitado", havingValue = "true")
+public class ParticionamentoDeTransacoes {
+
+    private static final Logger log = LoggerFactory.getLogger(ParticionamentoDeTransacoes.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int mesesAFrente;
+    private final int mesesRetidos;
+
+    public ParticionamentoDeTransacoes(JdbcTemplate jdbcTemplate,
+                                       @Value("${banco.transacao.particionamento.meses-a-frente:3}") int mesesAFrente,
+                                       @Value("${banco.transacao.particionamento.meses-retidos:0}") int mesesRetidos) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mesesAFrente = mesesAFrente;
+        this.mesesRetidos = mesesRetidos;
+    }
+
+    @PostConstruct
+    void iniciar() {
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT particionar_tb_transacao()", Boolean.class))) {
+            log.info("tb_transacao convertida em tabela particionada por mês");
+        }
+        manterParticoes();
+    }
+
+    // Partições criadas com antecedência: sem partição para a data, o INSERT da transação falha
+    @Scheduled(cron = "${banco.transacao.particionamento.cron:0 0 3 * * *}")
+    public void manterParticoes() {
+        LocalDate mesCorrente = LocalDate.now().withDayOfMonth(1);
+        for (int i = 1; i <= mesesAFrente; i++) {
+            LocalDate mes = mesCorrente.plusMonths(i);
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT criar_particao_transacao(?)",
+                    Boolean.class, Date.valueOf(mes)))) {
+                log.info("Partição de {} criada em tb_transacao", mes);
+            }
+        }
+        // 0 mantém todas: a partição desanexada some do extrato e da exportação
+        if (mesesRetidos > 0) {
+            List<String> desanexadas = jdbcTemplate.queryForList("SELECT desanexar_particoes_transacao(?)",
+                    String.class, Date.valueOf(mesCorrente.minusMonths(mesesRetidos)));
+            if (!desanexadas.isEmpty()) {
+                log.info("Partições desanexadas de tb_transacao: {}", desanexadas);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+
+// Texto do QR Code PIX: versão, conta de destino, valor em centavos e expiração (segundos desde
+// 1970, 0 para o código estático) em varints, seguidos de 16 bytes de HMAC-SHA256 com a chave
+// banco.pix.chave, tudo em Base32. Sai com uns 45 caracteres do modo alfanumérico em vez de um
+// JSON de mais de 100 em modo byte, e quem paga não consegue trocar conta nem valor sem invalidar
+// a assinatura. O nome do destinatário não vai no código: /pix/ler busca pela conta.
+@Component
+public class PayloadPix {
+
+    private static final byte VERSAO = 1;
+    private static final int TAMANHO_DA_ASSINATURA = 16;
+    // Versão + três varints de até 10 bytes + assinatura
+    private static final int TAMANHO_MAXIMO = 1 + 3 * 10 + TAMANHO_DA_ASSINATURA;
+
+    public record Cobranca(long numeroContaDestinatario, long valor, Instant expiracao) {
+
+        public boolean estatica() {
+            return expiracao == null;
+        }
+    }
+
+    // Mac não é thread-safe; um por thread evita o getInstance/init a cada código
+    private final ThreadLocal<Mac> macs;
+
+    public PayloadPix(@Value("${banco.pix.chave}") String chave) {
+        if (chave == null || chave.isBlank()) {
+            throw new IllegalStateException("banco.pix.chave não configurada");
+        }
+        SecretKeySpec chaveHmac = new SecretKeySpec(chave.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(chaveHmac);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    // expiracao null: código estático, vale até a chave mudar
+    public String gerar(long numeroContaDestinatario, long valor, Instant expiracao) {
+        if (numeroContaDestinatario <= 0 || valor <= 0) {
+            throw new IllegalArgumentException("Conta e valor do PIX devem ser positivos.");
+        }
+        byte[] dados = new byte[TAMANHO_MAXIMO];
+        dados[0] = VERSAO;
+        int posicao = escreverVarint(dados, 1, numeroContaDestinatario);
+        posicao = escreverVarint(dados, posicao, valor);
+        posicao = escreverVarint(dados, posicao, expiracao == null ? 0 : expiracao.getEpochSecond());
+        byte[] assinatura = assinar(dados, posicao);
+        System.arraycopy(assinatura, 0, dados, posicao, TAMANHO_DA_ASSINATURA);
+        return Base32.codificar(dados, posicao + TAMANHO_DA_ASSINATURA);
+    }
+
+    // Qualquer texto que não seja um código nosso, íntegro e da versão conhecida é recusado
+    public Cobranca ler(String texto) {
+        texto = texto == null ? "" : texto.trim();
+        // Códigos em JSON, anteriores a este formato, não são aceitos, nem os estáticos, que não expiravam
+        if (texto.startsWith("{")) {
+            throw new IllegalArgumentException("QR Code PIX no formato antigo, que não é mais aceito. "
+                    + "Peça um código novo ao recebedor.");
+        }
+        if (texto.isEmpty() || texto.length() > (TAMANHO_MAXIMO * 8 + 4) / 5) {
+            throw new IllegalArgumentException("QR Code PIX inválido.");
+        }
+        byte[] dados;
+        try {
+            dados = Base32.decodificar(texto);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("QR Code PIX inválido.");
+        }
+        int semAssinatura = dados.length - TAMANHO_DA_ASSINATURA;
+        if (semAssinatura < 4 || dados[0] != VERSAO) {
+            throw new IllegalArgumentException("QR Code PIX inválido.");
+        }
+        // Comparação em tempo constante
+        if (!MessageDigest.isEqual(Arrays.copyOf(assinar(dados, semAssinatura), TAMANHO_DA_ASSINATURA),
+                Arrays.copyOfRange(dados, semAssinatura, dados.length))) {
+            throw new IllegalArgumentException("QR Code PIX adulterado ou de outro emissor.");
+        }
+        long[] campos = new long[3];
+        int posicao = 1;
+        for (int i = 0; i < campos.length; i++) {
+            long valor = 0;
+            int deslocamento = 0;
+            byte atual;
+            do {
+                if (posicao >= semAssinatura || deslocamento > 63) {
+                    throw new IllegalArgumentException("QR Code PIX inválido.");
+                }
+                atual = dados[posicao++];
+                valor |= (long) (atual & 0x7f) << deslocamento;
+                deslocamento += 7;
+            } while ((atual & 0x80) != 0);
+            campos[i] = valor;
+        }
+        if (posicao != semAssinatura) {
+            throw new IllegalArgumentException("QR Code PIX inválido.");
+        }
+        return new Cobranca(campos[0], campos[1], campos[2] == 0 ? null : Instant.ofEpochSecond(campos[2]));
+    }
+
+    private byte[] assinar(byte[] dados, int tamanho) {
+        Mac mac = macs.get();
+        mac.update(dados, 0, tamanho);
+        return mac.doFinal();
+    }
+
+    // 7 bits por byte, o bit alto diz que tem mais
+    private static int escreverVarint(byte[] destino, int posicao, long valor) {
+        while ((valor & ~0x7fL) != 0) {
+            destino[posicao++] = (byte) ((valor & 0x7f) | 0x80);
+            valor >>>= 7;
+        }
+        destino[posicao++] = (byte) valor;
+        return posicao;
+    }
+}
@@ -1,19 +1,20 @@
 package com.simuladorbanco.BancoDigital.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simuladorbanco.BancoDigital.config.ContasDoToken;
 import com.simuladorbanco.BancoDigital.dtos.TransacaoDTO;
 import com.simuladorbanco.BancoDigital.dtos.TransferenciaRequest;
-import com.simuladorbanco.BancoDigital.model.Conta;
+import com.simuladorbanco.BancoDigital.model.Centavos;
 import com.simuladorbanco.BancoDigital.model.Transacao;
-import com.simuladorbanco.BancoDigital.repository.ContaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,31 +25,17 @@ public class PixService {
     private QrCodeService qrCodeService;
 
     @Autowired
-    private ContaRepository contaRepository;
+    private PayloadPix payloadPix;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private ContaService contaService;
 
     @Autowired
-    private ContaService contaService;
+    private CacheDeContas cacheDeContas;
 
     public Map<String, String> gerarQrCodePix(Long numeroContaDestinatario, BigDecimal valor) {
         try {
-            Conta contaDestinatario = contaRepository.findById(numeroContaDestinatario)
-                    .orElseThrow(() -> new RuntimeException("Conta destino não encontrada"));
-            String usuarioLogado = SecurityContextHolder.getContext().getAuthentication().getName();
-            if (!contaDestinatario.getEmail().equals(usuarioLogado)) {
-                throw new AccessDeniedException("Operação negada: Você não tem permissão de gerar QrCode nessa conta.");
-            }
-            LocalDateTime dataExpiracao = LocalDateTime.now().plusMinutes(30);
-
-            Map<String, Object> payloadMap = new HashMap<>();
-            payloadMap.put("nomeDestinatario", contaDestinatario.getNome());
-            payloadMap.put("numeroContaDestinatario", numeroContaDestinatario);
-            payloadMap.put("valor", valor);
-            payloadMap.put("expiracao", dataExpiracao.toString());
-
-            String payloadPix = objectMapper.writeValueAsString(payloadMap);
+            String payloadPix = montarPayload(numeroContaDestinatario, valor, true);
 
             // Manda desenhar a imagem
             String imagemBase64 = qrCodeService.gerarQrCodeBase64(payloadPix, 300, 300);
@@ -63,26 +50,74 @@ public class PixService {
         }
     }
 
+    // Mesma cobrança, mas a imagem vai direto para a resposta (PNG ou SVG), sem Base64 nem JSON.
+    // Estático: sem expiração, o mesmo texto toda vez (o cartaz do caixa), e o PNG sai do cache
+    public CobrancaPix gerarImagemPix(Long numeroContaDestinatario, BigDecimal valor, boolean estatico,
+                                      FormatoDoQrCode formato, int tamanho, String correcao) {
+        String payloadPix = montarPayload(numeroContaDestinatario, valor, !estatico);
+        QrCodeService.ImagemQrCode imagem;
+        if (formato == FormatoDoQrCode.SVG) {
+            imagem = qrCodeService.svg(payloadPix, tamanho, correcao);
+        } else if (estatico) {
+            imagem = qrCodeService.pngEstatico(payloadPix, tamanho, correcao);
+        } else {
+            imagem = qrCodeService.png(payloadPix, tamanho, correcao);
+        }
+        return new CobrancaPix(payloadPix, imagem);
+    }
+
+    public record CobrancaPix(String conteudo, QrCodeService.ImagemQrCode imagem) { }
+
+    // Leitura do código antes de pagar, para a tela de confirmação: só devolve o que a assinatura garante
+    public Map<String, Object> lerQrCodePix(String conteudoQrCode) {
+        PayloadPix.Cobranca cobranca = payloadPix.ler(conteudoQrCode);
+        CacheDeContas.DadosDaConta contaDestinatario = cacheDeContas.buscar(cobranca.numeroContaDestinatario())
+                .orElseThrow(() -> new RuntimeException("Conta destino não encontrada"));
+
+        Map<String, Object> dados = new HashMap<>();
+        dados.put("nomeDestinatario", contaDestinatario.nome());
+        dados.put("numeroContaDestinatario", cobranca.numeroContaDestinatario());
+        dados.put("valor", Centavos.paraReais(cobranca.valor()));
+        dados.put("expiracao", cobranca.estatica() ? null
+                : LocalDateTime.ofInstant(cobranca.expiracao(), ZoneId.systemDefault()).toString());
+        return dados;
+    }
+
+    // Conferência de dono: do banco, não do cache (o e-mail pode ter mudado em outra instância)
+    private String montarPayload(Long numeroContaDestinatario, BigDecimal valor, boolean comExpiracao) {
+        CacheDeContas.DadosDaConta contaDestinatario = cacheDeContas.buscarNoBanco(numeroContaDestinatario)
+                .orElseThrow(() -> new RuntimeException("Conta destino não encontrada"));
+        String usuarioLogado = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (!contaDestinatario.email().equals(usuarioLogado)) {
+            throw new AccessDeniedException("Operação negada: Você não tem permissão de gerar QrCode nessa conta.");
+        }
+
+        // Valida o valor (duas casas no máximo); no código ele vai em centavos
+        long valorEmCentavos = Centavos.deReais(valor);
+        return payloadPix.gerar(numeroContaDestinatario, valorEmCentavos,
+                comExpiracao ? Instant.now().plus(Duration.ofMinutes(30)) : null);
+    }
+
     public TransacaoDTO pagarQrCodePix(Long numeroContaRemetente, String conteudoQrCode) {
         try {
-            Conta contaRemetente = contaRepository.findById(numeroContaRemetente).
-                    orElseThrow(() -> new RuntimeException("Conta não encontrado"));
-            String usuarioLogado = SecurityContextHolder.getContext().getAuthentication().getName();
-            if (!contaRemetente.getEmail().equals(usuarioLogado)) {
-                throw new AccessDeniedException("Operação negada: Você não tem permissão de realizar transaçoes nessa conta.");
+            // Com o claim "contas" o token já provou o dono; o débito da transferência confere de novo
+            if (!ContasDoToken.confirmaDono(numeroContaRemetente)) {
+                CacheDeContas.DadosDaConta contaRemetente = cacheDeContas.buscarNoBanco(numeroContaRemetente).
+                        orElseThrow(() -> new RuntimeException("Conta não encontrado"));
+                String usuarioLogado = SecurityContextHolder.getContext().getAuthentication().getName();
+                if (!contaRemetente.email().equals(usuarioLogado)) {
+                    throw new AccessDeniedException("Operação negada: Você não tem permissão de realizar transaçoes nessa conta.");
+                }
             }
-            JsonNode jsonNode = objectMapper.readTree(conteudoQrCode);
-            Long numeroContaDestinatario = jsonNode.get("numeroContaDestinatario").asLong();
-            double valorPix = jsonNode.get("valor").asDouble();
-            String expiracaoStr = jsonNode.get("expiracao").asText();
-            LocalDateTime dataExpiracao = LocalDateTime.parse(expiracaoStr);
-            if (LocalDateTime.now().isAfter(dataExpiracao)) {
+            // Conta e valor só saem de um código com a assinatura conferida; o estático não expira
+            PayloadPix.Cobranca cobranca = payloadPix.ler(conteudoQrCode);
+            if (!cobranca.estatica() && Instant.now().isAfter(cobranca.expiracao())) {
                 throw new RuntimeException("Este QR Code do PIX já expirou!");
             }
 
             TransferenciaRequest request = new TransferenciaRequest();
-            request.setValor(valorPix);
-            request.setNumeroContaDestinatario(numeroContaDestinatario);
+            request.setValor(cobranca.valor());
+            request.setNumeroContaDestinatario(cobranca.numeroContaDestinatario());
 
             return contaService.transferencia(request,numeroContaRemetente);
 
@@ -0,0 +1,149 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// PNG em tons de cinza de 1 bit escrito direto dos módulos do QR Code, sem BufferedImage nem
+// ImageIO. A imagem sai igual à do MatrixToImageWriter com o BitMatrix no tamanho pedido (mesma
+// escala inteira e mesma margem), mas cada pixel ocupa 1 bit em vez de um int. As linhas que
+// repetem a de cima (cada módulo tem "multiplo" linhas) vão com o filtro Up, só zeros.
+final class PngDeUmBit {
+
+    private static final byte[] ASSINATURA = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final byte FILTRO_NENHUM = 0;
+    private static final byte FILTRO_UP = 2;
+
+    // Deflater e buffers reaproveitados por thread: o Deflater segura memória nativa, e o pool do
+    // Tomcat já limita quantas threads existem
+    private static final class Buffers {
+        final Deflater deflater = new Deflater();
+        final CRC32 crc = new CRC32();
+        byte[] linha = new byte[0];
+        byte[] repetida = new byte[0];
+        byte[] comprimido = new byte[8192];
+        int usados;
+    }
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private PngDeUmBit() {
+    }
+
+    // "modulos" é o QR Code com a margem, um bit por módulo (QRCodeWriter com tamanho 0)
+    static byte[] escrever(BitMatrix modulos, int largura, int altura) {
+        int colunas = modulos.getWidth();
+        int linhas = modulos.getHeight();
+        // Mesmas contas do QRCodeWriter.renderResult: nunca menor que o código, escala inteira, centralizado
+        largura = Math.max(largura, colunas);
+        altura = Math.max(altura, linhas);
+        int multiplo = Math.min(largura / colunas, altura / linhas);
+        int esquerda = (largura - colunas * multiplo) / 2;
+        int topo = (altura - linhas * multiplo) / 2;
+
+        Buffers buffers = BUFFERS.get();
+        int bytesPorLinha = 1 + (largura + 7) / 8;
+        if (buffers.linha.length < bytesPorLinha) {
+            buffers.linha = new byte[bytesPorLinha];
+            buffers.repetida = new byte[bytesPorLinha];
+            buffers.repetida[0] = FILTRO_UP;
+        }
+        Deflater deflater = buffers.deflater;
+        deflater.reset();
+        buffers.usados = 0;
+
+        if (topo > 0) {
+            linhaBranca(buffers, bytesPorLinha);
+            comprimir(buffers, buffers.linha, bytesPorLinha);
+            repetir(buffers, bytesPorLinha, topo - 1);
+        }
+        for (int y = 0; y < linhas; y++) {
+            linhaBranca(buffers, bytesPorLinha);
+            for (int x = 0; x < colunas; x++) {
+                if (modulos.get(x, y)) {
+                    escurecer(buffers.linha, esquerda + x * multiplo, multiplo);
+                }
+            }
+            comprimir(buffers, buffers.linha, bytesPorLinha);
+            repetir(buffers, bytesPorLinha, multiplo - 1);
+        }
+        int base = altura - topo - linhas * multiplo;
+        if (base > 0) {
+            linhaBranca(buffers, bytesPorLinha);
+            comprimir(buffers, buffers.linha, bytesPorLinha);
+            repetir(buffers, bytesPorLinha, base - 1);
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            drenar(buffers);
+        }
+
+        byte[] png = new byte[ASSINATURA.length + (12 + 13) + (12 + buffers.usados) + 12];
+        System.arraycopy(ASSINATURA, 0, png, 0, ASSINATURA.length);
+        byte[] cabecalho = new byte[13];
+        escreverInt(cabecalho, 0, largura);
+        escreverInt(cabecalho, 4, altura);
+        cabecalho[8] = 1;  // 1 bit por pixel
+        cabecalho[9] = 0;  // tons de cinza
+        int posicao = bloco(png, ASSINATURA.length, "IHDR", cabecalho, cabecalho.length, buffers.crc);
+        posicao = bloco(png, posicao, "IDAT", buffers.comprimido, buffers.usados, buffers.crc);
+        bloco(png, posicao, "IEND", cabecalho, 0, buffers.crc);
+        return png;
+    }
+
+    // Bit 1 é branco; os bits que sobram no último byte também ficam brancos
+    private static void linhaBranca(Buffers buffers, int bytesPorLinha) {
+        buffers.linha[0] = FILTRO_NENHUM;
+        Arrays.fill(buffers.linha, 1, bytesPorLinha, (byte) 0xff);
+    }
+
+    private static void escurecer(byte[] linha, int inicio, int quantidade) {
+        for (int pixel = inicio; pixel < inicio + quantidade; pixel++) {
+            linha[1 + (pixel >> 3)] &= (byte) ~(0x80 >>> (pixel & 7));
+        }
+    }
+
+    private static void repetir(Buffers buffers, int bytesPorLinha, int vezes) {
+        for (int i = 0; i < vezes; i++) {
+            comprimir(buffers, buffers.repetida, bytesPorLinha);
+        }
+    }
+
+    // O Deflater guarda a referência do array: tem de consumir tudo antes de a linha ser reescrita
+    private static void comprimir(Buffers buffers, byte[] dados, int tamanho) {
+        buffers.deflater.setInput(dados, 0, tamanho);
+        while (!buffers.deflater.needsInput()) {
+            drenar(buffers);
+        }
+    }
+
+    private static void drenar(Buffers buffers) {
+        if (buffers.usados == buffers.comprimido.length) {
+            buffers.comprimido = Arrays.copyOf(buffers.comprimido, buffers.comprimido.length * 2);
+        }
+        buffers.usados += buffers.deflater.deflate(buffers.comprimido, buffers.usados,
+                buffers.comprimido.length - buffers.usados);
+    }
+
+    // Tamanho, tipo, dados e CRC do tipo + dados
+    private static int bloco(byte[] png, int posicao, String tipo, byte[] dados, int tamanho, CRC32 crc) {
+        escreverInt(png, posicao, tamanho);
+        byte[] bytesDoTipo = tipo.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytesDoTipo, 0, png, posicao + 4, 4);
+        System.arraycopy(dados, 0, png, posicao + 8, tamanho);
+        crc.reset();
+        crc.update(png, posicao + 4, 4 + tamanho);
+        escreverInt(png, posicao + 8 + tamanho, (int) crc.getValue());
+        return posicao + 12 + tamanho;
+    }
+
+    private static void escreverInt(byte[] destino, int posicao, int valor) {
+        destino[posicao] = (byte) (valor >>> 24);
+        destino[posicao + 1] = (byte) (valor >>> 16);
+        destino[posicao + 2] = (byte) (valor >>> 8);
+        destino[posicao + 3] = (byte) valor;
+    }
+}
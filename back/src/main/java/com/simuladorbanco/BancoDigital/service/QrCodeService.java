@@ -1,28 +1,67 @@
 package com.simuladorbanco.BancoDigital.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.zxing.BarcodeFormat;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
 
+// PNG pelo PngDeUmBit (1 bit por pixel, sem BufferedImage). Os códigos estáticos (sem expiração,
+// o mesmo texto toda vez) ficam prontos num cache limitado em bytes, com chave pelo SHA-256 do
+// texto + tamanho + correção. Métricas com a tag cache=pix.qrcode.
 @Service
 public class QrCodeService {
 
-    public String gerarQrCodeBase64(String textoParaEsconder, int largura, int altura) {
-        try {
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
+    public static final int TAMANHO_MINIMO = 64;
+    public static final int TAMANHO_MAXIMO = 2000;
+
+    // Não guarda estado entre chamadas: uma instância serve todas as threads
+    private static final QRCodeWriter ESCRITOR = new QRCodeWriter();
+
+    private final Cache<ByteBuffer, byte[]> pngsEstaticos;
+
+    public QrCodeService(@Value("${banco.pix.qrcode.cache-kb:16384}") long cacheKb, MeterRegistry meterRegistry) {
+        this.pngsEstaticos = Caffeine.newBuilder()
+                .maximumWeight(cacheKb * 1024)
+                .<ByteBuffer, byte[]>weigher((chave, png) -> png.length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, pngsEstaticos, "pix.qrcode");
+    }
 
-            BitMatrix bitMatrix = qrCodeWriter.encode(textoParaEsconder, BarcodeFormat.QR_CODE, largura, altura);
+    // Imagem pronta para ser escrita na resposta: o QR Code já foi calculado, só falta serializar
+    public interface ImagemQrCode {
+        String getTipoDeConteudo();
 
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        void escrever(OutputStream saida) throws IOException;
+    }
 
-            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
+    public String gerarQrCodeBase64(String textoParaEsconder, int largura, int altura) {
+        try {
+            // Correção L, a padrão do ZXing: a mesma imagem de antes
+            BitMatrix modulos = codificar(textoParaEsconder, ErrorCorrectionLevel.L);
 
-            byte[] imagemBytes = outputStream.toByteArray();
+            byte[] imagemBytes = PngDeUmBit.escrever(modulos, largura, altura);
             String base64Image = Base64.getEncoder().encodeToString(imagemBytes);
             return "data:image/png;base64," + base64Image;
 
@@ -30,4 +69,107 @@ public class QrCodeService {
             throw new RuntimeException("Erro ao gerar o QR Code: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    public ImagemQrCode png(String texto, int tamanho, String correcao) {
+        validarTamanho(tamanho);
+        return png(PngDeUmBit.escrever(codificar(texto, nivelDeCorrecao(correcao)), tamanho, tamanho));
+    }
+
+    // Só para texto que não muda (código sem expiração): o PNG sai pronto do cache
+    public ImagemQrCode pngEstatico(String texto, int tamanho, String correcao) {
+        validarTamanho(tamanho);
+        ErrorCorrectionLevel nivel = nivelDeCorrecao(correcao);
+        return png(pngsEstaticos.get(chave(texto, tamanho, nivel),
+                k -> PngDeUmBit.escrever(codificar(texto, nivel), tamanho, tamanho)));
+    }
+
+    private ImagemQrCode png(byte[] bytes) {
+        return new ImagemQrCode() {
+            public String getTipoDeConteudo() {
+                return "image/png";
+            }
+
+            public void escrever(OutputStream saida) throws IOException {
+                saida.write(bytes);
+            }
+        };
+    }
+
+    // SVG vetorial montado dos módulos (uma unidade do viewBox por módulo, com a margem de 4):
+    // o tamanho vira só largura/altura do elemento, e o arquivo não cresce com ele
+    public ImagemQrCode svg(String texto, int tamanho, String correcao) {
+        int largura = validarTamanho(tamanho);
+        BitMatrix modulos = codificar(texto, nivelDeCorrecao(correcao));
+        return new ImagemQrCode() {
+            public String getTipoDeConteudo() {
+                return "image/svg+xml";
+            }
+
+            public void escrever(OutputStream saida) throws IOException {
+                Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+                escreverSvg(modulos, largura, escritor);
+                escritor.flush();
+            }
+        };
+    }
+
+    // Cada sequência de módulos escuros de uma linha vira um retângulo do mesmo path
+    static void escreverSvg(BitMatrix modulos, int largura, Writer escritor) throws IOException {
+        int lado = modulos.getWidth();
+        escritor.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + largura + "\" height=\"" + largura
+                + "\" viewBox=\"0 0 " + lado + " " + lado + "\" shape-rendering=\"crispEdges\">");
+        escritor.write("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path fill=\"#000\" d=\"");
+        for (int y = 0; y < modulos.getHeight(); y++) {
+            int x = 0;
+            while (x < lado) {
+                if (!modulos.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int inicio = x;
+                while (x < lado && modulos.get(x, y)) {
+                    x++;
+                }
+                escritor.write("M" + inicio + " " + y + "h" + (x - inicio) + "v1h-" + (x - inicio) + "z");
+            }
+        }
+        escritor.write("\"/></svg>");
+    }
+
+    // Um bit por módulo, já com a margem de 4 módulos; a escala fica com quem desenha
+    private BitMatrix codificar(String texto, ErrorCorrectionLevel correcao) {
+        try {
+            return ESCRITOR.encode(texto, BarcodeFormat.QR_CODE, 0, 0,
+                    Map.of(EncodeHintType.ERROR_CORRECTION, correcao));
+        } catch (WriterException e) {
+            throw new RuntimeException("Erro ao gerar o QR Code: " + e.getMessage());
+        }
+    }
+
+    private ByteBuffer chave(String texto, int tamanho, ErrorCorrectionLevel correcao) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update((tamanho + ":" + correcao + ":").getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(sha256.digest(texto.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int validarTamanho(int tamanho) {
+        if (tamanho < TAMANHO_MINIMO || tamanho > TAMANHO_MAXIMO) {
+            throw new IllegalArgumentException("O tamanho do QR Code deve estar entre " + TAMANHO_MINIMO
+                    + " e " + TAMANHO_MAXIMO + " pixels.");
+        }
+        return tamanho;
+    }
+
+    // L, M, Q ou H: quanto mais alto, mais dano o código aguenta e mais módulos ele tem
+    private ErrorCorrectionLevel nivelDeCorrecao(String correcao) {
+        try {
+            return ErrorCorrectionLevel.valueOf(correcao.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Nível de correção inválido: use L, M, Q ou H.");
+        }
+    }
+}
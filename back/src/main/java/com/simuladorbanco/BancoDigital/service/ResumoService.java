@@ -0,0 +1,63 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import com.simuladorbanco.BancoDigital.model.Conta;
+import com.simuladorbanco.BancoDigital.model.Transacao;
+import com.simuladorbanco.BancoDigital.repository.ResumoDiarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Mantém tb_resumo_diario (ResumoDiario) em dia: roda na mesma transação que grava as transações,
+// então o resumo nunca diverge do extrato.
+@Service
+public class ResumoService {
+
+    private record Chave(Long numeroDaConta, LocalDate dia, String tipo) {
+    }
+
+    // Sempre na mesma ordem: duas transações que tocam as mesmas linhas não travam uma à outra
+    private static final Comparator<Chave> ORDEM = Comparator.comparing(Chave::numeroDaConta)
+            .thenComparing(Chave::dia).thenComparing(Chave::tipo);
+
+    @Autowired
+    private ResumoDiarioRepository resumoDiarioRepository;
+
+    @Value("${banco.conta-quente.slots:8}")
+    private int quantidadeDeSlots = 8;
+
+    // contasQuentes: as que quem chama já sabe que são quentes (o crédito foi para os slots).
+    // As outras escrevem sempre no slot 0, sem consulta a mais
+    public void registrar(Iterable<Transacao> transacoes, Set<Long> contasQuentes) {
+        // Soma antes de gravar: um lote do motor com mil depósitos na mesma conta vira um comando
+        Map<Chave, long[]> totais = new TreeMap<>(ORDEM);
+        for (Transacao transacao : transacoes) {
+            LocalDate dia = transacao.getData().toLocalDate();
+            somar(totais, transacao.getContaRemetente(), dia, transacao.getTipo(), 0, transacao.getValor());
+            somar(totais, transacao.getContaDestinatario(), dia, transacao.getTipo(), transacao.getValor(), 0);
+        }
+        totais.forEach((chave, total) -> resumoDiarioRepository.acumular(chave.numeroDaConta(), chave.dia(),
+                chave.tipo(), slot(chave.numeroDaConta(), contasQuentes), total[0], total[1], total[2]));
+    }
+
+    private void somar(Map<Chave, long[]> totais, Conta conta, LocalDate dia, String tipo, long entrada, long saida) {
+        if (conta == null) {
+            return;
+        }
+        long[] total = totais.computeIfAbsent(new Chave(conta.getNumeroDaConta(), dia, tipo), chave -> new long[3]);
+        total[0] += entrada;
+        total[1] += saida;
+        total[2]++;
+    }
+
+    // Conta quente recebe muitos créditos ao mesmo tempo: cada um cai em uma linha do dia diferente
+    private int slot(Long numeroDaConta, Set<Long> contasQuentes) {
+        return contasQuentes.contains(numeroDaConta) ? ThreadLocalRandom.current().nextInt(quantidadeDeSlots) : 0;
+    }
+}
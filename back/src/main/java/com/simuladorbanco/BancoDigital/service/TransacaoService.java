@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,14 +26,20 @@ public class TransacaoService {
     @Autowired
     ContaRepository contaRepository;
 
-    public Transacao adicionarTransacaoSaque(Conta conta, double valor){
+    @Autowired
+    CacheDoExtrato cacheDoExtrato;
+
+    @Autowired
+    ResumoService resumoService;
+
+    public Transacao adicionarTransacaoSaque(Conta conta, long valor){
         Transacao transacao =  new Transacao();
         transacao.setTipo("SAQUE");
         transacao.setContaRemetente(conta);
         transacao.setContaDestinatario(null);
         transacao.setValor(valor);
         transacao.setData(LocalDateTime.now());
-        return transacaoRepository.save(transacao);
+        return salvar(transacao);
     }
 
     public TransacaoDTO adicionarTransacaoDTOSaque(Conta conta, Transacao transacao){
@@ -48,14 +55,14 @@ public class TransacaoService {
         return transacaoDTO;
     }
 
-    public Transacao adicionarTransacaoDeposito(Conta conta, double valor){
+    public Transacao adicionarTransacaoDeposito(Conta conta, long valor){
         Transacao transacao =  new Transacao();
         transacao.setTipo("DEPOSITO");
         transacao.setContaRemetente(null);
         transacao.setContaDestinatario(conta);
         transacao.setValor(valor);
         transacao.setData(LocalDateTime.now());
-        return transacaoRepository.save(transacao);
+        return salvar(transacao);
     }
 
     public TransacaoDTO adicionarTransacaoDTODeposito(Conta conta, Transacao transacao){
@@ -71,8 +78,9 @@ public class TransacaoService {
         return transacaoDTO;
     }
 
+    // destinatarioQuente: o crédito foi para os slots (ContaService), e o resumo do dia também se espalha
     public Transacao adicionarTransacaoTransferencia(Conta contaRemetente, Conta contaDestinario
-            , double valor){
+            , long valor, boolean destinatarioQuente){
         Transacao transacao =  new Transacao();
         if (Objects.equals(contaRemetente.getNumeroDaConta(), contaDestinario.getNumeroDaConta())){
             throw new RuntimeException("Você não pode realizar uma transferencia para si mesmo");
@@ -82,7 +90,7 @@ public class TransacaoService {
         transacao.setContaDestinatario(contaDestinario);
         transacao.setValor(valor);
         transacao.setData(LocalDateTime.now());
-        return transacaoRepository.save(transacao);
+        return salvar(transacao, destinatarioQuente ? Set.of(contaDestinario.getNumeroDaConta()) : Set.of());
     }
 
     public TransacaoDTO adicionarTransacaoDTOTransferencia(Conta contaRemetente, Conta contaDestinatario,
@@ -101,8 +109,15 @@ public class TransacaoService {
         transacaoDTO.setData(transacao.getData());
         return transacaoDTO;
     }
-}
-
-
 
+    private Transacao salvar(Transacao transacao) {
+        return salvar(transacao, Set.of());
+    }
 
+    private Transacao salvar(Transacao transacao, Set<Long> contasQuentes) {
+        Transacao salva = transacaoRepository.save(transacao);
+        resumoService.registrar(List.of(salva), contasQuentes);
+        cacheDoExtrato.registrarAposCommit(salva);
+        return salva;
+    }
+}
@@ -0,0 +1,38 @@
+-- Esquema do banco digital. Bancos que já existiam antes do Flyway (criados pelo
+-- ddl-auto=update) entram direto na versão 1 (spring.flyway.baseline-on-migrate).
+
+-- Ids por sequence com incremento igual ao allocationSize das entidades (otimizador pooled)
+CREATE SEQUENCE seq_conta START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE seq_transacao START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE seq_conta_slot START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE tb_conta (
+    numero_da_conta BIGINT       NOT NULL PRIMARY KEY,
+    nome            VARCHAR(255) NOT NULL,
+    email           VARCHAR(255) NOT NULL,
+    senha           VARCHAR(255) NOT NULL,
+    saldo           BIGINT       NOT NULL, -- centavos
+    versao          BIGINT
+);
+
+CREATE TABLE tab_user_roles (
+    user_id BIGINT NOT NULL REFERENCES tb_conta (numero_da_conta),
+    role_id VARCHAR(255)
+);
+
+CREATE TABLE tb_transacao (
+    id                    BIGINT       NOT NULL PRIMARY KEY,
+    tipo                  VARCHAR(255) NOT NULL,
+    valor                 BIGINT       NOT NULL, -- centavos
+    data                  TIMESTAMP(6) NOT NULL,
+    conta_remetente_id    BIGINT REFERENCES tb_conta (numero_da_conta),
+    conta_destinatario_id BIGINT REFERENCES tb_conta (numero_da_conta)
+);
+
+CREATE TABLE tb_conta_slot (
+    id       BIGINT  NOT NULL PRIMARY KEY,
+    conta_id BIGINT  NOT NULL,
+    slot     INTEGER NOT NULL,
+    saldo    BIGINT  NOT NULL, -- centavos
+    CONSTRAINT uk_conta_slot_conta_slot UNIQUE (conta_id, slot)
+);
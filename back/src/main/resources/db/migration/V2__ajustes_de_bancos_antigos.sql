@@ -0,0 +1,36 @@
+-- O que o ddl-auto=update não fazia sozinho em bancos antigos. Em banco novo (criado pela V1)
+-- nada aqui muda dado algum.
+
+-- Dinheiro passou de double (reais) para bigint (centavos)
+DO $$
+BEGIN
+    IF (SELECT data_type FROM information_schema.columns
+        WHERE table_name = 'tb_conta' AND column_name = 'saldo') = 'double precision' THEN
+        ALTER TABLE tb_conta ALTER COLUMN saldo TYPE BIGINT USING round(saldo * 100);
+    END IF;
+    IF (SELECT data_type FROM information_schema.columns
+        WHERE table_name = 'tb_transacao' AND column_name = 'valor') = 'double precision' THEN
+        ALTER TABLE tb_transacao ALTER COLUMN valor TYPE BIGINT USING round(valor * 100);
+    END IF;
+END $$;
+
+-- Colunas e tabelas que só existem se o banco já rodou as versões com ddl-auto=update
+ALTER TABLE tb_conta ADD COLUMN IF NOT EXISTS versao BIGINT;
+CREATE TABLE IF NOT EXISTS tb_conta_slot (
+    id       BIGINT  NOT NULL PRIMARY KEY,
+    conta_id BIGINT  NOT NULL,
+    slot     INTEGER NOT NULL,
+    saldo    BIGINT  NOT NULL,
+    CONSTRAINT uk_conta_slot_conta_slot UNIQUE (conta_id, slot)
+);
+
+-- Ids vinham de IDENTITY: as sequences precisam começar depois do maior id já usado
+CREATE SEQUENCE IF NOT EXISTS seq_conta START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS seq_transacao START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS seq_conta_slot START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE seq_conta INCREMENT BY 50;
+ALTER SEQUENCE seq_transacao INCREMENT BY 50;
+ALTER SEQUENCE seq_conta_slot INCREMENT BY 50;
+SELECT setval('seq_conta', MAX(numero_da_conta) + 50) FROM tb_conta HAVING MAX(numero_da_conta) IS NOT NULL;
+SELECT setval('seq_transacao', MAX(id) + 50) FROM tb_transacao HAVING MAX(id) IS NOT NULL;
+SELECT setval('seq_conta_slot', MAX(id) + 50) FROM tb_conta_slot HAVING MAX(id) IS NOT NULL;
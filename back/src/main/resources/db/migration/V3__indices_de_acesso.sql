@@ -0,0 +1,17 @@
+-- Extrato (TransacaoRepository.buscarPaginaDoExtrato / exportarExtrato): cada lado do UNION
+-- percorre um destes índices já na ordem (data, id). As colunas em INCLUDE são as que a
+-- projeção lê, então a página sai só do índice, sem ir à tabela (index-only scan).
+-- Os índices antigos de mesmo nome (criados pelo ddl-auto, sem INCLUDE) são trocados.
+DROP INDEX IF EXISTS idx_transacao_remetente_data;
+DROP INDEX IF EXISTS idx_transacao_destinatario_data;
+CREATE INDEX idx_transacao_remetente_data
+    ON tb_transacao (conta_remetente_id, data DESC, id DESC) INCLUDE (tipo, valor, conta_destinatario_id);
+CREATE INDEX idx_transacao_destinatario_data
+    ON tb_transacao (conta_destinatario_id, data DESC, id DESC) INCLUDE (tipo, valor, conta_remetente_id);
+
+-- Login e cadastro (ContaRepository.findByEmail / existsByEmail). Único também garante no banco
+-- o que o ContaService já confere antes de salvar.
+CREATE UNIQUE INDEX uk_conta_email ON tb_conta (email);
+
+-- roles é EAGER: lido por user_id toda vez que uma conta é carregada
+CREATE INDEX idx_user_roles_user ON tab_user_roles (user_id);
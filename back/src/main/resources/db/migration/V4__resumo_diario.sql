@@ -0,0 +1,24 @@
+-- Totais por conta, dia e tipo (ResumoDiario). Conta quente divide as linhas do dia em slots.
+-- A chave primária (conta, dia, ...) é o índice das consultas do /resumo.
+CREATE TABLE tb_resumo_diario (
+    conta_id   BIGINT       NOT NULL,
+    dia        DATE         NOT NULL,
+    tipo       VARCHAR(255) NOT NULL,
+    slot       INTEGER      NOT NULL,
+    entradas   BIGINT       NOT NULL, -- centavos
+    saidas     BIGINT       NOT NULL, -- centavos
+    quantidade BIGINT       NOT NULL,
+    PRIMARY KEY (conta_id, dia, tipo, slot)
+);
+
+-- Resumo do histórico que já existe; dali em diante o ResumoService mantém a tabela
+INSERT INTO tb_resumo_diario (conta_id, dia, tipo, slot, entradas, saidas, quantidade)
+SELECT conta_id, dia, tipo, 0, SUM(entradas), SUM(saidas), COUNT(*)
+FROM (
+    SELECT conta_remetente_id AS conta_id, CAST(data AS DATE) AS dia, tipo, 0 AS entradas, valor AS saidas
+    FROM tb_transacao WHERE conta_remetente_id IS NOT NULL
+    UNION ALL
+    SELECT conta_destinatario_id, CAST(data AS DATE), tipo, valor, 0
+    FROM tb_transacao WHERE conta_destinatario_id IS NOT NULL
+) movimentos
+GROUP BY conta_id, dia, tipo;
@@ -0,0 +1,75 @@
+-- Particionamento mensal de tb_transacao por data (opcional: banco.transacao.particionamento.habilitado).
+-- Esta migration só cria as funções; quem as chama é o ParticionamentoDeTransacoes, na subida da
+-- aplicação e uma vez por dia. Todas são idempotentes e se serializam por advisory lock, então
+-- várias instâncias podem rodar a manutenção ao mesmo tempo.
+
+-- Converte tb_transacao em tabela particionada. A tabela atual vira a partição tb_transacao_legado,
+-- com tudo até o fim do mês corrente (sem copiar linhas); dali em diante cada mês tem a sua.
+-- Trava a tabela enquanto cria a chave (id, data) na partição antiga: rodar uma vez, fora do pico.
+CREATE OR REPLACE FUNCTION particionar_tb_transacao() RETURNS BOOLEAN AS $$
+DECLARE
+    limite DATE := (date_trunc('month', now()) + INTERVAL '1 month')::date;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('tb_transacao_particoes'));
+    IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'tb_transacao'::regclass) THEN
+        RETURN FALSE;
+    END IF;
+    LOCK TABLE tb_transacao IN ACCESS EXCLUSIVE MODE;
+    ALTER TABLE tb_transacao RENAME TO tb_transacao_legado;
+    ALTER INDEX idx_transacao_remetente_data RENAME TO idx_transacao_legado_remetente_data;
+    ALTER INDEX idx_transacao_destinatario_data RENAME TO idx_transacao_legado_destinatario_data;
+
+    -- A chave primária de tabela particionada precisa incluir a coluna da partição
+    CREATE TABLE tb_transacao (LIKE tb_transacao_legado INCLUDING DEFAULTS) PARTITION BY RANGE (data);
+    ALTER TABLE tb_transacao
+        ADD CONSTRAINT pk_transacao PRIMARY KEY (id, data),
+        ADD CONSTRAINT fk_transacao_remetente FOREIGN KEY (conta_remetente_id) REFERENCES tb_conta (numero_da_conta),
+        ADD CONSTRAINT fk_transacao_destinatario FOREIGN KEY (conta_destinatario_id) REFERENCES tb_conta (numero_da_conta);
+    -- Os mesmos índices da V3; na partição antiga o ATTACH reaproveita os que ela já tem
+    CREATE INDEX idx_transacao_remetente_data
+        ON tb_transacao (conta_remetente_id, data DESC, id DESC) INCLUDE (tipo, valor, conta_destinatario_id);
+    CREATE INDEX idx_transacao_destinatario_data
+        ON tb_transacao (conta_destinatario_id, data DESC, id DESC) INCLUDE (tipo, valor, conta_remetente_id);
+
+    EXECUTE format('ALTER TABLE tb_transacao ATTACH PARTITION tb_transacao_legado FOR VALUES FROM (MINVALUE) TO (%L)',
+                   limite);
+    RETURN TRUE;
+END
+$$ LANGUAGE plpgsql;
+
+-- Cria a partição do mês de "mes" (tb_transacao_AAAA_MM) se ainda não existir
+CREATE OR REPLACE FUNCTION criar_particao_transacao(mes DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    inicio DATE := date_trunc('month', mes)::date;
+    nome   TEXT := 'tb_transacao_' || to_char(inicio, 'YYYY_MM');
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('tb_transacao_particoes'));
+    IF to_regclass(nome) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I PARTITION OF tb_transacao FOR VALUES FROM (%L) TO (%L)',
+                   nome, inicio, (inicio + INTERVAL '1 month')::date);
+    RETURN TRUE;
+END
+$$ LANGUAGE plpgsql;
+
+-- Desanexa as partições mensais que terminam até "antes_de". Elas continuam no banco como tabelas
+-- comuns (mesmo nome), mas saem do extrato e da manutenção da tabela viva. A partição legado
+-- não é tocada. Devolve os nomes desanexados.
+CREATE OR REPLACE FUNCTION desanexar_particoes_transacao(antes_de DATE) RETURNS SETOF TEXT AS $$
+DECLARE
+    particao TEXT;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('tb_transacao_particoes'));
+    FOR particao IN
+        SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'tb_transacao'::regclass AND c.relname ~ '^tb_transacao_[0-9]{4}_[0-9]{2}$'
+        ORDER BY c.relname
+    LOOP
+        IF (to_date(substr(particao, 14), 'YYYY_MM') + INTERVAL '1 month')::date <= antes_de THEN
+            EXECUTE format('ALTER TABLE tb_transacao DETACH PARTITION %I', particao);
+            RETURN NEXT particao;
+        END IF;
+    END LOOP;
+END
+$$ LANGUAGE plpgsql;
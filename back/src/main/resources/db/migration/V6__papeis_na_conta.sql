@@ -0,0 +1,16 @@
+-- Perfis de acesso saem de tab_user_roles para uma máscara de bits em tb_conta (enum Papel:
+-- USER = 1, ADMIN = 2). A conta passa a ser lida com uma consulta só.
+ALTER TABLE tb_conta ADD COLUMN papeis INTEGER NOT NULL DEFAULT 0;
+
+UPDATE tb_conta c SET papeis = COALESCE((
+    SELECT bit_or(CASE upper(regexp_replace(r.role_id, '^ROLE_', '', 'i'))
+                      WHEN 'USER' THEN 1
+                      WHEN 'ADMIN' THEN 2
+                      ELSE 0
+                  END)
+    FROM tab_user_roles r
+    WHERE r.user_id = c.numero_da_conta), 0);
+
+ALTER TABLE tb_conta ALTER COLUMN papeis DROP DEFAULT;
+
+DROP TABLE tab_user_roles;
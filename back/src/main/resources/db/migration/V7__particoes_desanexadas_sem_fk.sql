@@ -0,0 +1,52 @@
+-- Partição desanexada (V5, desanexar_particoes_transacao) mantinha a cópia das chaves estrangeiras
+-- para tb_conta. O encerramento de conta só reassocia as linhas da tabela viva, então o DELETE da
+-- conta com histórico num mês desanexado falhava sempre na FK. A partição desanexada passa a ser
+-- só histórico: sem FK, ela guarda o número da conta mesmo depois do encerramento.
+
+-- Remove as FKs de "tabela" para tb_conta, seja qual for o nome delas
+CREATE OR REPLACE FUNCTION remover_fks_para_conta(tabela TEXT) RETURNS VOID AS $$
+DECLARE
+    restricao TEXT;
+BEGIN
+    FOR restricao IN
+        SELECT conname FROM pg_constraint
+        WHERE conrelid = tabela::regclass AND contype = 'f' AND confrelid = 'tb_conta'::regclass
+    LOOP
+        EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', tabela, restricao);
+    END LOOP;
+END
+$$ LANGUAGE plpgsql;
+
+-- Igual à da V5, mais a remoção das FKs logo depois do DETACH, na mesma transação
+CREATE OR REPLACE FUNCTION desanexar_particoes_transacao(antes_de DATE) RETURNS SETOF TEXT AS $$
+DECLARE
+    particao TEXT;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('tb_transacao_particoes'));
+    FOR particao IN
+        SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'tb_transacao'::regclass AND c.relname ~ '^tb_transacao_[0-9]{4}_[0-9]{2}$'
+        ORDER BY c.relname
+    LOOP
+        IF (to_date(substr(particao, 14), 'YYYY_MM') + INTERVAL '1 month')::date <= antes_de THEN
+            EXECUTE format('ALTER TABLE tb_transacao DETACH PARTITION %I', particao);
+            PERFORM remover_fks_para_conta(particao);
+            RETURN NEXT particao;
+        END IF;
+    END LOOP;
+END
+$$ LANGUAGE plpgsql;
+
+-- Partições já desanexadas antes desta migration
+DO $$
+DECLARE
+    tabela TEXT;
+BEGIN
+    FOR tabela IN
+        SELECT c.relname FROM pg_class c
+        WHERE c.relkind = 'r' AND NOT c.relispartition AND c.relname ~ '^tb_transacao_[0-9]{4}_[0-9]{2}$'
+    LOOP
+        PERFORM remover_fks_para_conta(tabela);
+    END LOOP;
+END
+$$;
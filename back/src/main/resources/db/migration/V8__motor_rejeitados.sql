@@ -0,0 +1,14 @@
+-- Itens do motor de contas que o banco recusou mesmo gravados sozinhos (PersistenciaDoMotor): o
+-- valor já foi confirmado ao cliente, então fica guardado aqui para acerto manual em vez de
+-- travar a fila. Sem FK para tb_conta: o motivo mais comum é a conta ter sido encerrada.
+CREATE TABLE tb_motor_rejeitado (
+    id                    BIGSERIAL     PRIMARY KEY,
+    tipo                  VARCHAR(255)  NOT NULL, -- SALDO ou o tipo da transação
+    conta_id              BIGINT,                 -- SALDO: conta do delta
+    conta_remetente_id    BIGINT,
+    conta_destinatario_id BIGINT,
+    valor                 BIGINT        NOT NULL, -- centavos; delta de SALDO pode ser negativo
+    data                  TIMESTAMP,              -- data da transação
+    erro                  VARCHAR(1000),
+    registrado_em         TIMESTAMP     NOT NULL
+);
@@ -0,0 +1,95 @@
+package com.simuladorbanco.BancoDigital.arquivo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ArquivoDeTransacoesTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Deve ler do segmento só os movimentos da conta, mesmo quando ela ocupa vários blocos")
+    void deveLerMovimentosDaContaEmVariosBlocos() throws Exception {
+        Path arquivo = diretorio.resolve("2024-01.seg");
+        try (SegmentoDeArquivo.Escritor escritor = new SegmentoDeArquivo.Escritor(arquivo, 3)) {
+            escritor.adicionar(deposito(1L, 1L, 1));
+            escritor.adicionar(new MovimentoArquivado(2L, 2L, "TRANSFERENCIA", 2550L,
+                    LocalDateTime.of(2024, 1, 2, 8, 30, 0, 123_456_000), 2L, 3L));
+            escritor.adicionar(new MovimentoArquivado(2L, 3L, "SAQUE", 700L, LocalDateTime.of(2024, 1, 3, 9, 0), 2L, null));
+            escritor.adicionar(deposito(2L, 4L, 4));
+            escritor.adicionar(new MovimentoArquivado(3L, 2L, "TRANSFERENCIA", 2550L,
+                    LocalDateTime.of(2024, 1, 2, 8, 30, 0, 123_456_000), 2L, 3L));
+        }
+
+        SegmentoDeArquivo segmento = SegmentoDeArquivo.abrir(arquivo);
+
+        List<MovimentoArquivado> daConta2 = segmento.daConta(2L);
+        assertEquals(List.of(2L, 3L, 4L), daConta2.stream().map(MovimentoArquivado::id).toList());
+        assertEquals(new MovimentoArquivado(2L, 2L, "TRANSFERENCIA", 2550L,
+                LocalDateTime.of(2024, 1, 2, 8, 30, 0, 123_456_000), 2L, 3L), daConta2.get(0));
+        assertNull(daConta2.get(1).destinatario());
+        assertEquals(2L, daConta2.get(2).destinatario());
+        assertNull(daConta2.get(2).remetente());
+        assertEquals(List.of(2L), segmento.daConta(3L).stream().map(MovimentoArquivado::id).toList());
+        assertTrue(segmento.daConta(9L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve buscar antes do cursor atravessando os meses do mais recente para o mais antigo")
+    void deveBuscarAntesDoCursorEntreSegmentos() throws Exception {
+        escreverSegmento("2024-01", deposito(1L, 1L, 1), deposito(1L, 2L, 20));
+        escreverSegmento("2024-02", deposito(1L, 3L, 35), deposito(1L, 4L, 50));
+        Files.writeString(diretorio.resolve("2024-03.seg.tmp"), "incompleto");
+        ArquivoDeTransacoes arquivo = new ArquivoDeTransacoes(diretorio.toString(), 13,
+                mock(DataSource.class), mock(PlatformTransactionManager.class));
+        arquivo.abrirSegmentos();
+
+        List<MovimentoArquivado> pagina = arquivo.buscarAntesDe(1L, LocalDateTime.of(2024, 2, 19, 10, 0), 4L, 2);
+        assertEquals(List.of(3L, 2L), pagina.stream().map(MovimentoArquivado::id).toList());
+
+        List<Long> todos = new ArrayList<>();
+        arquivo.percorrer(1L, movimentos -> movimentos.forEach(movimento -> todos.add(movimento.id())));
+        assertEquals(List.of(1L, 2L, 3L, 4L), todos);
+    }
+
+    @Test
+    @DisplayName("Deve enxergar o segmento que outra instância gravou depois da abertura")
+    void deveCarregarSegmentoGravadoPorOutraInstancia() throws Exception {
+        escreverSegmento("2024-01", deposito(1L, 1L, 1));
+        ArquivoDeTransacoes arquivo = new ArquivoDeTransacoes(diretorio.toString(), 13,
+                mock(DataSource.class), mock(PlatformTransactionManager.class));
+        arquivo.abrirSegmentos();
+
+        escreverSegmento("2024-02", deposito(1L, 2L, 40));
+        List<MovimentoArquivado> pagina = arquivo.buscarAntesDe(1L, LocalDateTime.of(2024, 3, 1, 0, 0), 0L, 10);
+
+        assertEquals(List.of(2L, 1L), pagina.stream().map(MovimentoArquivado::id).toList());
+    }
+
+    private void escreverSegmento(String mes, MovimentoArquivado... movimentos) throws Exception {
+        try (SegmentoDeArquivo.Escritor escritor = SegmentoDeArquivo.criar(diretorio.resolve(mes + ".seg"))) {
+            for (MovimentoArquivado movimento : movimentos) {
+                escritor.adicionar(movimento);
+            }
+        }
+    }
+
+    // Depósito na conta; "dia" conta a partir de 1º de janeiro de 2024
+    private MovimentoArquivado deposito(Long conta, Long id, int dia) {
+        return new MovimentoArquivado(conta, id, "DEPOSITO", 1000L,
+                LocalDateTime.of(2024, 1, 1, 10, 0).plusDays(dia - 1), null, conta);
+    }
+}
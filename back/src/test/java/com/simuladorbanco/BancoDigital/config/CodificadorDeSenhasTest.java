@@ -0,0 +1,74 @@
+package com.simuladorbanco.BancoDigital.config;
+
+import com.simuladorbanco.BancoDigital.exception.MuitasRequisicoesException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodificadorDeSenhasTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private CodificadorDeSenhas codificador;
+
+    @AfterEach
+    void desligar() {
+        codificador.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve gerar e conferir o hash no pool e registrar o tempo")
+    void deveCodificarEConferir() {
+        codificador = new CodificadorDeSenhas(new BCryptPasswordEncoder(4), 1, 1, registry);
+
+        String hash = codificador.encode("senha123");
+
+        assertTrue(codificador.matches("senha123", hash));
+        assertFalse(codificador.matches("outra", hash));
+        assertEquals(1, registry.get("banco.senha.hash").tag("operacao", "encode").timer().count());
+        assertEquals(2, registry.get("banco.senha.hash").tag("operacao", "matches").timer().count());
+    }
+
+    @Test
+    @DisplayName("Deve recusar na hora quando a thread e a fila estão ocupadas")
+    void deveRecusarComFilaCheia() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch ocupada = new CountDownLatch(1);
+        PasswordEncoder lento = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence senha) {
+                ocupada.countDown();
+                try {
+                    liberar.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(senha);
+            }
+        };
+        codificador = new CodificadorDeSenhas(lento, 1, 1, registry);
+
+        // Uma chamada na thread, outra na fila
+        CompletableFuture<String> primeira = CompletableFuture.supplyAsync(() -> codificador.encode("a"));
+        assertTrue(ocupada.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> segunda = CompletableFuture.supplyAsync(() -> codificador.encode("b"));
+        while (registry.get("banco.senha.fila").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(MuitasRequisicoesException.class, () -> codificador.encode("c"));
+        assertEquals(1.0, registry.get("banco.senha.rejeitadas").counter().count());
+
+        liberar.countDown();
+        assertNotNull(primeira.get(5, TimeUnit.SECONDS));
+        assertNotNull(segunda.get(5, TimeUnit.SECONDS));
+    }
+}
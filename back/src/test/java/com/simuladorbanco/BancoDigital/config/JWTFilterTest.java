@@ -131,4 +131,34 @@ class JWTFilterTest {
         // 3. O contexto de segurança deve estar vazio
         assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
+
+    @Test
+    @DisplayName("Deve recusar o token já verificado depois que a chave de assinatura muda")
+    void deveRecusarTokenEmCacheAposTrocaDeChave() throws ServletException, IOException {
+        // Cenário: token verificado uma vez (fica no cache)
+        JWTObject jwtObject = new JWTObject();
+        jwtObject.setSubject("testuser");
+        jwtObject.setIssuedAt(new Date());
+        jwtObject.setExpiration(new Date(System.currentTimeMillis() + 60_000));
+        jwtObject.setRoles(List.of("USER"));
+        String token = JWTCreator.create(SecurityConfig.PREFIX, SecurityConfig.KEY, jwtObject);
+        when(request.getHeader(JWTCreator.HEADER_AUTHORIZATION)).thenReturn(token);
+        jwtFilter.doFilterInternal(request, response, filterChain);
+        jwtFilter.doFilterInternal(request, response, filterChain);
+        verify(filterChain, times(2)).doFilter(request, response);
+
+        // Ação: a chave muda
+        String chaveOriginal = SecurityConfig.KEY;
+        SecurityConfig.KEY = "outra-chave-secreta-muito-longa-para-testes";
+        try {
+            SecurityContextHolder.clearContext();
+            jwtFilter.doFilterInternal(request, response, filterChain);
+        } finally {
+            SecurityConfig.KEY = chaveOriginal;
+        }
+
+        // Verificação
+        verify(response).setStatus(HttpStatus.FORBIDDEN.value());
+        verify(filterChain, times(2)).doFilter(request, response);
+    }
 }
@@ -0,0 +1,76 @@
+package com.simuladorbanco.BancoDigital.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.support.RetryTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricasDeRetentativaTest {
+
+    private SimpleMeterRegistry registry;
+    private RetryTemplate retryTemplate;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        retryTemplate = RetryTemplate.builder()
+                .maxAttempts(3)
+                .noBackoff()
+                .retryOn(OptimisticLockingFailureException.class)
+                .withListener(new MetricasDeRetentativa(registry))
+                .build();
+    }
+
+    private double contador(String nome) {
+        return registry.find(nome).counters().stream().mapToDouble(c -> c.count()).sum();
+    }
+
+    @Test
+    @DisplayName("Deve contar cada conflito e não contar esgotamento quando uma tentativa passa")
+    void deveContarRetentativasAteOSucesso() {
+        // Cenário: as duas primeiras tentativas perdem a disputa pela versão da conta
+        RetryCallback<String, RuntimeException> operacao = contexto -> {
+            if (contexto.getRetryCount() < 2) {
+                throw new OptimisticLockingFailureException("versão desatualizada");
+            }
+            return "ok";
+        };
+
+        // Ação
+        String resultado = retryTemplate.execute(operacao);
+
+        // Verificação
+        assertEquals("ok", resultado);
+        assertEquals(2.0, contador("banco.concorrencia.retentativas"));
+        assertEquals(0.0, contador("banco.concorrencia.esgotadas"));
+    }
+
+    @Test
+    @DisplayName("Deve contar a operação como esgotada quando todas as tentativas colidem")
+    void deveContarEsgotamento() {
+        RetryCallback<String, RuntimeException> operacao = contexto -> {
+            throw new OptimisticLockingFailureException("versão desatualizada");
+        };
+
+        assertThrows(OptimisticLockingFailureException.class, () -> retryTemplate.execute(operacao));
+        assertEquals(3.0, contador("banco.concorrencia.retentativas"));
+        assertEquals(1.0, contador("banco.concorrencia.esgotadas"));
+    }
+
+    @Test
+    @DisplayName("Erros de negócio não devem aparecer nos contadores de conflito")
+    void deveIgnorarErrosQueNaoSaoConflito() {
+        RetryCallback<String, RuntimeException> operacao = contexto -> {
+            throw new IllegalArgumentException("valor inválido");
+        };
+
+        assertThrows(IllegalArgumentException.class, () -> retryTemplate.execute(operacao));
+        assertEquals(0.0, contador("banco.concorrencia.retentativas"));
+        assertEquals(0.0, contador("banco.concorrencia.esgotadas"));
+    }
+}
@@ -7,8 +7,10 @@ import com.simuladorbanco.BancoDigital.config.SecurityConfig;
 import com.simuladorbanco.BancoDigital.dtos.TransacaoDTO;
 import com.simuladorbanco.BancoDigital.dtos.TransferenciaRequest;
 import com.simuladorbanco.BancoDigital.model.Conta;
+import com.simuladorbanco.BancoDigital.model.SlotDeSaldo;
 import com.simuladorbanco.BancoDigital.model.Transacao;
 import com.simuladorbanco.BancoDigital.repository.ContaRepository;
+import com.simuladorbanco.BancoDigital.repository.SlotDeSaldoRepository;
 import com.simuladorbanco.BancoDigital.repository.TransacaoRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -17,17 +19,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 import static org.hamcrest.Matchers.is;
 
 import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.jupiter.api.Assertions.*;
@@ -55,6 +60,12 @@ class ContaControllerTest {
     @Autowired // Precisamos do TransacaoRepository para criar os dados de teste
     private TransacaoRepository transacaoRepository;
 
+    @Autowired
+    private SlotDeSaldoRepository slotDeSaldoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private Conta contaSalvaNoBanco;
 
     @BeforeEach
@@ -64,7 +75,7 @@ class ContaControllerTest {
         conta.setNome("Cliente Teste");
         conta.setEmail("teste@email.com");
         conta.setSenha("senhaCriptografada");
-        conta.setSaldo(500.0);
+        conta.setSaldo(50000L);
         conta.setRoles(new ArrayList<>(Arrays.asList("ADMIN")));;
         contaSalvaNoBanco = contaRepository.save(conta);
         SecurityConfig.PREFIX = "Bearer";
@@ -98,7 +109,7 @@ class ContaControllerTest {
 
         // Verificação extra: Buscamos a conta diretamente no banco para confirmar o efeito colateral
         Conta contaDoBancoAposDeposito = contaRepository.findById(contaSalvaNoBanco.getNumeroDaConta()).get();
-        assertEquals(600.0, contaDoBancoAposDeposito.getSaldo(), "O saldo no banco deveria ser atualizado para 600.");
+        assertEquals(60000L, contaDoBancoAposDeposito.getSaldo(), "O saldo no banco deveria ser atualizado para 600.");
     }
 
     @Test
@@ -127,7 +138,7 @@ class ContaControllerTest {
 
         // Verificação extra e MAIS IMPORTANTE: Buscamos a conta no banco para confirmar o efeito colateral
         Conta contaDoBancoAposSaque = contaRepository.findById(contaSalvaNoBanco.getNumeroDaConta()).get();
-        assertEquals(400.0, contaDoBancoAposSaque.getSaldo(), "O saldo no banco deveria ser atualizado para 400.");
+        assertEquals(40000L, contaDoBancoAposSaque.getSaldo(), "O saldo no banco deveria ser atualizado para 400.");
     }
 
 
@@ -142,12 +153,12 @@ class ContaControllerTest {
         contaDestinatario.setNome("Favorecido Teste");
         contaDestinatario.setEmail("destinatario@email.com");
         contaDestinatario.setSenha("outraSenha");
-        contaDestinatario.setSaldo(200.0); // Saldo inicial do destinatário
+        contaDestinatario.setSaldo(20000L); // Saldo inicial do destinatário
         contaDestinatario.setRoles(new ArrayList<>(Arrays.asList("USER")));
         Conta contaDestinatarioSalva = contaRepository.save(contaDestinatario);
 
         // 2. Preparamos os dados da transferência
-        double valorTransferencia = 150.0;
+        long valorTransferencia = 15000L; // R$ 150,00 em centavos
         TransferenciaRequest requestBody = new TransferenciaRequest();
         requestBody.setNumeroContaDestinatario(contaDestinatarioSalva.getNumeroDaConta());
         requestBody.setValor(valorTransferencia);
@@ -173,8 +184,116 @@ class ContaControllerTest {
         Conta remetenteAposTransferencia = contaRepository.findById(contaSalvaNoBanco.getNumeroDaConta()).get();
         Conta destinatarioAposTransferencia = contaRepository.findById(contaDestinatarioSalva.getNumeroDaConta()).get();
 
-        assertEquals(350.0, remetenteAposTransferencia.getSaldo(), "O saldo do remetente deveria ser 350 (500 - 150).");
-        assertEquals(350.0, destinatarioAposTransferencia.getSaldo(), "O saldo do destinatário deveria ser 350 (200 + 150).");
+        assertEquals(35000L, remetenteAposTransferencia.getSaldo(), "O saldo do remetente deveria ser 350 (500 - 150).");
+        assertEquals(35000L, destinatarioAposTransferencia.getSaldo(), "O saldo do destinatário deveria ser 350 (200 + 150).");
+    }
+
+    @Test
+    @DisplayName("Conta com saldo distribuído deve receber o crédito em slot e mostrar o saldo total")
+    void deveCreditarContaQuenteEmSlotEMostrarSaldoTotal() throws Exception {
+        // Cenário: destinatário com saldo 200, marcado como conta quente pelo administrador
+        Conta contaDestinatario = new Conta();
+        contaDestinatario.setNome("Loja");
+        contaDestinatario.setEmail("loja@email.com");
+        contaDestinatario.setSenha("senhaDaLoja");
+        contaDestinatario.setSaldo(20000L);
+        contaDestinatario.setRoles(new ArrayList<>(Arrays.asList("USER")));
+        Conta loja = contaRepository.save(contaDestinatario);
+
+        String tokenAdmin = token(contaSalvaNoBanco);
+        mockMvc.perform(put("/conta/{numeroDaConta}/saldo-distribuido", loja.getNumeroDaConta())
+                        .header("Authorization", tokenAdmin))
+                .andExpect(status().isOk());
+
+        TransferenciaRequest requestBody = new TransferenciaRequest();
+        requestBody.setNumeroContaDestinatario(loja.getNumeroDaConta());
+        requestBody.setValor(15000L);
+
+        // Ação
+        mockMvc.perform(put("/conta/{numeroRemetente}/transferencia", contaSalvaNoBanco.getNumeroDaConta())
+                        .header("Authorization", tokenAdmin)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestBody)))
+                .andExpect(status().isOk());
+
+        // Verificação: a linha da conta não foi tocada, o valor está nos slots
+        assertEquals(20000L, contaRepository.findById(loja.getNumeroDaConta()).get().getSaldo());
+        assertEquals(15000L, slotDeSaldoRepository.somarSaldo(loja.getNumeroDaConta()));
+        mockMvc.perform(get("/conta/{numeroDaConta}", loja.getNumeroDaConta())
+                        .header("Authorization", token(loja)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.saldo").value(350.0));
+    }
+
+    @Test
+    @DisplayName("Conta com slots criados por outra instância deve mostrar e poder sacar o saldo dos slots")
+    void deveUsarSlotsCriadosPorOutraInstancia() throws Exception {
+        // Cenário: saldo todo no slot, gravado direto na tabela como faria outra instância
+        Conta contaDaLoja = new Conta();
+        contaDaLoja.setNome("Loja");
+        contaDaLoja.setEmail("loja@email.com");
+        contaDaLoja.setSenha("senhaDaLoja");
+        contaDaLoja.setSaldo(0L);
+        contaDaLoja.setRoles(new ArrayList<>(Arrays.asList("USER")));
+        Conta loja = contaRepository.save(contaDaLoja);
+        SlotDeSaldo slot = new SlotDeSaldo();
+        slot.setNumeroDaConta(loja.getNumeroDaConta());
+        slot.setSlot(0);
+        slot.setSaldo(15000L);
+        slotDeSaldoRepository.save(slot);
+
+        String tokenDaLoja = token(loja);
+        mockMvc.perform(get("/conta/{numeroDaConta}", loja.getNumeroDaConta())
+                        .header("Authorization", tokenDaLoja))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.saldo").value(150.0));
+
+        // Ação: o saque só passa se os slots forem consolidados antes
+        mockMvc.perform(put("/conta/{numeroDaConta}/sacar", loja.getNumeroDaConta())
+                        .header("Authorization", tokenDaLoja)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("100.0"))
+                .andExpect(status().isOk());
+
+        assertEquals(5000L, contaRepository.findById(loja.getNumeroDaConta()).get().getSaldo());
+        assertEquals(0L, slotDeSaldoRepository.somarSaldo(loja.getNumeroDaConta()));
+    }
+
+    @Test
+    @DisplayName("Deve resumir o mês com os totais por tipo e o saldo do dia")
+    void deveResumirMovimentosDoPeriodo() throws Exception {
+        String token = token(contaSalvaNoBanco);
+        mockMvc.perform(put("/conta/{numeroDaConta}/depositar", contaSalvaNoBanco.getNumeroDaConta())
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("100.0"))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/conta/{numeroDaConta}/depositar", contaSalvaNoBanco.getNumeroDaConta())
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("50.0"))
+                .andExpect(status().isOk());
+
+        String hoje = LocalDate.now().toString();
+        mockMvc.perform(get("/conta/{numeroDaConta}/resumo", contaSalvaNoBanco.getNumeroDaConta())
+                        .param("from", hoje)
+                        .param("to", hoje)
+                        .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.saldoInicial").value(500.0))
+                .andExpect(jsonPath("$.meses[0].tipo").value("DEPOSITO"))
+                .andExpect(jsonPath("$.meses[0].entradas").value(150.0))
+                .andExpect(jsonPath("$.meses[0].quantidade").value(2))
+                .andExpect(jsonPath("$.saldos[0].saldo").value(650.0));
+    }
+
+    private String token(Conta conta) {
+        JWTObject jwtObject = new JWTObject();
+        jwtObject.setSubject(conta.getEmail());
+        jwtObject.setIssuedAt(new Date(System.currentTimeMillis()));
+        jwtObject.setExpiration(new Date(System.currentTimeMillis() + SecurityConfig.EXPIRATION));
+        jwtObject.setRoles(conta.getRoles());
+        return JWTCreator.create(SecurityConfig.PREFIX, SecurityConfig.KEY, jwtObject);
     }
 
     @Test
@@ -284,7 +403,7 @@ class ContaControllerTest {
         // 1. Um depósito feito ontem
         Transacao deposito = new Transacao();
         deposito.setTipo("DEPOSITO");
-        deposito.setValor(500.0);
+        deposito.setValor(50000L);
         deposito.setContaDestinatario(contaSalvaNoBanco);
         deposito.setData(LocalDateTime.now().minusDays(1)); // Ocorreu ontem
         transacaoRepository.save(deposito);
@@ -292,7 +411,7 @@ class ContaControllerTest {
         // 2. Um saque feito hoje
         Transacao saque = new Transacao();
         saque.setTipo("SAQUE");
-        saque.setValor(100.0);
+        saque.setValor(10000L);
         saque.setContaRemetente(contaSalvaNoBanco);
         saque.setData(LocalDateTime.now()); // Ocorreu hoje
         transacaoRepository.save(saque);
@@ -323,4 +442,180 @@ class ContaControllerTest {
     }
 
 
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Deve paginar o extrato por cursor sem repetir nem pular transações")
+    void devePaginarExtratoPorCursor() throws Exception {
+        // Cenário: três depósitos em horários diferentes (precisão de segundos, como no banco)
+        LocalDateTime agora = LocalDateTime.now().withNano(0);
+        for (int i = 1; i <= 3; i++) {
+            Transacao deposito = new Transacao();
+            deposito.setTipo("DEPOSITO");
+            deposito.setValor(i * 100L);
+            deposito.setContaDestinatario(contaSalvaNoBanco);
+            deposito.setData(agora.minusHours(i));
+            transacaoRepository.save(deposito);
+        }
+        transacaoRepository.flush();
+        String token = token(contaSalvaNoBanco);
+
+        // Ação: primeira página com 2 itens
+        String cursor = mockMvc.perform(get("/conta/{numeroDaConta}/extrato", contaSalvaNoBanco.getNumeroDaConta())
+                        .param("tamanho", "2")
+                        .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].valor", is(1.0)))
+                .andExpect(jsonPath("$[1].valor", is(2.0)))
+                .andExpect(header().exists("X-Proximo-Cursor"))
+                .andReturn().getResponse().getHeader("X-Proximo-Cursor");
+
+        // Segunda página: só o que sobrou, sem cursor
+        mockMvc.perform(get("/conta/{numeroDaConta}/extrato", contaSalvaNoBanco.getNumeroDaConta())
+                        .param("tamanho", "2")
+                        .param("cursor", cursor)
+                        .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].valor", is(3.0)))
+                .andExpect(header().doesNotExist("X-Proximo-Cursor"));
+    }
+
+    @Test
+    @DisplayName("Deve iniciar a exportação do extrato em streaming no formato pedido")
+    void deveExportarExtratoEmStreaming() throws Exception {
+        // Ação e verificação: a resposta é assíncrona e os cabeçalhos saem antes das linhas
+        mockMvc.perform(get("/conta/{numeroDaConta}/extrato/export", contaSalvaNoBanco.getNumeroDaConta())
+                        .param("formato", "csv")
+                        .header("Authorization", token(contaSalvaNoBanco)))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"extrato-" + contaSalvaNoBanco.getNumeroDaConta() + ".csv\""));
+    }
+
+    @Test
+    @DisplayName("Deve negar com 403 a conta que não está no claim contas do token")
+    void deveNegarContaForaDoClaimContasDoToken() throws Exception {
+        JWTObject jwtObject = new JWTObject();
+        jwtObject.setSubject(contaSalvaNoBanco.getEmail());
+        jwtObject.setIssuedAt(new Date(System.currentTimeMillis()));
+        jwtObject.setExpiration(new Date(System.currentTimeMillis() + SecurityConfig.EXPIRATION));
+        jwtObject.setRoles(contaSalvaNoBanco.getRoles());
+        jwtObject.setContas(List.of(contaSalvaNoBanco.getNumeroDaConta()));
+        String token = JWTCreator.create(SecurityConfig.PREFIX, SecurityConfig.KEY, jwtObject);
+
+        mockMvc.perform(get("/conta/{numeroDaConta}/extrato", contaSalvaNoBanco.getNumeroDaConta())
+                        .header("Authorization", token))
+                .andExpect(status().isOk());
+        // Conta de outro cliente: recusada no filtro, antes de chegar ao serviço
+        mockMvc.perform(get("/conta/{numeroDaConta}/extrato", contaSalvaNoBanco.getNumeroDaConta() + 1000)
+                        .header("Authorization", token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/pix/pagar/{numeroDaConta}", contaSalvaNoBanco.getNumeroDaConta() + 1000)
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Deve negar o QR Code PIX ao e-mail antigo depois da troca feita por outra instância")
+    void deveNegarQrCodeAoEmailAntigo() throws Exception {
+        String token = token(contaSalvaNoBanco);
+        mockMvc.perform(post("/pix/gerar/{numeroDaConta}/imagem", contaSalvaNoBanco.getNumeroDaConta())
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"valor\": 10.00}"))
+                .andExpect(status().isOk());
+
+        // Troca direto na tabela: o descarte do cache de contas desta instância não acontece
+        jdbcTemplate.update("UPDATE tb_conta SET email = 'novo@email.com' WHERE numero_da_conta = ?",
+                contaSalvaNoBanco.getNumeroDaConta());
+
+        mockMvc.perform(post("/pix/gerar/{numeroDaConta}/imagem", contaSalvaNoBanco.getNumeroDaConta())
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"valor\": 10.00}"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(containsString("não tem permissão de gerar QrCode")));
+    }
+
+    @Test
+    @DisplayName("Deve encerrar a conta passando as transações dela para a conta de encerradas")
+    void deveEncerrarContaReassociandoTransacoes() throws Exception {
+        // Cenário: a conta de encerradas (99) tem número fixo, fora da sequence
+        jdbcTemplate.update("INSERT INTO tb_conta (numero_da_conta, nome, email, senha, saldo, versao, papeis) " +
+                "VALUES (99, 'Contas encerradas', 'encerradas@banco.com', 'x', 0, 0, 0)");
+        Conta cliente = new Conta();
+        cliente.setNome("Cliente Saindo");
+        cliente.setEmail("saindo@email.com");
+        cliente.setSenha("senhaCriptografada");
+        cliente.setRoles(new ArrayList<>(Arrays.asList("USER")));
+        cliente = contaRepository.save(cliente);
+        Transacao enviada = new Transacao();
+        enviada.setTipo("TRANSFERENCIA");
+        enviada.setValor(1000L);
+        enviada.setData(LocalDateTime.now());
+        enviada.setContaRemetente(cliente);
+        enviada.setContaDestinatario(contaSalvaNoBanco);
+        Transacao recebida = new Transacao();
+        recebida.setTipo("DEPOSITO");
+        recebida.setValor(500L);
+        recebida.setData(LocalDateTime.now());
+        recebida.setContaDestinatario(cliente);
+        Long idEnviada = transacaoRepository.save(enviada).getId();
+        Long idRecebida = transacaoRepository.save(recebida).getId();
+
+        mockMvc.perform(delete("/conta/{numeroDaConta}", cliente.getNumeroDaConta())
+                        .header("Authorization", token(cliente)))
+                .andExpect(status().isOk());
+
+        assertEquals(99L, jdbcTemplate.queryForObject(
+                "SELECT conta_remetente_id FROM tb_transacao WHERE id = ?", Long.class, idEnviada));
+        assertEquals(99L, jdbcTemplate.queryForObject(
+                "SELECT conta_destinatario_id FROM tb_transacao WHERE id = ?", Long.class, idRecebida));
+        assertFalse(contaRepository.existsById(cliente.getNumeroDaConta()));
+    }
+
+    @Test
+    @DisplayName("Deve listar as contas em páginas por cursor, filtrando pelo nome e sem expor a senha")
+    void deveListarContasPaginadasComFiltro() throws Exception {
+        for (String nome : List.of("Filtro Um", "Filtro Dois", "Filtro Tres", "Outro Nome")) {
+            Conta conta = new Conta();
+            conta.setNome(nome);
+            conta.setEmail(nome.replace(" ", ".").toLowerCase() + "@email.com");
+            conta.setSenha("senhaCriptografada");
+            conta.setRoles(new ArrayList<>(Arrays.asList("USER")));
+            contaRepository.save(conta);
+        }
+        String token = token(contaSalvaNoBanco);
+
+        String cursor = mockMvc.perform(get("/conta/listartodas")
+                        .param("nome", "filtro")
+                        .param("tamanho", "2")
+                        .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].nome", is("Filtro Um")))
+                .andExpect(jsonPath("$[0].saldo", is(0.0)))
+                .andExpect(jsonPath("$[0].senha").doesNotExist())
+                .andExpect(header().exists("X-Proximo-Cursor"))
+                .andReturn().getResponse().getHeader("X-Proximo-Cursor");
+
+        mockMvc.perform(get("/conta/listartodas")
+                        .param("nome", "filtro")
+                        .param("tamanho", "2")
+                        .param("cursor", cursor)
+                        .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].nome", is("Filtro Tres")))
+                .andExpect(header().doesNotExist("X-Proximo-Cursor"));
+
+        mockMvc.perform(get("/conta/listartodas/export")
+                        .header("Authorization", token))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"));
+    }
+}
@@ -3,6 +3,7 @@ package com.simuladorbanco.BancoDigital.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.simuladorbanco.BancoDigital.dtos.Login;
 import com.simuladorbanco.BancoDigital.dtos.Sessao;
+import com.simuladorbanco.BancoDigital.service.LimiteDeLogin;
 import com.simuladorbanco.BancoDigital.service.LoginService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -30,6 +31,9 @@ class LoginControllerTest {
     @Mock
     private LoginService loginService;
 
+    @Mock
+    private LimiteDeLogin limiteDeLogin;
+
     @InjectMocks
     private LoginController loginController;
 
@@ -0,0 +1,57 @@
+package com.simuladorbanco.BancoDigital.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.simuladorbanco.BancoDigital.dtos.TransferenciaRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CentavosTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Deve converter reais para centavos sem perder precisão")
+    void deveConverterReaisParaCentavos() {
+        assertEquals(1050L, Centavos.deReais(new BigDecimal("10.5")));
+        assertEquals(10L, Centavos.deReais(new BigDecimal("0.10")));
+        assertEquals(30000L, Centavos.deReais(new BigDecimal("300")));
+        assertEquals(new BigDecimal("10.50"), Centavos.paraReais(1050L));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar valores com mais de duas casas decimais em vez de arredondar")
+    void deveRejeitarMaisDeDuasCasas() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> Centavos.deReais(new BigDecimal("10.505")));
+        assertEquals("O valor deve ter no máximo duas casas decimais.", exception.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> Centavos.deReais(null));
+    }
+
+    @Test
+    @DisplayName("Deve lançar ArithmeticException quando a soma estoura o long")
+    void deveDetectarEstouro() {
+        assertEquals(300L, Centavos.somar(100L, 200L));
+        assertThrows(ArithmeticException.class, () -> Centavos.somar(Long.MAX_VALUE, 1L));
+        assertThrows(ArithmeticException.class, () -> Centavos.subtrair(Long.MIN_VALUE, 1L));
+    }
+
+    @Test
+    @DisplayName("O JSON deve continuar em reais enquanto o campo guarda centavos")
+    void deveManterReaisNoJson() throws Exception {
+        // 0.1 + 0.2 em double não dá 0.3; em centavos a conta é exata
+        TransferenciaRequest request = objectMapper.readValue(
+                "{\"valor\": 0.30, \"numeroContaDestinatario\": 2}", TransferenciaRequest.class);
+        assertEquals(30L, request.getValor());
+
+        request.setValor(15075L);
+        assertTrue(objectMapper.writeValueAsString(request).contains("\"valor\":150.75"));
+
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue(
+                "{\"valor\": 1.999, \"numeroContaDestinatario\": 2}", TransferenciaRequest.class));
+    }
+}
@@ -0,0 +1,32 @@
+package com.simuladorbanco.BancoDigital.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PapelTest {
+
+    @Test
+    @DisplayName("Deve guardar os papéis da conta como máscara de bits e devolver a lista de nomes")
+    void deveConverterPapeisEmMascara() {
+        Conta conta = new Conta();
+        conta.setRoles(List.of("ADMIN", "ROLE_USER"));
+
+        assertEquals(Papel.USER.bit() | Papel.ADMIN.bit(), conta.getPapeis());
+        assertEquals(List.of("USER", "ADMIN"), conta.getRoles());
+
+        conta.setRoles(List.of());
+        assertTrue(conta.getRoles().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar papel desconhecido em vez de descartá-lo")
+    void deveRejeitarPapelDesconhecido() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new Conta().setRoles(List.of("GERENTE")));
+        assertEquals("Papel desconhecido: GERENTE", exception.getMessage());
+    }
+}
@@ -0,0 +1,298 @@
+package com.simuladorbanco.BancoDigital.motor;
+
+import com.simuladorbanco.BancoDigital.dtos.TransacaoDTO;
+import com.simuladorbanco.BancoDigital.exception.SaldoInsuficienteException;
+import com.simuladorbanco.BancoDigital.model.Conta;
+import com.simuladorbanco.BancoDigital.model.Transacao;
+import com.simuladorbanco.BancoDigital.repository.ContaRepository;
+import com.simuladorbanco.BancoDigital.repository.LancamentoRejeitadoRepository;
+import com.simuladorbanco.BancoDigital.repository.TransacaoRepository;
+import com.simuladorbanco.BancoDigital.service.CacheDoExtrato;
+import com.simuladorbanco.BancoDigital.service.ResumoService;
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.ArgumentMatchers;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MotorDeContasTest {
+
+    @Mock
+    private ContaRepository contaRepository;
+
+    @Mock
+    private PersistenciaDoMotor persistencia;
+
+    private MotorDeContas motor;
+
+    // Soma dos deltas entregues à persistência, por conta
+    private final Map<Long, Long> deltas = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        // Duas partições: contas pares na 0, ímpares na 1
+        motor = new MotorDeContas(contaRepository, persistencia, 2, 1024);
+        lenient().doAnswer(invocacao -> {
+            deltas.merge(invocacao.getArgument(0), invocacao.getArgument(1), Long::sum);
+            return null;
+        }).when(persistencia).registrarDelta(anyLong(), anyLong());
+    }
+
+    @AfterEach
+    void desligar() throws InterruptedException {
+        motor.desligar();
+    }
+
+    private void cadastrar(Long numero, String email, long saldo) {
+        Conta conta = new Conta();
+        conta.setNumeroDaConta(numero);
+        conta.setEmail(email);
+        conta.setNome("Conta " + numero);
+        conta.setSaldo(saldo);
+        when(contaRepository.findById(numero)).thenReturn(Optional.of(conta));
+    }
+
+    @Test
+    @DisplayName("Deve transferir entre contas de partições diferentes e registrar a transação")
+    void deveTransferirEntreParticoes() {
+        cadastrar(1L, "a@teste.com", 10000L);
+        cadastrar(2L, "b@teste.com", 0L);
+
+        Transacao transacao = motor.transferir(1L, "a@teste.com", 2L, 2500L);
+
+        assertEquals("TRANSFERENCIA", transacao.getTipo());
+        assertEquals("Conta 2", transacao.getContaDestinatario().getNome());
+        assertEquals(-2500L, deltas.get(1L));
+        assertEquals(2500L, deltas.get(2L));
+        verify(persistencia).registrarTransacao(transacao);
+    }
+
+    @Test
+    @DisplayName("Deve contar o saldo dos slots de uma conta quente ao carregá-la")
+    void deveIncluirSaldoDosSlots() {
+        cadastrar(1L, "a@teste.com", 1000L);
+        when(contaRepository.buscarSaldoTotal(1L)).thenReturn(Optional.of(10000L));
+
+        motor.sacar(1L, "a@teste.com", 5000L);
+
+        assertEquals(-5000L, deltas.get(1L));
+    }
+
+    @Test
+    @DisplayName("Deve devolver o valor ao remetente quando a conta de destino não existe")
+    void deveEstornarQuandoDestinatarioNaoExiste() {
+        cadastrar(1L, "a@teste.com", 10000L);
+        when(contaRepository.findById(4L)).thenReturn(Optional.empty());
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> motor.transferir(1L, "a@teste.com", 4L, 2500L));
+
+        assertEquals("Conta não encontrada", exception.getMessage());
+        assertEquals(0L, deltas.get(1L));
+        verify(persistencia, never()).registrarTransacao(any());
+    }
+
+    @Test
+    @DisplayName("Deve manter as regras de saldo e de dono da conta")
+    void deveValidarSaldoEDono() {
+        cadastrar(1L, "a@teste.com", 100L);
+
+        assertThrows(SaldoInsuficienteException.class, () -> motor.sacar(1L, "a@teste.com", 101L));
+        assertThrows(AccessDeniedException.class, () -> motor.depositar(1L, "outro@teste.com", 50L));
+        verify(persistencia, never()).registrarDelta(anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve conferir o dono pelo e-mail novo depois que a conta é atualizada")
+    void deveRelerDonoDepoisDeDescartarDados() {
+        cadastrar(1L, "a@teste.com", 1000L);
+        motor.sacar(1L, "a@teste.com", 100L);
+        ContaRepository.DadosDaConta dados = mock(ContaRepository.DadosDaConta.class);
+        when(dados.getEmail()).thenReturn("novo@teste.com");
+        when(dados.getNome()).thenReturn("Conta 1");
+        when(contaRepository.buscarDados(List.of(1L))).thenReturn(List.of(dados));
+
+        motor.descartarDadosAposCommit(1L);
+
+        assertThrows(AccessDeniedException.class, () -> motor.sacar(1L, "a@teste.com", 100L));
+        motor.sacar(1L, "novo@teste.com", 100L);
+        // O saldo em memória não é relido: os deltas podem ainda não estar no banco
+        assertEquals(-200L, deltas.get(1L));
+        verify(contaRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Deve recusar operações numa conta removida depois de carregada")
+    void deveRecusarContaRemovida() {
+        cadastrar(1L, "a@teste.com", 1000L);
+        motor.sacar(1L, "a@teste.com", 100L);
+        when(contaRepository.buscarDados(List.of(1L))).thenReturn(List.of());
+
+        motor.descartarDadosAposCommit(1L);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> motor.depositar(1L, "a@teste.com", 100L));
+        assertEquals("Conta não encontrada", exception.getMessage());
+        assertEquals(-100L, deltas.get(1L));
+    }
+
+    @Test
+    @DisplayName("Saques concorrentes nunca deixam o saldo negativo")
+    void naoDeveDeixarSaldoNegativoComSaquesConcorrentes() throws Exception {
+        cadastrar(1L, "a@teste.com", 1000L);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            resultados.add(executor.submit(() -> {
+                try {
+                    motor.sacar(1L, "a@teste.com", 10L);
+                    return true;
+                } catch (SaldoInsuficienteException e) {
+                    return false;
+                }
+            }));
+        }
+        int aprovados = 0;
+        for (Future<Boolean> resultado : resultados) {
+            aprovados += resultado.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        // 1000 centavos dão para exatamente 100 saques de 10
+        assertEquals(100, aprovados);
+        assertEquals(-1000L, deltas.get(1L));
+        // A conta só é lida do banco uma vez
+        verify(contaRepository, times(1)).findById(1L);
+    }
+
+    private PersistenciaDoMotor persistenciaReal(TransacaoRepository transacaoRepository,
+                                                 LancamentoRejeitadoRepository rejeitadoRepository,
+                                                 CacheDoExtrato cacheDoExtrato) {
+        return new PersistenciaDoMotor(contaRepository, transacaoRepository, rejeitadoRepository, cacheDoExtrato,
+                mock(ResumoService.class), mock(PlatformTransactionManager.class), 500, 1024, 3_600_000);
+    }
+
+    private Transacao deposito(Long numeroDaConta, long valor) {
+        Conta resumo = new Conta();
+        resumo.setNumeroDaConta(numeroDaConta);
+        resumo.setNome("Conta " + numeroDaConta);
+        Transacao transacao = new Transacao();
+        transacao.setTipo("DEPOSITO");
+        transacao.setValor(valor);
+        transacao.setData(LocalDateTime.now());
+        transacao.setContaDestinatario(resumo);
+        return transacao;
+    }
+
+    @Test
+    @DisplayName("Deve gravar de novo o lote que falhou, sem ler as referências da tentativa anterior")
+    void deveGravarDeNovoLoteQueFalhou() throws Exception {
+        TransacaoRepository transacaoRepository = mock(TransacaoRepository.class);
+        LancamentoRejeitadoRepository rejeitadoRepository = mock(LancamentoRejeitadoRepository.class);
+        CacheDoExtrato cacheDoExtrato = mock(CacheDoExtrato.class);
+        // Referência de uma sessão que já fechou: ler o nome dela estoura como no Hibernate
+        Conta proxyFechado = mock(Conta.class);
+        lenient().when(proxyFechado.getNome()).thenThrow(new LazyInitializationException("sessão fechada"));
+        when(contaRepository.getReferenceById(anyLong())).thenReturn(proxyFechado);
+        when(contaRepository.creditar(2L, 1000L)).thenReturn(1);
+        List<List<Transacao>> gravadas = new ArrayList<>();
+        when(transacaoRepository.saveAll(anyList()))
+                .thenThrow(new RuntimeException("banco fora do ar"))
+                .thenAnswer(invocacao -> {
+                    List<Transacao> lote = invocacao.getArgument(0);
+                    // O delta refeito sozinho grava uma lista vazia
+                    if (!lote.isEmpty()) {
+                        gravadas.add(new ArrayList<>(lote));
+                    }
+                    return lote;
+                });
+        PersistenciaDoMotor persistenciaReal = persistenciaReal(transacaoRepository, rejeitadoRepository,
+                cacheDoExtrato);
+
+        Transacao transacao = deposito(2L, 1000L);
+        Conta resumo = transacao.getContaDestinatario();
+        persistenciaReal.registrarDelta(2L, 1000L);
+        persistenciaReal.registrarTransacao(transacao);
+
+        // O lote falha inteiro e é refeito item a item no mesmo ciclo
+        persistenciaReal.persistirPendentes();
+        assertEquals(0, persistenciaReal.quantidadePendente());
+        assertSame(resumo, transacao.getContaDestinatario());
+        assertEquals(1, gravadas.size());
+        assertSame(proxyFechado, gravadas.get(0).get(0).getContaDestinatario());
+        verify(contaRepository, times(2)).creditar(2L, 1000L);
+        verify(rejeitadoRepository, never()).save(any());
+        verify(cacheDoExtrato).registrarAposCommit(ArgumentMatchers.<TransacaoDTO>argThat(dto -> "Conta 2".equals(dto.getContaDestinatario().getNome())));
+        persistenciaReal.desligar();
+    }
+
+    @Test
+    @DisplayName("Deve tirar da fila o item que o banco recusa sem travar os outros")
+    void deveRejeitarItemQueFalhaSozinho() throws Exception {
+        TransacaoRepository transacaoRepository = mock(TransacaoRepository.class);
+        LancamentoRejeitadoRepository rejeitadoRepository = mock(LancamentoRejeitadoRepository.class);
+        when(contaRepository.creditar(2L, 1000L)).thenReturn(1);
+        // Conta 5 foi encerrada depois que o motor aceitou o crédito
+        when(contaRepository.creditar(5L, 300L)).thenReturn(0);
+        PersistenciaDoMotor persistenciaReal = persistenciaReal(transacaoRepository, rejeitadoRepository,
+                mock(CacheDoExtrato.class));
+
+        persistenciaReal.registrarDelta(5L, 300L);
+        persistenciaReal.registrarDelta(2L, 1000L);
+        persistenciaReal.registrarTransacao(deposito(2L, 1000L));
+
+        persistenciaReal.persistirPendentes();
+
+        assertEquals(0, persistenciaReal.quantidadePendente());
+        verify(rejeitadoRepository).save(argThat(rejeitado -> "SALDO".equals(rejeitado.getTipo())
+                && rejeitado.getNumeroDaConta() == 5L && rejeitado.getValor() == 300L));
+        // Lote e depois item a item; o lote falha antes de chegar às transações
+        verify(contaRepository, times(2)).creditar(2L, 1000L);
+        verify(transacaoRepository, times(1)).saveAll(argThat(lote -> lote.iterator().hasNext()));
+        persistenciaReal.desligar();
+    }
+
+    @Test
+    @DisplayName("Deve reter o lote quando nem a rejeição consegue ser gravada")
+    void deveReterLoteComBancoForaDoAr() throws Exception {
+        LancamentoRejeitadoRepository rejeitadoRepository = mock(LancamentoRejeitadoRepository.class);
+        when(contaRepository.creditar(anyLong(), anyLong())).thenThrow(new RuntimeException("banco fora do ar"));
+        when(rejeitadoRepository.save(any())).thenThrow(new RuntimeException("banco fora do ar"));
+        PersistenciaDoMotor persistenciaReal = persistenciaReal(mock(TransacaoRepository.class),
+                rejeitadoRepository, mock(CacheDoExtrato.class));
+
+        persistenciaReal.registrarDelta(2L, 1000L);
+        persistenciaReal.registrarDelta(4L, 500L);
+        persistenciaReal.persistirPendentes();
+        assertEquals(2, persistenciaReal.quantidadePendente());
+
+        reset(contaRepository, rejeitadoRepository);
+        when(contaRepository.creditar(anyLong(), anyLong())).thenReturn(1);
+        persistenciaReal.persistirPendentes();
+        assertEquals(0, persistenciaReal.quantidadePendente());
+        verify(contaRepository).creditar(2L, 1000L);
+        verify(contaRepository).creditar(4L, 500L);
+        verify(rejeitadoRepository, never()).save(any());
+        persistenciaReal.desligar();
+    }
+}
@@ -0,0 +1,82 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import com.simuladorbanco.BancoDigital.repository.ContaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class CacheDeContasTest {
+
+    private ContaRepository contaRepository;
+    private CacheDeContas cacheDeContas;
+
+    @BeforeEach
+    void setUp() {
+        contaRepository = mock(ContaRepository.class);
+        cacheDeContas = new CacheDeContas(contaRepository, 100, 10, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Deve ir ao banco só pelas contas que faltam no cache")
+    void deveBuscarNoBancoSoAsQueFaltam() {
+        when(contaRepository.buscarDados(List.of(1L))).thenReturn(List.of(dados(1L, "Ana")));
+        assertEquals("Ana", cacheDeContas.buscar(1L).orElseThrow().nome());
+
+        when(contaRepository.buscarDados(List.of(2L))).thenReturn(List.of(dados(2L, "Bruno")));
+        Map<Long, CacheDeContas.DadosDaConta> contas = cacheDeContas.buscar(Set.of(1L, 2L));
+
+        assertEquals("Bruno", contas.get(2L).nome());
+        assertEquals("ana@email.com", contas.get(1L).email());
+        verify(contaRepository, times(2)).buscarDados(anyCollection());
+        assertEquals("Bruno", cacheDeContas.buscar(2L).orElseThrow().nome());
+        verifyNoMoreInteractions(contaRepository);
+    }
+
+    @Test
+    @DisplayName("Deve reler a conta do banco depois de descartada e não guardar conta inexistente")
+    void deveRelerDepoisDeDescartar() {
+        when(contaRepository.buscarDados(List.of(1L)))
+                .thenReturn(List.of(dados(1L, "Ana")), List.of(dados(1L, "Ana Maria")));
+        when(contaRepository.buscarDados(List.of(9L))).thenReturn(List.of());
+
+        cacheDeContas.buscar(1L);
+        cacheDeContas.descartarAposCommit(1L);
+
+        assertEquals("Ana Maria", cacheDeContas.buscar(1L).orElseThrow().nome());
+        assertTrue(cacheDeContas.buscar(9L).isEmpty());
+        assertTrue(cacheDeContas.buscar(9L).isEmpty());
+        verify(contaRepository, times(2)).buscarDados(List.of(9L));
+    }
+
+    @Test
+    @DisplayName("Conferência de dono deve ler do banco mesmo com a conta no cache e renovar a entrada")
+    void deveConferirNoBancoMesmoComContaNoCache() {
+        // E-mail trocado em outra instância: o descarte de lá não chega ao cache daqui
+        when(contaRepository.buscarDados(List.of(1L)))
+                .thenReturn(List.of(dados(1L, "Ana")), List.of(dados(1L, "Beatriz")), List.of());
+        cacheDeContas.buscar(1L);
+
+        assertEquals("beatriz@email.com", cacheDeContas.buscarNoBanco(1L).orElseThrow().email());
+        assertEquals("Beatriz", cacheDeContas.buscar(1L).orElseThrow().nome());
+        // Removida em outra instância: sai do cache também
+        assertTrue(cacheDeContas.buscarNoBanco(1L).isEmpty());
+        verify(contaRepository, times(3)).buscarDados(List.of(1L));
+    }
+
+    private ContaRepository.DadosDaConta dados(Long numero, String nome) {
+        return new ContaRepository.DadosDaConta() {
+            public Long getNumeroDaConta() { return numero; }
+            public String getNome() { return nome; }
+            public String getEmail() { return nome.split(" ")[0].toLowerCase() + "@email.com"; }
+        };
+    }
+}
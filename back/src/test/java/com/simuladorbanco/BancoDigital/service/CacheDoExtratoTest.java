@@ -0,0 +1,144 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import com.simuladorbanco.BancoDigital.dtos.TransacaoDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheDoExtratoTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 1, 10, 0);
+
+    private SimpleMeterRegistry meterRegistry;
+    private CacheDoExtrato cacheDoExtrato;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Guarda no máximo 3 transações por conta
+        cacheDoExtrato = new CacheDoExtrato(3, 1000, 10, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Deve carregar do banco só na primeira leitura e registrar acerto e falta")
+    void deveCarregarUmaVezEServirDaMemoria() {
+        AtomicInteger cargas = new AtomicInteger();
+        CacheDoExtrato.Recentes doBanco = new CacheDoExtrato.Recentes(List.of(deposito(1L, 0)), false);
+
+        cacheDoExtrato.buscar(1L, numero -> { cargas.incrementAndGet(); return doBanco; });
+        CacheDoExtrato.Recentes segunda = cacheDoExtrato.buscar(1L, numero -> { cargas.incrementAndGet(); return doBanco; });
+
+        assertEquals(1, cargas.get());
+        assertSame(doBanco, segunda);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "extrato.recente").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "extrato.recente").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Deve ir ao banco de novo depois da expiração, mesmo com a conta sendo lida e movimentada")
+    void deveExpirarContadoDaCarga() {
+        AtomicLong agora = new AtomicLong();
+        CacheDoExtrato comRelogio = new CacheDoExtrato(3, 1000, 10, meterRegistry, agora::get);
+        AtomicInteger cargas = new AtomicInteger();
+        Function<Long, CacheDoExtrato.Recentes> carregar = numero -> {
+            cargas.incrementAndGet();
+            return new CacheDoExtrato.Recentes(List.of(deposito(1L, 0)), false);
+        };
+
+        comRelogio.buscar(1L, carregar);
+        for (int minuto = 1; minuto < 10; minuto++) {
+            agora.set(TimeUnit.MINUTES.toNanos(minuto));
+            comRelogio.registrarAposCommit(deposito(1L + minuto, minuto));
+            comRelogio.buscar(1L, carregar);
+        }
+        assertEquals(1, cargas.get());
+
+        agora.set(TimeUnit.MINUTES.toNanos(10));
+        comRelogio.buscar(1L, carregar);
+        assertEquals(2, cargas.get());
+    }
+
+    @Test
+    @DisplayName("Deve acrescentar a transação nova no topo sem invalidar a entrada")
+    void deveAcrescentarTransacaoNova() {
+        cacheDoExtrato.buscar(1L, numero -> new CacheDoExtrato.Recentes(List.of(deposito(2L, 2), deposito(1L, 1)), false));
+
+        // Fora de transação o registro é imediato
+        cacheDoExtrato.registrarAposCommit(deposito(3L, 3));
+        // Repetida (a carga já tinha visto o commit): ignorada
+        cacheDoExtrato.registrarAposCommit(deposito(3L, 3));
+
+        CacheDoExtrato.Recentes recentes = cacheDoExtrato.buscar(1L, numero -> fail("Não deveria ir ao banco"));
+        assertEquals(List.of(3L, 2L, 1L), recentes.transacoes().stream().map(TransacaoDTO::getId).toList());
+        assertFalse(recentes.temMais());
+    }
+
+    @Test
+    @DisplayName("Deve descartar a mais antiga ao passar do limite por conta")
+    void deveManterSoAsMaisRecentes() {
+        cacheDoExtrato.buscar(1L, numero -> new CacheDoExtrato.Recentes(
+                List.of(deposito(3L, 3), deposito(2L, 2), deposito(1L, 1)), false));
+
+        cacheDoExtrato.registrarAposCommit(deposito(4L, 4));
+
+        CacheDoExtrato.Recentes recentes = cacheDoExtrato.buscar(1L, numero -> fail("Não deveria ir ao banco"));
+        assertEquals(List.of(4L, 3L, 2L), recentes.transacoes().stream().map(TransacaoDTO::getId).toList());
+        assertTrue(recentes.temMais(), "A transação que saiu continua no banco.");
+    }
+
+    @Test
+    @DisplayName("Não deve criar entrada para conta que ainda não está no cache")
+    void naoDeveCriarEntradaParaContaForaDoCache() {
+        cacheDoExtrato.registrarAposCommit(deposito(1L, 0));
+
+        AtomicInteger cargas = new AtomicInteger();
+        cacheDoExtrato.buscar(1L, numero -> {
+            cargas.incrementAndGet();
+            return new CacheDoExtrato.Recentes(List.of(), false);
+        });
+        assertEquals(1, cargas.get());
+    }
+
+    @Test
+    @DisplayName("Conta renomeada deve descartar só a entrada dela e as de quem transacionou com ela")
+    void deveDescartarSoAsEntradasComAConta() {
+        AtomicInteger cargas = new AtomicInteger();
+        Function<Long, CacheDoExtrato.Recentes> carregar = numero -> {
+            cargas.incrementAndGet();
+            return switch (numero.intValue()) {
+                // A conta 2 recebeu da conta 1; a 3 não tem nada com ela
+                case 2 -> new CacheDoExtrato.Recentes(List.of(new TransacaoDTO(5L, "TRANSFERENCIA", 1000L,
+                        BASE, 1L, "Ana", 2L, "Bruno")), false);
+                default -> new CacheDoExtrato.Recentes(List.of(new TransacaoDTO(numero * 10, "DEPOSITO", 1000L,
+                        BASE, null, null, numero, "Conta " + numero)), false);
+            };
+        };
+        for (long numero = 1; numero <= 3; numero++) {
+            cacheDoExtrato.buscar(numero, carregar);
+        }
+
+        cacheDoExtrato.descartarContaAposCommit(1L);
+        for (long numero = 1; numero <= 3; numero++) {
+            cacheDoExtrato.buscar(numero, carregar);
+        }
+
+        // Recarregadas: a própria conta 1 e a 2; a 3 continuou no cache
+        assertEquals(5, cargas.get());
+    }
+
+    private TransacaoDTO deposito(Long id, int minutos) {
+        return new TransacaoDTO(id, "DEPOSITO", 1000L, BASE.plusMinutes(minutos), null, null, 1L, "Teste");
+    }
+}
@@ -17,13 +17,18 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.yaml.snakeyaml.events.Event;
 
 import java.util.*;
@@ -49,6 +54,18 @@ class ContaServiceTest {
     @Mock
     private TransacaoRepository transacaoRepository;
 
+    @Mock
+    private ContaQuenteService contaQuenteService;
+
+    @Mock
+    private CacheDoExtrato cacheDoExtrato;
+
+    @Mock
+    private CacheDeContas cacheDeContas;
+
+    @Mock
+    private EncerramentoDeContas encerramentoDeContas;
+
     private Conta conta;
 
     @BeforeEach // Este método será executado antes de cada teste
@@ -58,8 +75,22 @@ class ContaServiceTest {
         conta.setNumeroDaConta(1L);
         conta.setEmail("usuario@teste.com");
         conta.setSenha("senha123");
-        conta.setSaldo(500);
+        conta.setSaldo(50000);
         conta.setNome("Usuario");
+
+        // Nenhuma conta é quente nesses testes: a leitura devolve a própria conta
+        lenient().when(contaQuenteService.comSaldoTotal(any(Conta.class))).thenAnswer(i -> i.getArgument(0));
+    }
+
+    @AfterEach
+    void limparContexto() {
+        SecurityContextHolder.clearContext();
+    }
+
+    // Simula o usuário autenticado pelo JWTFilter
+    private void autenticarComo(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, Collections.emptyList()));
     }
 
 
@@ -153,7 +184,7 @@ class ContaServiceTest {
         dadosParaAtualizar.setNome("Nome Novo");
         dadosParaAtualizar.setSenha("novaSenha123");
         dadosParaAtualizar.setEmail("email@original.com"); // Mesmo email, não deve dar erro
-        dadosParaAtualizar.setSaldo(100.0);
+        dadosParaAtualizar.setSaldo(10000L);
 
         // Mockando o comportamento dos repositórios e serviços
         when(contaRepository.findById(numeroDaConta)).thenReturn(Optional.of(contaExistente));
@@ -167,7 +198,7 @@ class ContaServiceTest {
         assertNotNull(contaAtualizada);
         assertEquals("Nome Novo", contaAtualizada.getNome());
         assertEquals("senhaCriptografadaNova", contaAtualizada.getSenha());
-        assertEquals(100.0, contaAtualizada.getSaldo());
+        assertEquals(10000L, contaAtualizada.getSaldo());
 
         // Verifica se os métodos foram chamados
         verify(contaRepository).findById(numeroDaConta);
@@ -238,7 +269,7 @@ class ContaServiceTest {
         dadosParaAtualizar.setEmail("email@novo.com"); // Um email novo
         dadosParaAtualizar.setSenha("senhaNova");
         dadosParaAtualizar.setNome("Nome");
-        dadosParaAtualizar.setSaldo(200.0);
+        dadosParaAtualizar.setSaldo(20000L);
 
         when(contaRepository.findById(numeroDaConta)).thenReturn(Optional.of(contaExistente));
         // Simula que o novo e-mail NÃO existe no banco
@@ -262,22 +293,20 @@ class ContaServiceTest {
     void deveDepositarComSucesso() {
         // Cenário (Arrange)
         Long numeroDaConta = 1L;
-        Double valorDeposito = 100.0;
-        Double saldoInicial = 50.0;
+        Long valorDeposito = 10000L;
 
-        // Criamos uma conta que simula o estado ANTES do depósito
         Conta conta = new Conta();
         conta.setNumeroDaConta(numeroDaConta);
-        conta.setSaldo(saldoInicial);
+        autenticarComo("usuario@teste.com");
 
         // Criamos os objetos de transação que esperamos que sejam retornados
         Transacao transacao = new Transacao(); // Preencha com dados se necessário
         TransacaoDTO transacaoDTOEsperado = new TransacaoDTO(); // Preencha com dados se necessário
 
-        // Mockando o comportamento dos repositórios e serviços
-        when(contaRepository.findById(numeroDaConta)).thenReturn(Optional.of(conta));
-        // Não precisamos mockar o save, pois ele retorna void. O verify fará o trabalho.
-        when(transacaoService.adicionarTransacaoDeposito(any(Conta.class), anyDouble())).thenReturn(transacao);
+        // O UPDATE condicional altera uma linha: a conta existe e pertence ao usuário logado
+        when(contaRepository.creditarDoDono(numeroDaConta, "usuario@teste.com", valorDeposito)).thenReturn(1);
+        when(contaRepository.getReferenceById(numeroDaConta)).thenReturn(conta);
+        when(transacaoService.adicionarTransacaoDeposito(any(Conta.class), anyLong())).thenReturn(transacao);
         when(transacaoService.adicionarTransacaoDTODeposito(any(Conta.class), any(Transacao.class))).thenReturn(transacaoDTOEsperado);
 
         // Ação (Act)
@@ -287,12 +316,9 @@ class ContaServiceTest {
         assertNotNull(resultadoDTO, "O DTO retornado не должен ser nulo.");
         assertEquals(transacaoDTOEsperado, resultadoDTO, "O DTO de transação retornado deve ser o esperado.");
 
-        // Verifica se o saldo foi atualizado corretamente ANTES de salvar
-        assertEquals(saldoInicial + valorDeposito, conta.getSaldo(), "O saldo da conta deveria ter sido atualizado.");
-
-        // Verifica se os métodos corretos foram chamados com os parâmetros corretos
-        verify(contaRepository).findById(numeroDaConta);
-        verify(contaRepository).save(conta); // Verifica se o método save foi chamado com o objeto conta modificado
+        // O saldo é alterado pelo UPDATE no banco, sem ler a conta nem salvar a entidade inteira
+        verify(contaRepository, never()).findById(anyLong());
+        verify(contaRepository, never()).save(any(Conta.class));
         verify(transacaoService).adicionarTransacaoDeposito(conta, valorDeposito);
         verify(transacaoService).adicionarTransacaoDTODeposito(conta, transacao);
     }
@@ -302,7 +328,9 @@ class ContaServiceTest {
     void deveLancarRuntimeExceptionAoDepositarEmContaInexistente() {
         // Cenário
         Long numeroDaContaInexistente = 99L;
-        Double valorDeposito = 100.0;
+        Long valorDeposito = 10000L;
+        autenticarComo("usuario@teste.com");
+        when(contaRepository.creditarDoDono(numeroDaContaInexistente, "usuario@teste.com", valorDeposito)).thenReturn(0);
         when(contaRepository.findById(numeroDaContaInexistente)).thenReturn(Optional.empty());
 
         // Ação e Verificação
@@ -312,7 +340,22 @@ class ContaServiceTest {
 
         assertEquals("Conta não encontrada", exception.getMessage());
         verify(contaRepository, never()).save(any(Conta.class));
-        verify(transacaoService, never()).adicionarTransacaoDeposito(any(), anyDouble());
+        verify(transacaoService, never()).adicionarTransacaoDeposito(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve negar o depósito em conta de outro usuário")
+    void deveNegarDepositoEmContaDeOutroUsuario() {
+        // Cenário
+        autenticarComo("usuario@teste.com");
+        Conta contaDeOutro = new Conta();
+        contaDeOutro.setEmail("outro@teste.com");
+        when(contaRepository.creditarDoDono(2L, "usuario@teste.com", 10000L)).thenReturn(0);
+        when(contaRepository.findById(2L)).thenReturn(Optional.of(contaDeOutro));
+
+        // Ação e Verificação
+        assertThrows(AccessDeniedException.class, () -> contaService.depositar(10000L, 2L));
+        verify(transacaoService, never()).adicionarTransacaoDeposito(any(), anyLong());
     }
 
     @Test
@@ -320,8 +363,6 @@ class ContaServiceTest {
     void deveLancarIllegalArgumentExceptionParaDepositoNulo() {
         // Cenário
         Long numeroDaConta = 1L;
-        // Mockamos o findById para isolar o teste na validação do valor
-        when(contaRepository.findById(numeroDaConta)).thenReturn(Optional.of(new Conta()));
 
         // Ação e Verificação
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -329,6 +370,8 @@ class ContaServiceTest {
         });
 
         assertEquals("O valor do depósito deve ser maior que zero.", exception.getMessage());
+        // O valor é validado antes de qualquer acesso ao banco
+        verifyNoInteractions(contaRepository);
     }
 
     @Test
@@ -336,14 +379,14 @@ class ContaServiceTest {
     void deveLancarIllegalArgumentExceptionParaDepositoZero() {
         // Cenário
         Long numeroDaConta = 1L;
-        when(contaRepository.findById(numeroDaConta)).thenReturn(Optional.of(new Conta()));
 
         // Ação e Verificação
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            contaService.depositar(0.0, numeroDaConta);
+            contaService.depositar(0L, numeroDaConta);
         });
 
         assertEquals("O valor do depósito deve ser maior que zero.", exception.getMessage());
+        verifyNoInteractions(contaRepository);
     }
 
     @Test
@@ -351,14 +394,14 @@ class ContaServiceTest {
     void deveLancarIllegalArgumentExceptionParaDepositoNegativo() {
         // Cenário
         Long numeroDaConta = 1L;
-        when(contaRepository.findById(numeroDaConta)).thenReturn(Optional.of(new Conta()));
 
         // Ação e Verificação
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            contaService.depositar(-50.0, numeroDaConta);
+            contaService.depositar(-5000L, numeroDaConta);
         });
 
         assertEquals("O valor do depósito deve ser maior que zero.", exception.getMessage());
+        verifyNoInteractions(contaRepository);
     }
 
     @Test
@@ -366,22 +409,20 @@ class ContaServiceTest {
     void deveSacarComSucesso() {
         // Cenário (Arrange)
         Long numeroDaConta = 1L;
-        Double valorSaque = 100.0;
-        Double saldoInicial = 250.0;
+        Long valorSaque = 10000L;
 
-        // Criamos uma conta que simula o estado ANTES do depósito
         Conta conta = new Conta();
         conta.setNumeroDaConta(numeroDaConta);
-        conta.setSaldo(saldoInicial);
+        autenticarComo("usuario@teste.com");
 
         // Criamos os objetos de transação que esperamos que sejam retornados
         Transacao transacao = new Transacao(); // Preencha com dados se necessário
         TransacaoDTO transacaoDTOEsperado = new TransacaoDTO(); // Preencha com dados se necessário
 
-        // Mockando o comportamento dos repositórios e serviços
-        when(contaRepository.findById(numeroDaConta)).thenReturn(Optional.of(conta));
-        // Não precisamos mockar o save, pois ele retorna void. O verify fará o trabalho.
-        when(transacaoService.adicionarTransacaoSaque(any(Conta.class), anyDouble())).thenReturn(transacao);
+        // O UPDATE condicional altera uma linha: dono correto e saldo suficiente
+        when(contaRepository.debitar(numeroDaConta, "usuario@teste.com", valorSaque)).thenReturn(1);
+        when(contaRepository.getReferenceById(numeroDaConta)).thenReturn(conta);
+        when(transacaoService.adicionarTransacaoSaque(any(Conta.class), anyLong())).thenReturn(transacao);
         when(transacaoService.adicionarTransacaoDTOSaque(any(Conta.class), any(Transacao.class))).thenReturn(transacaoDTOEsperado);
 
         // Ação (Act)
@@ -391,22 +432,67 @@ class ContaServiceTest {
         assertNotNull(resultadoDTO);
         assertEquals(transacaoDTOEsperado, resultadoDTO);
 
-        // Verifica se o saldo foi atualizado corretamente ANTES de salvar
-        assertEquals(saldoInicial - valorSaque, conta.getSaldo());
-
-        // Verifica se os métodos corretos foram chamados com os parâmetros corretos
-        verify(contaRepository).findById(numeroDaConta);
-        verify(contaRepository).save(conta); // Verifica se o método save foi chamado com o objeto conta modificado
+        verify(contaRepository, never()).findById(anyLong());
+        verify(contaRepository, never()).save(any(Conta.class));
         verify(transacaoService).adicionarTransacaoSaque(conta, valorSaque);
         verify(transacaoService).adicionarTransacaoDTOSaque(conta, transacao);
     }
 
+    @Test
+    @DisplayName("Deve lançar SaldoInsuficienteException quando o saque é maior que o saldo")
+    void deveLancarSaldoInsuficienteExceptionNoSaque() {
+        // Cenário: o UPDATE não altera nenhuma linha, mas a conta existe e é do usuário
+        autenticarComo("usuario@teste.com");
+        when(contaRepository.debitar(1L, "usuario@teste.com", 100000L)).thenReturn(0);
+        when(contaRepository.findById(1L)).thenReturn(Optional.of(conta));
+
+        // Ação e Verificação
+        assertThrows(SaldoInsuficienteException.class, () -> contaService.sacar(100000L, 1L));
+        verify(transacaoService, never()).adicionarTransacaoSaque(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("No modo OTIMISTA o saque altera a conta carregada, sem UPDATE condicional")
+    void deveSacarNoModoOtimista() {
+        // Cenário: a @Version da entidade é conferida pelo Hibernate no commit
+        ReflectionTestUtils.setField(contaService, "modo", ModoConcorrencia.OTIMISTA);
+        autenticarComo("usuario@teste.com");
+        Transacao transacao = new Transacao();
+        TransacaoDTO transacaoDTOEsperado = new TransacaoDTO();
+        when(contaRepository.findById(1L)).thenReturn(Optional.of(conta));
+        when(contaRepository.getReferenceById(1L)).thenReturn(conta);
+        when(transacaoService.adicionarTransacaoSaque(conta, 10000L)).thenReturn(transacao);
+        when(transacaoService.adicionarTransacaoDTOSaque(conta, transacao)).thenReturn(transacaoDTOEsperado);
+
+        // Ação
+        TransacaoDTO resultadoDTO = contaService.sacar(10000L, 1L);
+
+        // Verificação
+        assertEquals(transacaoDTOEsperado, resultadoDTO);
+        assertEquals(40000L, conta.getSaldo());
+        verify(contaRepository, never()).debitar(anyLong(), anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("No modo OTIMISTA o saque maior que o saldo não altera a conta")
+    void deveLancarSaldoInsuficienteExceptionNoModoOtimista() {
+        ReflectionTestUtils.setField(contaService, "modo", ModoConcorrencia.OTIMISTA);
+        autenticarComo("usuario@teste.com");
+        when(contaRepository.findById(1L)).thenReturn(Optional.of(conta));
+
+        assertThrows(SaldoInsuficienteException.class, () -> contaService.sacar(100000L, 1L));
+        assertEquals(50000L, conta.getSaldo());
+        verifyNoInteractions(transacaoService);
+    }
+
     @Test
     @DisplayName("Deve lançar RuntimeException ao tentar sacar em conta inexistente")
     void deveLancarRuntimeExceptionAoSacarEmContaInexistente() {
         // Cenário
         Long numeroDaContaInexistente = 99L;
-        Double valorSaque = 100.0;
+        Long valorSaque = 10000L;
+        autenticarComo("usuario@teste.com");
+        when(contaRepository.debitar(numeroDaContaInexistente, "usuario@teste.com", valorSaque)).thenReturn(0);
         when(contaRepository.findById(numeroDaContaInexistente)).thenReturn(Optional.empty());
 
         // Ação e Verificação
@@ -416,7 +502,7 @@ class ContaServiceTest {
 
         assertEquals("Conta não encontrada", exception.getMessage());
         verify(contaRepository, never()).save(any(Conta.class));
-        verify(transacaoService, never()).adicionarTransacaoSaque(any(), anyDouble());
+        verify(transacaoService, never()).adicionarTransacaoSaque(any(), anyLong());
     }
 
     @Test
@@ -424,14 +510,14 @@ class ContaServiceTest {
     void deveLancarIllegalArgumentExceptionParaSaqueZero() {
         // Cenário
         Long numeroDaConta = 1L;
-        when(contaRepository.findById(numeroDaConta)).thenReturn(Optional.of(new Conta()));
 
         // Ação e Verificação
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            contaService.sacar(0.0, numeroDaConta);
+            contaService.sacar(0L, numeroDaConta);
         });
 
         assertEquals("O valor do saque deve ser maior que zero.", exception.getMessage());
+        verifyNoInteractions(contaRepository);
     }
 
     @Test
@@ -439,14 +525,30 @@ class ContaServiceTest {
     void deveLancarIllegalArgumentExceptionParaSaqueNegativo() {
         // Cenário
         Long numeroDaConta = 1L;
-        when(contaRepository.findById(numeroDaConta)).thenReturn(Optional.of(new Conta()));
 
         // Ação e Verificação
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            contaService.sacar(-50.0, numeroDaConta);
+            contaService.sacar(-5000L, numeroDaConta);
         });
 
         assertEquals("O valor do saque deve ser maior que zero.", exception.getMessage());
+        verifyNoInteractions(contaRepository);
+    }
+
+    @Test
+    @DisplayName("Deve lançar IllegalArgumentException para transferência sem conta de destino")
+    void deveLancarIllegalArgumentExceptionParaTransferenciaSemDestino() {
+        // Cenário
+        TransferenciaRequest request = new TransferenciaRequest();
+        request.setValor(5000L);
+
+        // Ação e Verificação
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            contaService.transferencia(request, 1L);
+        });
+
+        assertEquals("Informe a conta de destino da transferência.", exception.getMessage());
+        verifyNoInteractions(contaRepository);
     }
 
     @Test
@@ -455,31 +557,28 @@ class ContaServiceTest {
         // Cenário (Arrange)
         Long numeroContaRemetente = 1L;
         Long numeroContaDestinatario = 2L;
-        Double saldoInicialRemetente = 500.0;
-        Double saldoInicialDestinatario = 200.0;
-        Double valorTransferencia = 100.0;
+        Long valorTransferencia = 10000L;
 
         // Criando o objeto de requisição da transferência
         TransferenciaRequest request = new TransferenciaRequest();
         request.setNumeroContaDestinatario(numeroContaDestinatario);
         request.setValor(valorTransferencia);
 
-        // Criando as contas que simulam o estado no banco
         Conta remetente = new Conta();
         remetente.setNumeroDaConta(numeroContaRemetente);
-        remetente.setSaldo(saldoInicialRemetente);
-
         Conta destinatario = new Conta();
         destinatario.setNumeroDaConta(numeroContaDestinatario);
-        destinatario.setSaldo(saldoInicialDestinatario);
+        autenticarComo("usuario@teste.com");
 
-        // Mockando os retornos do repositório
-        when(contaRepository.findById(numeroContaRemetente)).thenReturn(Optional.of(remetente));
-        when(contaRepository.findById(numeroContaDestinatario)).thenReturn(Optional.of(destinatario));
+        // Mockando os UPDATEs condicionais e as referências usadas na transação
+        when(contaRepository.debitar(numeroContaRemetente, "usuario@teste.com", valorTransferencia)).thenReturn(1);
+        when(contaRepository.creditarContaComum(numeroContaDestinatario, valorTransferencia)).thenReturn(1);
+        when(contaRepository.getReferenceById(numeroContaRemetente)).thenReturn(remetente);
+        when(contaRepository.getReferenceById(numeroContaDestinatario)).thenReturn(destinatario);
 
         // Mockando os retornos do serviço de transação
         TransacaoDTO transacaoDTOEsperado = new TransacaoDTO();
-        when(transacaoService.adicionarTransacaoTransferencia(any(), any(), anyDouble())).thenReturn(new Transacao());
+        when(transacaoService.adicionarTransacaoTransferencia(any(), any(), anyLong(), anyBoolean())).thenReturn(new Transacao());
         when(transacaoService.adicionarTransacaoDTOTransferencia(any(), any(), any())).thenReturn(transacaoDTOEsperado);
 
         // Ação (Act)
@@ -489,17 +588,33 @@ class ContaServiceTest {
         assertNotNull(resultadoDTO);
         assertEquals(transacaoDTOEsperado, resultadoDTO);
 
-        // Verifica se os saldos foram alterados corretamente
-        assertEquals(400.0, remetente.getSaldo(), "O saldo do remetente deve ser debitado.");
-        assertEquals(300.0, destinatario.getSaldo(), "O saldo do destinatário deve ser creditado.");
-
-        // Verifica se o método save foi chamado para AMBAS as contas
-        verify(contaRepository, times(2)).save(any(Conta.class));
-        verify(contaRepository).save(remetente);
-        verify(contaRepository).save(destinatario);
+        // Nenhuma conta é lida nem salva inteira: os saldos mudam só pelos UPDATEs
+        verify(contaRepository, never()).findById(anyLong());
+        verify(contaRepository, never()).save(any(Conta.class));
 
         // Verifica se os métodos de transação foram chamados
-        verify(transacaoService).adicionarTransacaoTransferencia(eq(remetente), eq(destinatario), eq(valorTransferencia));
+        verify(transacaoService).adicionarTransacaoTransferencia(eq(remetente), eq(destinatario), eq(valorTransferencia), eq(false));
+    }
+
+    @Test
+    @DisplayName("Deve alterar as contas em ordem crescente mesmo quando o remetente tem o número maior")
+    void deveAlterarContasEmOrdemCrescente() {
+        // Cenário
+        TransferenciaRequest request = new TransferenciaRequest();
+        request.setNumeroContaDestinatario(3L);
+        request.setValor(5000L);
+        autenticarComo("usuario@teste.com");
+
+        when(contaRepository.creditarContaComum(3L, 5000L)).thenReturn(1);
+        when(contaRepository.debitar(8L, "usuario@teste.com", 5000L)).thenReturn(1);
+
+        // Ação
+        contaService.transferencia(request, 8L);
+
+        // Verificação: a linha da conta 3 é travada (creditada) antes da linha da conta 8
+        InOrder ordem = inOrder(contaRepository);
+        ordem.verify(contaRepository).creditarContaComum(3L, 5000L);
+        ordem.verify(contaRepository).debitar(8L, "usuario@teste.com", 5000L);
     }
 
     @Test
@@ -509,8 +624,12 @@ class ContaServiceTest {
         Long numeroContaRemetente = 99L; // Conta inexistente
         TransferenciaRequest request = new TransferenciaRequest();
         request.setNumeroContaDestinatario(2L);
-        request.setValor(100.0);
+        request.setValor(10000L);
+        autenticarComo("usuario@teste.com");
 
+        // O destinatário (número menor) é creditado primeiro; o débito do remetente não acha a conta
+        when(contaRepository.creditarContaComum(2L, 10000L)).thenReturn(1);
+        when(contaRepository.debitar(numeroContaRemetente, "usuario@teste.com", 10000L)).thenReturn(0);
         when(contaRepository.findById(numeroContaRemetente)).thenReturn(Optional.empty());
 
         // Ação e Verificação
@@ -519,8 +638,7 @@ class ContaServiceTest {
         });
 
         assertEquals("Conta não encontrada", exception.getMessage());
-        verify(contaRepository, never()).save(any(Conta.class));
-        verify(transacaoService, never()).adicionarTransacaoTransferencia(any(), any(), anyDouble());
+        verify(transacaoService, never()).adicionarTransacaoTransferencia(any(), any(), anyLong(), anyBoolean());
     }
 
     @Test
@@ -532,12 +650,13 @@ class ContaServiceTest {
 
         TransferenciaRequest request = new TransferenciaRequest();
         request.setNumeroContaDestinatario(numeroContaDestinatario);
-        request.setValor(100.0);
+        request.setValor(10000L);
+        autenticarComo("usuario@teste.com");
 
-        // Remetente existe
-        when(contaRepository.findById(numeroContaRemetente)).thenReturn(Optional.of(new Conta()));
+        // Remetente é debitado
+        when(contaRepository.debitar(numeroContaRemetente, "usuario@teste.com", 10000L)).thenReturn(1);
         // Destinatário não existe
-        when(contaRepository.findById(numeroContaDestinatario)).thenReturn(Optional.empty());
+        when(contaRepository.creditarContaComum(numeroContaDestinatario, 10000L)).thenReturn(0);
 
         // Ação e Verificação
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -545,7 +664,54 @@ class ContaServiceTest {
         });
 
         assertEquals("Conta não encontrada", exception.getMessage());
-        verify(contaRepository, never()).save(any(Conta.class));
+        verify(transacaoService, never()).adicionarTransacaoTransferencia(any(), any(), anyLong(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Crédito em conta quente deve ir para um slot, não para a linha da conta")
+    void deveCreditarContaQuenteNoSlot() {
+        autenticarComo("usuario@teste.com");
+        TransferenciaRequest request = new TransferenciaRequest();
+        request.setNumeroContaDestinatario(2L);
+        request.setValor(5000L);
+        when(contaRepository.debitar(1L, "usuario@teste.com", 5000L)).thenReturn(1);
+        // O UPDATE da conta comum não altera a conta quente
+        when(contaRepository.creditarContaComum(2L, 5000L)).thenReturn(0);
+        when(contaQuenteService.creditar(2L, 5000L)).thenReturn(true);
+
+        contaService.transferencia(request, 1L);
+
+        verify(contaQuenteService).creditar(2L, 5000L);
+        verify(contaRepository, never()).creditar(anyLong(), anyLong());
+        verify(contaQuenteService, never()).ehQuente(anyLong());
+        // O resumo do dia fica sabendo pelo crédito, sem perguntar de novo se a conta é quente
+        verify(transacaoService).adicionarTransacaoTransferencia(any(), any(), eq(5000L), eq(true));
+    }
+
+    @Test
+    @DisplayName("Débito sem saldo na linha da conta deve consolidar os slots e tentar de novo")
+    void deveConsolidarContaQuenteQuandoOSaldoDaLinhaNaoCobre() {
+        autenticarComo("usuario@teste.com");
+        when(contaRepository.debitar(1L, "usuario@teste.com", 5000L)).thenReturn(0, 1);
+        when(contaQuenteService.consolidar(1L)).thenReturn(4000L);
+
+        contaService.sacar(5000L, 1L);
+
+        InOrder ordem = inOrder(contaQuenteService, contaRepository);
+        ordem.verify(contaRepository).debitar(1L, "usuario@teste.com", 5000L);
+        ordem.verify(contaQuenteService).consolidar(1L);
+        ordem.verify(contaRepository).debitar(1L, "usuario@teste.com", 5000L);
+    }
+
+    @Test
+    @DisplayName("Débito coberto pelo saldo da linha não deve tocar nos slots")
+    void naoDeveConsolidarQuandoOSaldoDaLinhaCobre() {
+        autenticarComo("usuario@teste.com");
+        when(contaRepository.debitar(1L, "usuario@teste.com", 5000L)).thenReturn(1);
+
+        contaService.sacar(5000L, 1L);
+
+        verify(contaQuenteService, never()).consolidar(anyLong());
     }
 
     @Test
@@ -557,25 +723,35 @@ class ContaServiceTest {
 
         TransferenciaRequest request = new TransferenciaRequest();
         request.setNumeroContaDestinatario(numeroContaDestinatario);
-        request.setValor(500.0); // Tenta transferir 500
+        request.setValor(50000L); // Tenta transferir 500
 
         Conta remetente = new Conta();
         remetente.setNumeroDaConta(numeroContaRemetente);
-        remetente.setSaldo(100.0); // Mas só tem 100 de saldo
-
-        Conta destinatario = new Conta();
-        destinatario.setNumeroDaConta(numeroContaDestinatario);
+        remetente.setEmail("usuario@teste.com");
+        remetente.setSaldo(10000L); // Mas só tem 100 de saldo
+        autenticarComo("usuario@teste.com");
 
+        when(contaRepository.debitar(numeroContaRemetente, "usuario@teste.com", 50000L)).thenReturn(0);
         when(contaRepository.findById(numeroContaRemetente)).thenReturn(Optional.of(remetente));
-        when(contaRepository.findById(numeroContaDestinatario)).thenReturn(Optional.of(destinatario));
 
         // Ação e Verificação
         assertThrows(SaldoInsuficienteException.class, () -> {
             contaService.transferencia(request, numeroContaRemetente);
         });
 
-        // Garante que nenhuma alteração foi salva no banco
-        verify(contaRepository, never()).save(any(Conta.class));
+        // O destinatário nunca chega a ser creditado
+        verify(contaRepository, never()).creditarContaComum(anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar transferência com valor zero ou negativo")
+    void deveRejeitarTransferenciaComValorNaoPositivo() {
+        TransferenciaRequest request = new TransferenciaRequest();
+        request.setNumeroContaDestinatario(2L);
+        request.setValor(-1000L);
+
+        assertThrows(IllegalArgumentException.class, () -> contaService.transferencia(request, 1L));
+        verifyNoInteractions(contaRepository);
     }
 
     @Test
@@ -591,37 +767,26 @@ class ContaServiceTest {
         Conta contaDefault = new Conta();
         contaDefault.setNumeroDaConta(numeroContaDefault);
 
-        // Criamos mocks de transações para verificar se elas são atualizadas
-        Transacao transacaoRemetente = mock(Transacao.class);
-        Transacao transacaoDestinatario = mock(Transacao.class);
-
-        List<Transacao> listaRemetente = Arrays.asList(transacaoRemetente);
-        List<Transacao> listaDestinatario = Arrays.asList(transacaoDestinatario);
+        EncerramentoDeContas.Progresso concluido = new EncerramentoDeContas.Progresso(numeroContaParaRemover,
+                EncerramentoDeContas.Situacao.CONCLUIDO, 2, 2);
 
         // Mockando os comportamentos dos repositórios
         when(contaRepository.findById(numeroContaParaRemover)).thenReturn(Optional.of(contaParaRemover));
         when(contaRepository.findById(numeroContaDefault)).thenReturn(Optional.of(contaDefault));
-        when(transacaoRepository.findByContaRemetente(contaParaRemover)).thenReturn(listaRemetente);
-        when(transacaoRepository.findByContaDestinatario(contaParaRemover)).thenReturn(listaDestinatario);
+        when(encerramentoDeContas.encerrar(contaParaRemover)).thenReturn(concluido);
 
         // Ação (Act)
-        contaService.removerConta(numeroContaParaRemover);
+        EncerramentoDeContas.Progresso progresso = contaService.removerConta(numeroContaParaRemover);
 
         // Verificação (Assert)
         // Verifica se as buscas pelas contas foram feitas
         verify(contaRepository).findById(numeroContaParaRemover);
         verify(contaRepository).findById(numeroContaDefault);
 
-        // Verifica se as buscas por transações foram feitas
-        verify(transacaoRepository).findByContaRemetente(contaParaRemover);
-        verify(transacaoRepository).findByContaDestinatario(contaParaRemover);
-
-        // Verifica se as transações foram reassociadas para a conta default
-        verify(transacaoRemetente).setContaRemetente(contaDefault);
-        verify(transacaoDestinatario).setContaDestinatario(contaDefault);
-
-        // Verifica se a conta foi finalmente deletada
-        verify(contaRepository).delete(contaParaRemover);
+        // A reassociação das transações e a exclusão ficam com o EncerramentoDeContas
+        verify(encerramentoDeContas).encerrar(contaParaRemover);
+        assertSame(concluido, progresso);
+        verifyNoInteractions(transacaoRepository);
     }
 
     @Test
@@ -638,7 +803,7 @@ class ContaServiceTest {
 
         // Garante que nenhuma ação de exclusão ou busca de transações ocorreu
         verify(contaRepository, never()).delete(any(Conta.class));
-        verify(transacaoRepository, never()).findByContaRemetente(any(Conta.class));
+        verify(encerramentoDeContas, never()).encerrar(any(Conta.class));
     }
 
     @Test
@@ -661,80 +826,7 @@ class ContaServiceTest {
 
         // Garante que a conta original não foi deletada
         verify(contaRepository, never()).delete(any(Conta.class));
-    }
-
-    @Test
-    @DisplayName("Deve remover conta sem transações com sucesso")
-    void deveRemoverContaSemTransacoesComSucesso() {
-        // Cenário
-        Long numeroContaParaRemover = 1L;
-        Long numeroContaDefault = 99L;
-
-        Conta contaParaRemover = new Conta();
-        contaParaRemover.setNumeroDaConta(numeroContaParaRemover);
-
-        Conta contaDefault = new Conta();
-        contaDefault.setNumeroDaConta(numeroContaDefault);
-
-        // Simula que a conta não participou de nenhuma transação
-        when(contaRepository.findById(numeroContaParaRemover)).thenReturn(Optional.of(contaParaRemover));
-        when(contaRepository.findById(numeroContaDefault)).thenReturn(Optional.of(contaDefault));
-        when(transacaoRepository.findByContaRemetente(contaParaRemover)).thenReturn(Collections.emptyList());
-        when(transacaoRepository.findByContaDestinatario(contaParaRemover)).thenReturn(Collections.emptyList());
-
-        // Ação
-        contaService.removerConta(numeroContaParaRemover);
-
-        // Verificação
-        // Apenas verifica se a conta foi deletada, já que não há transações para alterar
-        verify(contaRepository).delete(contaParaRemover);
-    }
-
-    @Test
-    @DisplayName("Deve retornar uma lista de todas as contas com sucesso")
-    void deveRetornarTodasAsContasComSucesso() {
-        // Cenário (Arrange)
-        // Cria duas contas para simular o que estaria no banco de dados
-        Conta conta1 = new Conta();
-        conta1.setNumeroDaConta(1L);
-        conta1.setEmail("usuario1@email.com");
-
-        Conta conta2 = new Conta();
-        conta2.setNumeroDaConta(2L);
-        conta2.setEmail("usuario2@email.com");
-
-        List<Conta> listaDeContas = Arrays.asList(conta1, conta2);
-
-        // Mocka o comportamento do repositório para retornar a lista criada
-        when(contaRepository.findAll()).thenReturn(listaDeContas);
-
-        // Ação (Act)
-        List<Conta> contasRetornadas = contaService.listarTodos();
-
-        // Verificação (Assert)
-        assertNotNull(contasRetornadas, "A lista retornada não deveria ser nula.");
-        assertEquals(2, contasRetornadas.size(), "O tamanho da lista deveria ser 2.");
-        assertEquals(listaDeContas, contasRetornadas, "A lista retornada deveria ser a mesma que a do repositório.");
-
-        // Verifica se o método findAll do repositório foi chamado exatamente uma vez
-        verify(contaRepository).findAll();
-    }
-
-    @Test
-    @DisplayName("Deve retornar uma lista vazia quando não houver contas")
-    void deveRetornarListaVaziaQuandoNaoHouverContas() {
-        // Cenário (Arrange)
-        // Mocka o comportamento do repositório para retornar uma lista vazia
-        when(contaRepository.findAll()).thenReturn(Collections.emptyList());
-
-        // Ação (Act)
-        List<Conta> contasRetornadas = contaService.listarTodos();
-
-        // Verificação (Assert)
-        assertNotNull(contasRetornadas, "A lista retornada não deveria ser nula.");
-        assertTrue(contasRetornadas.isEmpty(), "A lista retornada deveria estar vazia.");
-
-        verify(contaRepository).findAll();
+        verify(encerramentoDeContas, never()).encerrar(any(Conta.class));
     }
 
 
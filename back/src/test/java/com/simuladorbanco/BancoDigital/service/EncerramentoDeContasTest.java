@@ -0,0 +1,120 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import com.simuladorbanco.BancoDigital.model.Conta;
+import com.simuladorbanco.BancoDigital.repository.ContaRepository;
+import com.simuladorbanco.BancoDigital.repository.ResumoDiarioRepository;
+import com.simuladorbanco.BancoDigital.repository.TransacaoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class EncerramentoDeContasTest {
+
+    private ContaRepository contaRepository;
+    private TransacaoRepository transacaoRepository;
+    private ResumoDiarioRepository resumoDiarioRepository;
+    private ContaQuenteService contaQuenteService;
+    private Conta conta;
+
+    @BeforeEach
+    void setUp() {
+        contaRepository = mock(ContaRepository.class);
+        transacaoRepository = mock(TransacaoRepository.class);
+        resumoDiarioRepository = mock(ResumoDiarioRepository.class);
+        contaQuenteService = mock(ContaQuenteService.class);
+        conta = new Conta();
+        conta.setNumeroDaConta(1L);
+        conta.setEmail("dono@email.com");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("dono@email.com", null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Deve reassociar o histórico pequeno em lotes na própria requisição e apagar a conta")
+    void deveEncerrarNaPropriaRequisicao() {
+        EncerramentoDeContas encerramento = encerramento(10, 2);
+        when(transacaoRepository.contarDaConta(1L)).thenReturn(3L);
+        // Enviadas: um lote cheio e depois o resto; recebidas completam o segundo lote
+        when(transacaoRepository.reassociarRemetente(1L, 99L, 2)).thenReturn(2, 0);
+        when(transacaoRepository.reassociarDestinatario(1L, 99L, 2)).thenReturn(1, 0);
+
+        EncerramentoDeContas.Progresso progresso = encerramento.encerrar(conta);
+
+        assertEquals(EncerramentoDeContas.Situacao.CONCLUIDO, progresso.situacao());
+        assertEquals(3, progresso.transacoesReassociadas());
+        verify(transacaoRepository, never()).reassociarDestinatario(eq(1L), eq(99L), eq(0));
+        verify(resumoDiarioRepository).removerDaConta(1L);
+        verify(contaRepository).delete(conta);
+    }
+
+    @Test
+    @DisplayName("Deve apagar conta sem transações sem reassociar nada")
+    void deveApagarContaSemTransacoes() {
+        EncerramentoDeContas encerramento = encerramento(10, 2);
+        when(transacaoRepository.contarDaConta(1L)).thenReturn(0L);
+
+        assertEquals(EncerramentoDeContas.Situacao.CONCLUIDO, encerramento.encerrar(conta).situacao());
+
+        verify(contaRepository).delete(conta);
+    }
+
+    @Test
+    @DisplayName("Deve encerrar histórico grande em segundo plano, com o andamento visível só para o dono")
+    void deveEncerrarEmSegundoPlano() throws Exception {
+        EncerramentoDeContas encerramento = encerramento(1, 2);
+        when(transacaoRepository.contarDaConta(1L)).thenReturn(3L);
+        when(transacaoRepository.reassociarRemetente(1L, 99L, 2)).thenReturn(2, 1, 0);
+        when(transacaoRepository.reassociarDestinatario(eq(1L), eq(99L), anyInt())).thenReturn(0);
+        when(contaRepository.travar(1L)).thenReturn(Optional.of(conta));
+
+        EncerramentoDeContas.Progresso inicio = encerramento.encerrar(conta);
+        assertEquals(EncerramentoDeContas.Situacao.EM_ANDAMENTO, inicio.situacao());
+        assertEquals(3, inicio.totalDeTransacoes());
+
+        EncerramentoDeContas.Progresso fim = esperarFim(encerramento);
+        assertEquals(EncerramentoDeContas.Situacao.CONCLUIDO, fim.situacao());
+        assertEquals(3, fim.transacoesReassociadas());
+        verify(contaRepository).travar(1L);
+        verify(contaRepository).delete(conta);
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("outro@email.com", null, List.of()));
+        assertThrows(AccessDeniedException.class, () -> encerramento.consultar(1L));
+    }
+
+    private EncerramentoDeContas.Progresso esperarFim(EncerramentoDeContas encerramento) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            EncerramentoDeContas.Progresso progresso = encerramento.consultar(1L);
+            if (progresso.situacao() != EncerramentoDeContas.Situacao.EM_ANDAMENTO) {
+                return progresso;
+            }
+            Thread.sleep(10);
+        }
+        fail("O encerramento não terminou");
+        return null;
+    }
+
+    private EncerramentoDeContas encerramento(long limiteSincrono, int tamanhoDoLote) {
+        return new EncerramentoDeContas(contaRepository, transacaoRepository, resumoDiarioRepository,
+                contaQuenteService, mock(CacheDoExtrato.class), mock(CacheDeContas.class),
+                mock(ObjectProvider.class), mock(PlatformTransactionManager.class), limiteSincrono, tamanhoDoLote);
+    }
+}
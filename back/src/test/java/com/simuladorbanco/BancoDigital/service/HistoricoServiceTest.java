@@ -1,8 +1,13 @@
 package com.simuladorbanco.BancoDigital.service;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.simuladorbanco.BancoDigital.arquivo.ArquivoDeTransacoes;
+import com.simuladorbanco.BancoDigital.arquivo.MovimentoArquivado;
+import com.simuladorbanco.BancoDigital.dtos.PaginaDeTransacoes;
+import com.simuladorbanco.BancoDigital.dtos.ResumoDaConta;
 import com.simuladorbanco.BancoDigital.dtos.TransacaoDTO;
 import com.simuladorbanco.BancoDigital.model.Conta;
-import com.simuladorbanco.BancoDigital.model.Transacao;
-import com.simuladorbanco.BancoDigital.repository.ContaRepository;
+import com.simuladorbanco.BancoDigital.repository.ResumoDiarioRepository;
 import com.simuladorbanco.BancoDigital.repository.TransacaoRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,11 +17,17 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.Collections;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,414 +36,184 @@ import static org.mockito.Mockito.*;
 class HistoricoServiceTest {
 
     @Mock
-    private ContaRepository contaRepository;
+    private CacheDeContas cacheDeContas;
 
     @Mock
     private TransacaoRepository transacaoRepository;
 
-    @Spy
-    @InjectMocks
-    private HistoricoService historicoService;
-
-    @Test
-    @DisplayName("Deve listar as transações de depósito de uma conta existente")
-    void deveListarTransacoesDeDepositoComSucesso() {
-        // Cenário (Arrange)
-        Long numeroDaConta = 1L;
-        Conta conta = new Conta();
-        conta.setNumeroDaConta(numeroDaConta);
-
-        // Simulamos uma lista de transações que seria retornada pelo repositório
-        List<Transacao> transacoesEsperadas = Arrays.asList(new Transacao(), new Transacao());
-
-        // Mockamos o comportamento dos repositórios
-        when(contaRepository.findById(numeroDaConta)).thenReturn(Optional.of(conta));
-        when(transacaoRepository.findByContaDestinatario(conta)).thenReturn(transacoesEsperadas);
-
-        // Ação (Act)
-        List<Transacao> resultado = historicoService.listarTransacoesDeposito(numeroDaConta);
-
-        // Verificação (Assert)
-        assertNotNull(resultado);
-        assertEquals(2, resultado.size());
-        assertEquals(transacoesEsperadas, resultado);
+    @Mock
+    private CacheDoExtrato cacheDoExtrato;
 
-        // Verifica se os métodos corretos dos repositórios foram chamados
-        verify(contaRepository).findById(numeroDaConta);
-        verify(transacaoRepository).findByContaDestinatario(conta);
-    }
+    @Mock
+    private ResumoDiarioRepository resumoDiarioRepository;
 
-    @Test
-    @DisplayName("Deve lançar RuntimeException ao listar depósitos de uma conta inexistente")
-    void deveLancarExcecaoQuandoContaNaoEncontradaParaListarDepositos() {
-        // Cenário
-        Long numeroDaContaInexistente = 99L;
-        // Mockamos o repositório para simular que a conta não foi encontrada
-        when(contaRepository.findById(numeroDaContaInexistente)).thenReturn(Optional.empty());
+    @Mock
+    private ContaService contaService;
 
-        // Ação e Verificação
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            historicoService.listarTransacoesDeposito(numeroDaContaInexistente);
-        });
+    @Mock
+    private ArquivoDeTransacoes arquivoDeTransacoes;
 
-        assertEquals("Conta não encontrada", exception.getMessage());
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
-        // Garante que o transacaoRepository nunca foi chamado, pois a execução parou antes
-        verify(transacaoRepository, never()).findByContaDestinatario(any(Conta.class));
-    }
+    @Spy
+    @InjectMocks
+    private HistoricoService historicoService;
 
     @Test
-    @DisplayName("Deve mapear uma lista de transações de depósito para uma lista de DTOs")
-    void deveMapearListaDeTransacoesParaListaDeDTOsCorretamente() {
-        // Cenário (Arrange)
-        // Criamos uma conta que será o destinatário em ambas as transações
-        Conta contaDestino = new Conta();
-        contaDestino.setNumeroDaConta(1L);
-        contaDestino.setNome("Titular Recebedor");
-
-        // Criamos a primeira transação de exemplo
-        Transacao t1 = new Transacao();
-        t1.setTipo("DEPOSITO");
-        t1.setValor(100.0);
-        t1.setData(LocalDateTime.now());
-        t1.setContaDestinatario(contaDestino);
-
-        // Criamos a segunda transação de exemplo
-        Transacao t2 = new Transacao();
-        t2.setTipo("DEPOSITO");
-        t2.setValor(250.0);
-        t2.setData(LocalDateTime.now().minusDays(1));
-        t2.setContaDestinatario(contaDestino);
-
-        // Colocamos as transações em uma lista de entrada
-        List<Transacao> transacoesDeEntrada = Arrays.asList(t1, t2);
-
-        // Ação (Act)
-        List<TransacaoDTO> resultadoDTOs = historicoService.listarTransacoesDTODeposito(transacoesDeEntrada);
-
-        // Verificação (Assert)
-        assertNotNull(resultadoDTOs, "A lista de DTOs não deveria ser nula.");
-        assertEquals(2, resultadoDTOs.size(), "A lista de DTOs deveria ter 2 elementos.");
-
-        // Verificamos os dados do primeiro DTO
-        TransacaoDTO dto1 = resultadoDTOs.get(0);
-        assertEquals("DEPOSITO", dto1.getTipo());
-        assertEquals(100.0, dto1.getValor());
-        assertNull(dto1.getContaRemetente());
-        assertNotNull(dto1.getContaDestinatario());
-        assertEquals(contaDestino.getNumeroDaConta(), dto1.getContaDestinatario().getNumeroDaConta());
-        assertEquals("Titular Recebedor", dto1.getContaDestinatario().getNome());
+    @DisplayName("Deve devolver a primeira página do extrato com cursor para a próxima")
+    void deveDevolverPrimeiraPaginaComCursor() {
+        // Cenário: o repositório devolve tamanho + 1 linhas, então existe próxima página
+        TransacaoDTO maisRecente = transacao(3L, "SAQUE", LocalDateTime.of(2026, 1, 3, 10, 0), 1L, null);
+        TransacaoDTO intermediaria = transacao(2L, "DEPOSITO", LocalDateTime.of(2026, 1, 2, 10, 0), null, 1L);
+        TransacaoDTO maisAntiga = transacao(1L, "DEPOSITO", LocalDateTime.of(2026, 1, 1, 10, 0), null, 1L);
+        when(cacheDeContas.buscarNoBanco(1L)).thenReturn(Optional.of(new CacheDeContas.DadosDaConta(1L, "Ana", "ana@email.com")));
+        when(transacaoRepository.buscarPaginaDoExtrato(eq(1L), any(LocalDateTime.class), eq(Long.MAX_VALUE), eq(3)))
+                .thenReturn(new ArrayList<>(List.of(maisRecente, intermediaria, maisAntiga)));
+
+        // Ação
+        PaginaDeTransacoes pagina = historicoService.listarExtrato(1L, null, 2);
+
+        // Verificação
+        assertEquals(2, pagina.getTransacoes().size());
+        assertEquals("SAQUE", pagina.getTransacoes().get(0).getTipo());
+        assertNull(pagina.getTransacoes().get(0).getContaDestinatario());
+        assertEquals(1L, pagina.getTransacoes().get(1).getContaDestinatario().getNumeroDaConta());
+        assertNotNull(pagina.getProximoCursor());
+
+        // O cursor aponta para a última transação devolvida
+        when(transacaoRepository.buscarPaginaDoExtrato(1L, intermediaria.getData(), 2L, 3))
+                .thenReturn(new ArrayList<>(List.of(maisAntiga)));
+        PaginaDeTransacoes segunda = historicoService.listarExtrato(1L, pagina.getProximoCursor(), 2);
+        assertEquals(1, segunda.getTransacoes().size());
+        assertNull(segunda.getProximoCursor(), "A última página não deve ter cursor.");
     }
 
     @Test
-    @DisplayName("Deve retornar uma lista de DTOs vazia quando a lista de entrada for vazia")
-    void deveRetornarListaVaziaQuandoEntradaForVazia() {
-        // Cenário (Arrange)
-        List<Transacao> transacoesVazias = Collections.emptyList();
-
-        // Ação (Act)
-        List<TransacaoDTO> resultadoDTOs = historicoService.listarTransacoesDTODeposito(transacoesVazias);
-
-        // Verificação (Assert)
-        assertNotNull(resultadoDTOs, "A lista de DTOs não deveria ser nula.");
-        assertTrue(resultadoDTOs.isEmpty(), "A lista de DTOs deveria estar vazia.");
+    @DisplayName("Deve completar a página com as transações arquivadas, continuando de onde a tabela parou")
+    void deveCompletarPaginaComArquivo() {
+        // Cenário: a tabela só tem uma transação; as anteriores estão no arquivo
+        TransacaoDTO daTabela = transacao(10L, "DEPOSITO", LocalDateTime.of(2026, 1, 5, 10, 0), null, 1L);
+        when(cacheDeContas.buscarNoBanco(1L)).thenReturn(Optional.of(new CacheDeContas.DadosDaConta(1L, "Ana", "ana@email.com")));
+        when(transacaoRepository.buscarPaginaDoExtrato(eq(1L), any(LocalDateTime.class), eq(Long.MAX_VALUE), eq(3)))
+                .thenReturn(new ArrayList<>(List.of(daTabela)));
+        when(arquivoDeTransacoes.estaVazio()).thenReturn(false);
+        when(arquivoDeTransacoes.buscarAntesDe(1L, daTabela.getData(), 10L, 2)).thenReturn(List.of(
+                new MovimentoArquivado(1L, 5L, "TRANSFERENCIA", 2500L, LocalDateTime.of(2024, 6, 1, 9, 0), 1L, 2L),
+                new MovimentoArquivado(1L, 4L, "DEPOSITO", 1000L, LocalDateTime.of(2024, 5, 1, 9, 0), null, 1L)));
+        when(cacheDeContas.buscar(Set.of(1L, 2L))).thenReturn(Map.of(
+                1L, new CacheDeContas.DadosDaConta(1L, "Titular", "titular@email.com"),
+                2L, new CacheDeContas.DadosDaConta(2L, "Outra", "outra@email.com")));
+
+        // Ação
+        PaginaDeTransacoes pagina = historicoService.listarExtrato(1L, null, 2);
+
+        // Verificação
+        assertEquals(List.of(10L, 5L), pagina.getTransacoes().stream().map(TransacaoDTO::getId).toList());
+        assertEquals("Outra", pagina.getTransacoes().get(1).getContaDestinatario().getNome());
+        assertEquals(2500L, pagina.getTransacoes().get(1).getValor());
+        assertNotNull(pagina.getProximoCursor());
     }
 
     @Test
-    @DisplayName("Deve listar as transações de saque de uma conta existente")
-    void deveListarTransacoesDeSaqueComSucesso() {
-        // Cenário (Arrange)
-        Long numeroDaConta = 1L;
-        Conta conta = new Conta();
-        conta.setNumeroDaConta(numeroDaConta);
-
-        // Simulamos uma lista de transações que seria retornada pelo repositório
-        List<Transacao> transacoesEsperadas = Arrays.asList(new Transacao(), new Transacao());
+    @DisplayName("Deve rejeitar cursor adulterado")
+    void deveRejeitarCursorInvalido() {
+        when(cacheDeContas.buscarNoBanco(1L)).thenReturn(Optional.of(new CacheDeContas.DadosDaConta(1L, "Ana", "ana@email.com")));
 
-        // Mockamos o comportamento dos repositórios
-        when(contaRepository.findById(numeroDaConta)).thenReturn(Optional.of(conta));
-        // A única mudança: chamamos findByContaRemetente em vez de findByContaDestinatario
-        when(transacaoRepository.findByContaRemetente(conta)).thenReturn(transacoesEsperadas);
-
-        // Ação (Act)
-        // Supondo que o nome do método seja listarTransacoesSaque
-        List<Transacao> resultado = historicoService.listarTransacoesSaque(numeroDaConta);
-
-        // Verificação (Assert)
-        assertNotNull(resultado);
-        assertEquals(2, resultado.size());
-        assertEquals(transacoesEsperadas, resultado);
-
-        verify(contaRepository).findById(numeroDaConta);
-        verify(transacaoRepository).findByContaRemetente(conta);
+        assertThrows(IllegalArgumentException.class, () -> historicoService.listarExtrato(1L, "nao-e-um-cursor", 10));
+        verify(transacaoRepository, never()).buscarPaginaDoExtrato(anyLong(), any(), anyLong(), anyInt());
     }
 
     @Test
-    @DisplayName("Deve lançar RuntimeException ao listar saques de uma conta inexistente")
-    void deveLancarExcecaoQuandoContaNaoEncontradaParaListarSaques() {
+    @DisplayName("Deve exportar o extrato em CSV escapando os nomes")
+    void deveExportarExtratoEmCsv() throws Exception {
         // Cenário
-        Long numeroDaContaInexistente = 99L;
-        when(contaRepository.findById(numeroDaContaInexistente)).thenReturn(Optional.empty());
-
-        // Ação e Verificação
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            historicoService.listarTransacoesSaque(numeroDaContaInexistente);
-        });
-
-        assertEquals("Conta não encontrada", exception.getMessage());
-        verify(transacaoRepository, never()).findByContaRemetente(any(Conta.class));
-    }
-
-
-// ========== TESTES PARA MAPEAMENTO DE SAQUES PARA DTOs ==========
-
-    @Test
-    @DisplayName("Deve mapear uma lista de transações de saque para uma lista de DTOs")
-    void deveMapearListaDeTransacoesDeSaqueParaListaDeDTOs() {
-        // Cenário (Arrange)
-        Conta contaRemetente = new Conta();
-        contaRemetente.setNumeroDaConta(1L);
-        contaRemetente.setNome("Titular Sacador");
-
-        Transacao t1 = new Transacao();
-        t1.setTipo("SAQUE");
-        t1.setValor(50.0);
-        t1.setData(LocalDateTime.now());
-        t1.setContaRemetente(contaRemetente);
-
-        List<Transacao> transacoesDeEntrada = Arrays.asList(t1);
-
-        // Ação (Act)
-        // Supondo que o nome do método seja listarTransacoesDTOSaque
-        List<TransacaoDTO> resultadoDTOs = historicoService.listarTransacoesDTOSaque(transacoesDeEntrada);
-
-        // Verificação (Assert)
-        assertNotNull(resultadoDTOs);
-        assertEquals(1, resultadoDTOs.size());
-
-        TransacaoDTO dto1 = resultadoDTOs.get(0);
-        assertEquals("SAQUE", dto1.getTipo());
-        assertEquals(50.0, dto1.getValor());
-        assertNull(dto1.getContaDestinatario());
-        assertNotNull(dto1.getContaRemetente());
-        assertEquals(contaRemetente.getNumeroDaConta(), dto1.getContaRemetente().getNumeroDaConta());
-        assertEquals("Titular Sacador", dto1.getContaRemetente().getNome());
-    }
-
-    @Test
-    @DisplayName("Deve retornar uma lista de DTOs de saque vazia quando a lista de entrada for vazia")
-    void deveRetornarListaVaziaDeDTOSaqueQuandoEntradaForVazia() {
-        // Cenário (Arrange)
-        List<Transacao> transacoesVazias = Collections.emptyList();
-
-        // Ação (Act)
-        List<TransacaoDTO> resultadoDTOs = historicoService.listarTransacoesDTOSaque(transacoesVazias);
-
-        // Verificação (Assert)
-        assertNotNull(resultadoDTOs);
-        assertTrue(resultadoDTOs.isEmpty());
-    }
-
-    @Test
-    @DisplayName("Deve listar as transações de transferência (enviadas e recebidas) de uma conta")
-    void deveListarTodasAsTransferenciasComSucesso() {
-        // Cenário (Arrange)
-        Long numeroDaConta = 1L;
-        Conta conta = new Conta();
-        conta.setNumeroDaConta(numeroDaConta);
-
-        // Simulamos listas de transações enviadas e recebidas
-        List<Transacao> transacoesEnviadas = Arrays.asList(new Transacao()); // 1 enviada
-        List<Transacao> transacoesRecebidas = Arrays.asList(new Transacao(), new Transacao()); // 2 recebidas
-
-        // Mockamos o comportamento dos repositórios
-        when(contaRepository.findById(numeroDaConta)).thenReturn(Optional.of(conta));
-        when(transacaoRepository.findByContaDestinatario(conta)).thenReturn(transacoesRecebidas);
-        when(transacaoRepository.findByContaRemetente(conta)).thenReturn(transacoesEnviadas);
-
-        // Ação (Act)
-        List<Transacao> resultado = historicoService.listarTransacoesTransferencia(numeroDaConta);
-
-        // Verificação (Assert)
-        assertNotNull(resultado);
-        // O tamanho total deve ser a soma das duas listas
-        assertEquals(3, resultado.size());
-
-        // Verificamos se a lista final contém todos os elementos das listas originais
-        assertTrue(resultado.containsAll(transacoesEnviadas));
-        assertTrue(resultado.containsAll(transacoesRecebidas));
-
-        // Verificamos se os métodos corretos foram chamados
-        verify(contaRepository).findById(numeroDaConta);
-        verify(transacaoRepository).findByContaDestinatario(conta);
-        verify(transacaoRepository).findByContaRemetente(conta);
+        TransacaoDTO transferencia = new TransacaoDTO(1L, "TRANSFERENCIA", 1050L, LocalDateTime.of(2026, 1, 1, 10, 0),
+                1L, "Silva, João", 2L, "Loja \"Central\"");
+        when(transacaoRepository.exportarExtrato(1L)).thenReturn(Stream.of(transferencia));
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        // Ação
+        historicoService.exportarExtrato(1L, FormatoDoExtrato.CSV, saida);
+
+        // Verificação
+        assertEquals("data,tipo,valor,conta_remetente,nome_remetente,conta_destinatario,nome_destinatario\n" +
+                        "2026-01-01T10:00,TRANSFERENCIA,10.50,1,\"Silva, João\",2,\"Loja \"\"Central\"\"\"\n",
+                saida.toString(StandardCharsets.UTF_8));
     }
 
     @Test
-    @DisplayName("Deve retornar uma lista vazia de transferências se a conta não tiver nenhuma")
-    void deveRetornarListaVaziaDeTransferenciasQuandoNaoHouver() {
-        // Cenário (Arrange)
-        Long numeroDaConta = 1L;
-        Conta conta = new Conta();
-        conta.setNumeroDaConta(numeroDaConta);
-
-        // Simulamos que a conta não tem transações de transferência
-        when(contaRepository.findById(numeroDaConta)).thenReturn(Optional.of(conta));
-        when(transacaoRepository.findByContaDestinatario(conta)).thenReturn(Collections.emptyList());
-        when(transacaoRepository.findByContaRemetente(conta)).thenReturn(Collections.emptyList());
-
-        // Ação (Act)
-        List<Transacao> resultado = historicoService.listarTransacoesTransferencia(numeroDaConta);
-
-        // Verificação (Assert)
-        assertNotNull(resultado);
-        assertTrue(resultado.isEmpty());
-    }
-
-    @Test
-    @DisplayName("Deve lançar RuntimeException ao listar transferências de uma conta inexistente")
-    void deveLancarExcecaoQuandoContaNaoEncontradaParaListarTransferencias() {
+    @DisplayName("Deve exportar o extrato em NDJSON, um objeto por linha")
+    void deveExportarExtratoEmNdjson() throws Exception {
         // Cenário
-        Long numeroDaContaInexistente = 99L;
-        when(contaRepository.findById(numeroDaContaInexistente)).thenReturn(Optional.empty());
-
-        // Ação e Verificação
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            historicoService.listarTransacoesTransferencia(numeroDaContaInexistente);
-        });
-
-        assertEquals("Conta não encontrada", exception.getMessage());
-        verify(transacaoRepository, never()).findByContaDestinatario(any(Conta.class));
-        verify(transacaoRepository, never()).findByContaRemetente(any(Conta.class));
+        when(transacaoRepository.exportarExtrato(1L)).thenReturn(Stream.of(
+                transacao(1L, "DEPOSITO", LocalDateTime.of(2026, 1, 1, 10, 0), null, 1L),
+                transacao(2L, "SAQUE", LocalDateTime.of(2026, 1, 2, 10, 0), 1L, null)));
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        // Ação
+        historicoService.exportarExtrato(1L, FormatoDoExtrato.NDJSON, saida);
+
+        // Verificação
+        String[] linhas = saida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, linhas.length);
+        assertEquals("DEPOSITO", objectMapper.readTree(linhas[0]).get("tipo").asText());
+        assertTrue(linhas[0].contains("\"valor\":10.00"), "O valor deve sair em reais: " + linhas[0]);
+        assertEquals("SAQUE", objectMapper.readTree(linhas[1]).get("tipo").asText());
     }
 
     @Test
-    @DisplayName("Deve mapear uma lista de transações de transferência para uma lista de DTOs")
-    void deveMapearListaDeTransferenciasParaDTOsCorretamente() {
-        // Cenário (Arrange)
-        Conta remetente = new Conta();
-        remetente.setNumeroDaConta(1L);
-        remetente.setNome("Remetente Teste");
-
-        Conta destinatario = new Conta();
-        destinatario.setNumeroDaConta(2L);
-        destinatario.setNome("Destinatario Teste");
-
-        Transacao t1 = new Transacao();
-        t1.setTipo("TRANSFERENCIA");
-        t1.setValor(500.0);
-        t1.setData(LocalDateTime.now());
-        t1.setContaRemetente(remetente);
-        t1.setContaDestinatario(destinatario);
-
-        List<Transacao> transacoesDeEntrada = Arrays.asList(t1);
-
-        // Ação (Act)
-        List<TransacaoDTO> resultadoDTOs = historicoService.listarTransacoesDTOTransferencia(transacoesDeEntrada);
-
-        // Verificação (Assert)
-        assertNotNull(resultadoDTOs);
-        assertEquals(1, resultadoDTOs.size());
-
-        TransacaoDTO dto = resultadoDTOs.get(0);
-        assertEquals("TRANSFERENCIA", dto.getTipo());
-        assertEquals(500.0, dto.getValor());
-
-        // Verifica dados do remetente
-        assertNotNull(dto.getContaRemetente());
-        assertEquals(remetente.getNumeroDaConta(), dto.getContaRemetente().getNumeroDaConta());
-        assertEquals("Remetente Teste", dto.getContaRemetente().getNome());
-
-        // Verifica dados do destinatário
-        assertNotNull(dto.getContaDestinatario());
-        assertEquals(destinatario.getNumeroDaConta(), dto.getContaDestinatario().getNumeroDaConta());
-        assertEquals("Destinatario Teste", dto.getContaDestinatario().getNome());
+    @DisplayName("Deve resumir o período por mês e calcular o saldo de cada dia a partir do saldo atual")
+    void deveResumirPeriodoComSaldoDiario() {
+        // Cenário: saldo atual 700; depois do período entrou mais 100
+        Conta conta = new Conta();
+        conta.setSaldo(70000L);
+        when(contaService.buscarConta(1L)).thenReturn(conta);
+        LocalDate de = LocalDate.of(2026, 1, 1);
+        LocalDate ate = LocalDate.of(2026, 2, 28);
+        when(resumoDiarioRepository.somarLiquidoDepoisDe(1L, ate)).thenReturn(10000L);
+        when(resumoDiarioRepository.buscarMovimentos(1L, de, ate)).thenReturn(List.of(
+                movimento(LocalDate.of(2026, 1, 10), "DEPOSITO", 30000L, 0L, 2),
+                movimento(LocalDate.of(2026, 1, 20), "SAQUE", 0L, 5000L, 1),
+                movimento(LocalDate.of(2026, 2, 5), "DEPOSITO", 10000L, 0L, 1),
+                movimento(LocalDate.of(2026, 2, 5), "SAQUE", 0L, 5000L, 1)));
+
+        // Ação
+        ResumoDaConta resumo = historicoService.resumir(1L, de, ate);
+
+        // Verificação: 600 no fim do período, 600 - 300 + 50 - 100 + 50 = 300 no começo
+        assertEquals(30000L, resumo.getSaldoInicial());
+        assertEquals(4, resumo.getMeses().size(), "Janeiro e fevereiro, com depósito e saque cada.");
+        assertEquals(YearMonth.of(2026, 1), resumo.getMeses().get(0).getMes());
+        assertEquals(30000L, resumo.getMeses().get(0).getEntradas());
+        assertEquals(2, resumo.getMeses().get(0).getQuantidade());
+        assertEquals(List.of(LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 20), LocalDate.of(2026, 2, 5)),
+                resumo.getSaldos().stream().map(s -> s.getDia()).toList());
+        assertEquals(List.of(60000L, 55000L, 60000L), resumo.getSaldos().stream().map(s -> s.getSaldo()).toList());
     }
 
     @Test
-    @DisplayName("Deve filtrar transações que não são do tipo TRANSFERENCIA ao mapear para DTO")
-    void deveFiltrarTransacoesQueNaoSaoDeTransferencia() {
-        // Cenário (Arrange)
-        Conta c1 = new Conta();
-        Conta c2 = new Conta();
-
-        // Criamos uma lista mista de transações
-        Transacao transferencia = new Transacao();
-        transferencia.setTipo("TRANSFERENCIA");
-        transferencia.setContaRemetente(c1); // Campos mínimos para não dar erro
-        transferencia.setContaDestinatario(c2);
-
-        Transacao saque = new Transacao();
-        saque.setTipo("SAQUE");
-        saque.setContaRemetente(c1);
-
-        List<Transacao> transacoesMistas = Arrays.asList(transferencia, saque);
-
-        // Ação (Act)
-        List<TransacaoDTO> resultadoDTOs = historicoService.listarTransacoesDTOTransferencia(transacoesMistas);
-
-        // Verificação (Assert)
-        assertNotNull(resultadoDTOs);
-        // A lista final deve ter apenas 1 elemento, pois o saque foi filtrado
-        assertEquals(1, resultadoDTOs.size());
-        assertEquals("TRANSFERENCIA", resultadoDTOs.get(0).getTipo());
+    @DisplayName("Deve rejeitar período com início depois do fim")
+    void deveRejeitarPeriodoInvertido() {
+        assertThrows(IllegalArgumentException.class,
+                () -> historicoService.resumir(1L, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 1, 1)));
+        verifyNoInteractions(contaService, resumoDiarioRepository);
     }
 
-    @Test
-    @DisplayName("Deve retornar uma lista de DTOs de transferência vazia quando a entrada for vazia")
-    void deveRetornarListaVaziaDeDTOTransferenciaParaEntradaVazia() {
-        // Cenário (Arrange)
-        List<Transacao> transacoesVazias = Collections.emptyList();
-
-        // Ação (Act)
-        List<TransacaoDTO> resultadoDTOs = historicoService.listarTransacoesDTOTransferencia(transacoesVazias);
-
-        // Verificação (Assert)
-        assertNotNull(resultadoDTOs);
-        assertTrue(resultadoDTOs.isEmpty());
+    private ResumoDiarioRepository.MovimentoDoDia movimento(LocalDate dia, String tipo, long entradas, long saidas,
+                                                           long quantidade) {
+        return new ResumoDiarioRepository.MovimentoDoDia() {
+            public LocalDate getDia() { return dia; }
+            public String getTipo() { return tipo; }
+            public long getEntradas() { return entradas; }
+            public long getSaidas() { return saidas; }
+            public long getQuantidade() { return quantidade; }
+        };
     }
 
-    @Test
-    @DisplayName("Deve listar todas as transações e ordená-las por data decrescente")
-    void deveListarTodasAsTransacoesEOrdenarPorDataDecrescente() {
-        // Cenário (Arrange)
-        Long numeroDaConta = 1L;
-
-        // Criamos DTOs com datas diferentes para testar a ordenação
-        TransacaoDTO dtoDeposito = new TransacaoDTO();
-        dtoDeposito.setData(LocalDateTime.now().minusDays(2)); // Mais antigo
-
-        TransacaoDTO dtoSaque = new TransacaoDTO();
-        dtoSaque.setData(LocalDateTime.now().minusDays(1)); // Intermediário
-
-        TransacaoDTO dtoTransferencia = new TransacaoDTO();
-        dtoTransferencia.setData(LocalDateTime.now()); // Mais recente
-
-        // Usamos o Spy para interceptar as chamadas aos outros métodos e retornar nossas listas de DTOs
-        // A sintaxe doReturn(...).when(spy).metodo() é a mais segura para usar com Spies.
-        // Não precisamos testar a lógica desses métodos de novo, apenas o resultado deles.
-        doReturn(List.of(dtoDeposito)).when(historicoService).listarTransacoesDTODeposito(anyList());
-        doReturn(List.of(dtoSaque)).when(historicoService).listarTransacoesDTOSaque(anyList());
-        doReturn(List.of(dtoTransferencia)).when(historicoService).listarTransacoesDTOTransferencia(anyList());
-
-        // Também podemos "calar" os métodos que buscam as entidades para não depender dos repositórios neste teste
-        doReturn(Collections.emptyList()).when(historicoService).listarTransacoesDeposito(numeroDaConta);
-        doReturn(Collections.emptyList()).when(historicoService).listarTransacoesSaque(numeroDaConta);
-        doReturn(Collections.emptyList()).when(historicoService).listarTransacoesTransferencia(numeroDaConta);
-
-        // Ação (Act)
-        List<TransacaoDTO> resultado = historicoService.listarTodasAsTransacoes(numeroDaConta);
-
-        // Verificação (Assert)
-        assertNotNull(resultado);
-        assertEquals(3, resultado.size(), "A lista combinada deveria ter 3 transações.");
-
-        // Verificamos a ORDEM da lista. A mais recente deve vir primeiro.
-        assertEquals(dtoTransferencia, resultado.get(0), "A primeira transação deveria ser a mais recente (transferência).");
-        assertEquals(dtoSaque, resultado.get(1), "A segunda transação deveria ser a intermediária (saque).");
-        assertEquals(dtoDeposito, resultado.get(2), "A terceira transação deveria ser a mais antiga (depósito).");
+    private TransacaoDTO transacao(Long id, String tipo, LocalDateTime data, Long remetente, Long destinatario) {
+        return new TransacaoDTO(id, tipo, 1000L, data, remetente, remetente == null ? null : "Teste",
+                destinatario, destinatario == null ? null : "Teste");
     }
-
-
-
 }
@@ -0,0 +1,50 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import com.simuladorbanco.BancoDigital.exception.MuitasRequisicoesException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimiteDeLoginTest {
+
+    private final AtomicLong agora = new AtomicLong();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Deve recusar o e-mail depois da rajada e liberar quando a ficha volta")
+    void deveLimitarPorEmailERecarregar() {
+        // 2 tentativas de uma vez, depois 1 por minuto
+        LimiteDeLogin limite = new LimiteDeLogin(2, 1, 100, 100, registry, agora::get);
+
+        limite.verificar("Usuario@Teste.com", "10.0.0.1");
+        limite.verificar("usuario@teste.com ", "10.0.0.2");
+        MuitasRequisicoesException excecao = assertThrows(MuitasRequisicoesException.class,
+                () -> limite.verificar("usuario@teste.com", "10.0.0.3"));
+        assertEquals(60, excecao.getSegundosParaTentarDeNovo());
+        // Outro e-mail não é afetado
+        limite.verificar("outro@teste.com", "10.0.0.1");
+
+        agora.addAndGet(Duration.ofMinutes(1).toNanos());
+        limite.verificar("usuario@teste.com", "10.0.0.1");
+        assertEquals(1.0, registry.get("banco.login.limitados").tag("por", "email").counter().count());
+    }
+
+    @Test
+    @DisplayName("Deve recusar o IP que tenta várias contas")
+    void deveLimitarPorIp() {
+        LimiteDeLogin limite = new LimiteDeLogin(5, 5, 3, 60, registry, agora::get);
+
+        for (int i = 0; i < 3; i++) {
+            limite.verificar("conta" + i + "@teste.com", "10.0.0.1");
+        }
+        MuitasRequisicoesException excecao = assertThrows(MuitasRequisicoesException.class,
+                () -> limite.verificar("conta3@teste.com", "10.0.0.1"));
+        assertEquals(1, excecao.getSegundosParaTentarDeNovo());
+        limite.verificar("conta3@teste.com", "10.0.0.2");
+    }
+}
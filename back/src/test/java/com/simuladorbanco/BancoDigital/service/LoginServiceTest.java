@@ -1,5 +1,6 @@
 package com.simuladorbanco.BancoDigital.service;
 
+import com.simuladorbanco.BancoDigital.config.JWTCreator;
 import com.simuladorbanco.BancoDigital.config.SecurityConfig;
 import com.simuladorbanco.BancoDigital.dtos.Login;
 import com.simuladorbanco.BancoDigital.dtos.Sessao;
@@ -15,6 +16,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
@@ -66,6 +68,9 @@ class LoginServiceTest {
         assertEquals("usuario@teste.com", sessao.getLogin());
         assertNotNull(sessao.getToken());
         assertTrue(sessao.getToken().startsWith(SecurityConfig.PREFIX));
+        // O token leva a conta do usuário para o filtro conferir o dono sem ir ao banco
+        assertEquals(List.of(1L),
+                JWTCreator.create(sessao.getToken(), SecurityConfig.PREFIX, SecurityConfig.KEY).getContas());
     }
 
     @Test
@@ -0,0 +1,54 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParticionamentoDeTransacoesTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Deve criar as partições dos próximos meses e não desanexar nada quando retém tudo")
+    void deveCriarParticoesAFrente() {
+        when(jdbcTemplate.queryForObject(eq("SELECT criar_particao_transacao(?)"), eq(Boolean.class), any()))
+                .thenReturn(true);
+        ParticionamentoDeTransacoes particionamento = new ParticionamentoDeTransacoes(jdbcTemplate, 2, 0);
+
+        particionamento.manterParticoes();
+
+        LocalDate mesCorrente = LocalDate.now().withDayOfMonth(1);
+        verify(jdbcTemplate).queryForObject("SELECT criar_particao_transacao(?)", Boolean.class,
+                Date.valueOf(mesCorrente.plusMonths(1)));
+        verify(jdbcTemplate).queryForObject("SELECT criar_particao_transacao(?)", Boolean.class,
+                Date.valueOf(mesCorrente.plusMonths(2)));
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class), any());
+    }
+
+    @Test
+    @DisplayName("Deve desanexar as partições que terminam antes do período retido")
+    void deveDesanexarParticoesAntigas() {
+        when(jdbcTemplate.queryForObject(eq("SELECT criar_particao_transacao(?)"), eq(Boolean.class), any()))
+                .thenReturn(false);
+        when(jdbcTemplate.queryForList(eq("SELECT desanexar_particoes_transacao(?)"), eq(String.class), any()))
+                .thenReturn(List.of("tb_transacao_2024_01"));
+        ParticionamentoDeTransacoes particionamento = new ParticionamentoDeTransacoes(jdbcTemplate, 1, 13);
+
+        particionamento.manterParticoes();
+
+        verify(jdbcTemplate).queryForList("SELECT desanexar_particoes_transacao(?)", String.class,
+                Date.valueOf(LocalDate.now().withDayOfMonth(1).minusMonths(13)));
+    }
+}
@@ -0,0 +1,80 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Mode;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.google.zxing.qrcode.encoder.QRCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadPixTest {
+
+    private final PayloadPix payloadPix = new PayloadPix("chave-de-teste");
+
+    @Test
+    @DisplayName("Deve ler de volta conta, valor e expiração do código gerado")
+    void deveLerOCodigoGerado() {
+        Instant expiracao = Instant.parse("2026-10-18T10:15:30Z");
+        String codigo = payloadPix.gerar(123456L, 15075L, expiracao);
+
+        PayloadPix.Cobranca cobranca = payloadPix.ler(codigo);
+
+        assertEquals(new PayloadPix.Cobranca(123456L, 15075L, expiracao), cobranca);
+        assertFalse(cobranca.estatica());
+        assertTrue(payloadPix.ler(payloadPix.gerar(1L, Long.MAX_VALUE, null)).estatica());
+        assertEquals(Long.MAX_VALUE, payloadPix.ler(payloadPix.gerar(1L, Long.MAX_VALUE, null)).valor());
+        // Copia e cola com espaço nas pontas ou em minúsculas continua valendo
+        assertEquals(cobranca, payloadPix.ler("  " + codigo.toLowerCase() + "\n"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar código adulterado, de outra chave ou que não é um código PIX")
+    void deveRecusarCodigoAdulterado() {
+        String codigo = payloadPix.gerar(123456L, 15075L, null);
+        // Troca um caractere de cada vez: nenhuma alteração passa pela assinatura
+        for (int i = 0; i < codigo.length(); i++) {
+            char trocado = codigo.charAt(i) == 'A' ? 'B' : 'A';
+            String adulterado = codigo.substring(0, i) + trocado + codigo.substring(i + 1);
+            assertThrows(IllegalArgumentException.class, () -> payloadPix.ler(adulterado), adulterado);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new PayloadPix("outra-chave").ler(codigo));
+        IllegalArgumentException antigo = assertThrows(IllegalArgumentException.class,
+                () -> payloadPix.ler("{\"numeroContaDestinatario\":1,\"valor\":10}"));
+        assertTrue(antigo.getMessage().contains("formato antigo"));
+        assertThrows(IllegalArgumentException.class, () -> payloadPix.ler(""));
+        assertThrows(IllegalArgumentException.class, () -> payloadPix.ler(null));
+        assertThrows(IllegalArgumentException.class, () -> payloadPix.gerar(1L, 0L, null));
+    }
+
+    @Test
+    @DisplayName("Deve caber num QR Code alfanumérico menor que o do JSON antigo")
+    void deveGerarQrCodeMenorQueOJson() throws Exception {
+        String codigo = payloadPix.gerar(123456L, 15075L, Instant.parse("2026-10-18T10:15:30Z"));
+        String json = "{\"nomeDestinatario\":\"Maria da Silva\",\"valor\":150.75,"
+                + "\"numeroContaDestinatario\":123456,\"expiracao\":\"2026-10-18T10:15:30.123456\"}";
+
+        QRCode compacto = Encoder.encode(codigo, ErrorCorrectionLevel.M);
+        QRCode antigo = Encoder.encode(json, ErrorCorrectionLevel.M);
+
+        assertEquals(Mode.ALPHANUMERIC, compacto.getMode());
+        assertTrue(codigo.length() <= 50, codigo);
+        assertTrue(compacto.getVersion().getVersionNumber() < antigo.getVersion().getVersionNumber());
+    }
+
+    @Test
+    @DisplayName("Deve codificar e decodificar Base32 como o RFC 4648, sem preenchimento")
+    void deveSeguirOBase32DoRfc() {
+        byte[] foobar = "foobar".getBytes(StandardCharsets.US_ASCII);
+        assertEquals("MZXW6YTBOI", Base32.codificar(foobar, foobar.length));
+        assertEquals("MZXW6", Base32.codificar(foobar, 3));
+        assertEquals("MY", Base32.codificar(foobar, 1));
+        assertArrayEquals(foobar, Base32.decodificar("MZXW6YTBOI"));
+        assertThrows(IllegalArgumentException.class, () -> Base32.decodificar("MZ1W"));
+    }
+}
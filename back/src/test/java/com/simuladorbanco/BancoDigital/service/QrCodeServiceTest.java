@@ -0,0 +1,109 @@
+package com.simuladorbanco.BancoDigital.service;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QrCodeServiceTest {
+
+    private static final String PAYLOAD = "{\"numeroContaDestinatario\":1,\"valor\":10.5}";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final QrCodeService qrCodeService = new QrCodeService(1024, registry);
+
+    @Test
+    @DisplayName("Deve escrever o PNG direto na saída, no tamanho pedido")
+    void deveEscreverPngNoTamanhoPedido() throws Exception {
+        QrCodeService.ImagemQrCode imagem = qrCodeService.png(PAYLOAD, 200, "M");
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        imagem.escrever(saida);
+
+        assertEquals("image/png", imagem.getTipoDeConteudo());
+        BufferedImage lida = ImageIO.read(new ByteArrayInputStream(saida.toByteArray()));
+        assertEquals(200, lida.getWidth());
+        assertEquals(200, lida.getHeight());
+    }
+
+    @Test
+    @DisplayName("Deve gerar o PNG de 1 bit com os mesmos pixels do MatrixToImageWriter")
+    void deveGerarMesmosPixelsDoMatrixToImageWriter() throws Exception {
+        // 300 não é múltiplo do lado do código: sobra margem a centralizar
+        for (int[] tamanho : new int[][]{{300, 300}, {64, 64}, {250, 400}}) {
+            BitMatrix modulos = new QRCodeWriter().encode(PAYLOAD, BarcodeFormat.QR_CODE, 0, 0);
+            BitMatrix pixels = new QRCodeWriter().encode(PAYLOAD, BarcodeFormat.QR_CODE, tamanho[0], tamanho[1]);
+
+            BufferedImage esperada = MatrixToImageWriter.toBufferedImage(pixels);
+            BufferedImage gerada = ImageIO.read(new ByteArrayInputStream(
+                    PngDeUmBit.escrever(modulos, tamanho[0], tamanho[1])));
+
+            assertEquals(esperada.getWidth(), gerada.getWidth());
+            assertEquals(esperada.getHeight(), gerada.getHeight());
+            for (int y = 0; y < esperada.getHeight(); y++) {
+                for (int x = 0; x < esperada.getWidth(); x++) {
+                    assertEquals(esperada.getRGB(x, y), gerada.getRGB(x, y), "pixel " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Deve servir do cache o PNG do código estático já desenhado")
+    void deveServirCodigoEstaticoDoCache() throws Exception {
+        ByteArrayOutputStream primeira = new ByteArrayOutputStream();
+        qrCodeService.pngEstatico(PAYLOAD, 300, "M").escrever(primeira);
+        ByteArrayOutputStream segunda = new ByteArrayOutputStream();
+        qrCodeService.pngEstatico(PAYLOAD, 300, "M").escrever(segunda);
+        qrCodeService.pngEstatico(PAYLOAD, 200, "M");
+
+        assertArrayEquals(primeira.toByteArray(), segunda.toByteArray());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "pix.qrcode").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(2.0, registry.get("cache.gets").tag("cache", "pix.qrcode").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Deve montar o SVG a partir dos módulos, com mais módulos quanto maior a correção")
+    void deveMontarSvgDosModulos() throws Exception {
+        String baixa = svg("L");
+        String alta = svg("H");
+
+        assertTrue(baixa.startsWith("<svg "));
+        assertTrue(baixa.contains("width=\"300\""));
+        assertTrue(baixa.contains("<path fill=\"#000\" d=\"M"));
+        assertTrue(baixa.endsWith("</svg>"));
+        assertTrue(lado(alta) > lado(baixa));
+    }
+
+    @Test
+    @DisplayName("Deve recusar tamanho fora dos limites e nível de correção desconhecido")
+    void deveRecusarParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> qrCodeService.png(PAYLOAD, 10, "M"));
+        assertThrows(IllegalArgumentException.class, () -> qrCodeService.svg(PAYLOAD, 5000, "M"));
+        assertThrows(IllegalArgumentException.class, () -> qrCodeService.png(PAYLOAD, 300, "X"));
+    }
+
+    private String svg(String correcao) throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        qrCodeService.svg(PAYLOAD, 300, correcao).escrever(saida);
+        return saida.toString(StandardCharsets.UTF_8);
+    }
+
+    // Lado do viewBox, em módulos
+    private int lado(String svg) {
+        int inicio = svg.indexOf("viewBox=\"0 0 ") + "viewBox=\"0 0 ".length();
+        return Integer.parseInt(svg.substring(inicio, svg.indexOf(' ', inicio)));
+    }
+}
@@ -30,6 +30,12 @@ class TransacaoServiceTest {
     @Mock
     private ContaRepository contaRepository;
 
+    @Mock
+    private CacheDoExtrato cacheDoExtrato;
+
+    @Mock
+    private ResumoService resumoService;
+
     @InjectMocks // Injeta os mocks na instância do serviço que vamos testar
     private TransacaoService transacaoService;
 
@@ -39,7 +45,7 @@ class TransacaoServiceTest {
         // Cenário (Arrange)
         Conta conta = new Conta();
         conta.setNumeroDaConta(1L);
-        double valorSaque = 150.0;
+        long valorSaque = 15000L;
 
         // Preparamos o objeto que esperamos que o save retorne
         Transacao transacaoSalva = new Transacao();
@@ -86,7 +92,7 @@ class TransacaoServiceTest {
         // 2. Criamos uma transação de origem com dados de exemplo
         Transacao transacao = new Transacao();
         transacao.setTipo("SAQUE");
-        transacao.setValor(200.0);
+        transacao.setValor(20000L);
         transacao.setData(LocalDateTime.now());
 
         // Ação (Act)
@@ -99,7 +105,7 @@ class TransacaoServiceTest {
 
         // Verificando os campos diretos do TransacaoDTO
         assertEquals("SAQUE", resultadoDTO.getTipo());
-        assertEquals(200.0, resultadoDTO.getValor());
+        assertEquals(20000L, resultadoDTO.getValor());
         assertEquals(transacao.getData(), resultadoDTO.getData());
         assertNull(resultadoDTO.getContaDestinatario(), "A conta destinatário no DTO de saque deve ser nula.");
 
@@ -115,7 +121,7 @@ class TransacaoServiceTest {
         // Cenário (Arrange)
         Conta contaDestino = new Conta();
         contaDestino.setNumeroDaConta(2L);
-        double valorDeposito = 300.0;
+        long valorDeposito = 30000L;
 
         Transacao transacaoSalva = new Transacao();
         transacaoSalva.setId(2L); // ID simulado
@@ -159,7 +165,7 @@ class TransacaoServiceTest {
         // 2. Criamos a transação de depósito
         Transacao transacao = new Transacao();
         transacao.setTipo("DEPOSITO");
-        transacao.setValor(500.0);
+        transacao.setValor(50000L);
         transacao.setData(LocalDateTime.now());
 
         // Ação (Act)
@@ -172,7 +178,7 @@ class TransacaoServiceTest {
 
         // Verificando os campos diretos do TransacaoDTO
         assertEquals("DEPOSITO", resultadoDTO.getTipo());
-        assertEquals(500.0, resultadoDTO.getValor());
+        assertEquals(50000L, resultadoDTO.getValor());
         assertEquals(transacao.getData(), resultadoDTO.getData());
         assertNull(resultadoDTO.getContaRemetente(), "A conta remetente no DTO de depósito deve ser nula.");
 
@@ -192,7 +198,7 @@ class TransacaoServiceTest {
         Conta contaDestinatario = new Conta();
         contaDestinatario.setNumeroDaConta(2L);
 
-        double valorTransferencia = 1000.0;
+        long valorTransferencia = 100000L;
 
         Transacao transacaoSalva = new Transacao();
         transacaoSalva.setId(3L); // ID simulado
@@ -202,7 +208,7 @@ class TransacaoServiceTest {
         ArgumentCaptor<Transacao> transacaoCaptor = ArgumentCaptor.forClass(Transacao.class);
 
         // Ação (Act)
-        Transacao resultado = transacaoService.adicionarTransacaoTransferencia(contaRemetente, contaDestinatario, valorTransferencia);
+        Transacao resultado = transacaoService.adicionarTransacaoTransferencia(contaRemetente, contaDestinatario, valorTransferencia, false);
 
         // Verificação (Assert)
         // 1. Capturamos o argumento passado para o método save
@@ -240,7 +246,7 @@ class TransacaoServiceTest {
         // 3. Criamos a transação
         Transacao transacao = new Transacao();
         transacao.setTipo("TRANSFERENCIA");
-        transacao.setValor(150.0);
+        transacao.setValor(15000L);
         transacao.setData(LocalDateTime.now());
 
         // Ação (Act)
@@ -252,7 +258,7 @@ class TransacaoServiceTest {
 
         // Verificando os dados da transação
         assertEquals("TRANSFERENCIA", resultadoDTO.getTipo());
-        assertEquals(150.0, resultadoDTO.getValor());
+        assertEquals(15000L, resultadoDTO.getValor());
         assertEquals(transacao.getData(), resultadoDTO.getData());
 
         // Verificando os dados do remetente
@@ -1003,16 +1003,31 @@ btnAvancarCopiaCola.addEventListener('click', () => {
 // ------------------------------------------
 // 3. TELA DE CONFIRMAÇÃO 
 // ------------------------------------------
-function processarCodigoPix(codigoTexto) {
+async function processarCodigoPix(codigoTexto) {
+    const token = localStorage.getItem('token');
+    const tokenFormatado = token.startsWith("Bearer ") ? token : `Bearer ${token}`;
+
     try {
-        // Tenta ler o JSON do código PIX
-        const dadosPix = JSON.parse(codigoTexto); 
+        // O código PIX é assinado pelo backend: quem confere e devolve os dados é a rota /pix/ler
+        const response = await fetch(`https://visionbank-back.onrender.com/pix/ler`, {
+            method: 'POST',
+            headers: {
+                'Authorization': tokenFormatado,
+                'Content-Type': 'application/json'
+            },
+            body: JSON.stringify({
+                qrCodeTexto: codigoTexto
+            })
+        });
+        if (!response.ok) {
+            throw new Error(await response.text());
+        }
+        const dadosPix = await response.json();
 
         spanConfirmaNome.innerText = dadosPix.nomeDestinatario || "Usuário Não Identificado";
         
         // Preenche a tela de confirmação
-        // Tenta ler "numeroContaDestinatario" (seu padrão novo) ou "contaDestino" (caso seja código antigo)
-        spanConfirmaConta.innerText = dadosPix.numeroContaDestinatario || dadosPix.contaDestino || "N/A";
+        spanConfirmaConta.innerText = dadosPix.numeroContaDestinatario || "N/A";
         
         // Formata o dinheiro bonitinho
         const valorReal = parseFloat(dadosPix.valor).toLocaleString('pt-BR', { minimumFractionDigits: 2 });
@@ -1028,7 +1043,7 @@ function processarCodigoPix(codigoTexto) {
 
     } catch (e) {
         alert("Código PIX inválido ou corrompido! Verifique se você copiou o texto inteiro.");
-        console.error("Erro ao fazer parse do JSON do PIX:", e);
+        console.error("Erro ao ler o código PIX:", e);
         
         // Se a câmera leu errado, volta pra tela inicial
         areaLeitorQr.style.display = 'none';